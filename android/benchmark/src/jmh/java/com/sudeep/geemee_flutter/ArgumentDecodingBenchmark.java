@@ -0,0 +1,95 @@
+package com.sudeep.geemee_flutter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.flutter.plugin.common.MethodCall;
+import io.flutter.plugin.common.StandardMethodCodec;
+
+/**
+ * Cost of getting arguments out of a call: call.argument lookups on an already decoded map,
+ * and the full StandardMethodCodec decode of the channel message that precedes them, compared
+ * with a call that carries a registered placement handle instead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ArgumentDecodingBenchmark {
+    private MethodCall loadBannerCall;
+    private ByteBuffer encodedLoadBanner;
+    private ByteBuffer encodedReadiness;
+    private ByteBuffer encodedHandleLoadBanner;
+    private final GeemeePlacementHandles handles = new GeemeePlacementHandles();
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> args = new HashMap<>();
+        args.put("placementId", "placement_1");
+        args.put("adSize", "MEDIUM_RECTANGLE");
+        loadBannerCall = new MethodCall("loadBanner", args);
+        encodedLoadBanner = StandardMethodCodec.INSTANCE.encodeMethodCall(loadBannerCall);
+        for (int i = 0; i < 16; i++) {
+            handles.register(i, "BANNER", "placement_" + i, "MEDIUM_RECTANGLE");
+        }
+        encodedHandleLoadBanner = StandardMethodCodec.INSTANCE.encodeMethodCall(new MethodCall("loadBanner", 1));
+
+        List<String> formats = Arrays.asList("BANNER", "BANNER", "INTERSTITIAL", "OFFER_WALL", "USER_CENTER",
+                "BANNER", "BANNER", "INTERSTITIAL", "BANNER", "BANNER");
+        List<String> placements = Arrays.asList("p1", "p2", "p3", "p4", "p5", "p6", "p7", "p8", "p9", "p10");
+        Map<String, Object> readinessArgs = new HashMap<>();
+        readinessArgs.put("formats", formats);
+        readinessArgs.put("placementIds", placements);
+        encodedReadiness = StandardMethodCodec.INSTANCE.encodeMethodCall(new MethodCall("getReadiness", readinessArgs));
+    }
+
+    @Benchmark
+    public void argumentLookup(Blackhole bh) {
+        String placementId = loadBannerCall.argument("placementId");
+        String adSize = loadBannerCall.argument("adSize");
+        bh.consume(placementId);
+        bh.consume(adSize);
+    }
+
+    @Benchmark
+    public void decodeAndLookup(Blackhole bh) {
+        encodedLoadBanner.rewind();
+        MethodCall call = StandardMethodCodec.INSTANCE.decodeMethodCall(encodedLoadBanner);
+        String placementId = call.argument("placementId");
+        String adSize = call.argument("adSize");
+        bh.consume(placementId);
+        bh.consume(adSize);
+    }
+
+    @Benchmark
+    public void decodeAndResolveHandle(Blackhole bh) {
+        encodedHandleLoadBanner.rewind();
+        MethodCall call = StandardMethodCodec.INSTANCE.decodeMethodCall(encodedHandleLoadBanner);
+        GeemeePlacementHandles.Entry entry = handles.get((Integer) call.arguments);
+        bh.consume(entry.placementId);
+        bh.consume(entry.adSize);
+    }
+
+    /** One batched getReadiness call carrying ten placements. */
+    @Benchmark
+    public void decodeBatchedReadiness(Blackhole bh) {
+        encodedReadiness.rewind();
+        MethodCall call = StandardMethodCodec.INSTANCE.decodeMethodCall(encodedReadiness);
+        List<String> formats = call.argument("formats");
+        List<String> placements = call.argument("placementIds");
+        bh.consume(formats);
+        bh.consume(placements);
+    }
+}
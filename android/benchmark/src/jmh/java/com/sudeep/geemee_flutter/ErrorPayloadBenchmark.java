@@ -0,0 +1,49 @@
+package com.sudeep.geemee_flutter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the error payload of failure callbacks. The plugin used to build it eagerly in
+ * errorToMap on the SDK thread; it now stores the error string and builds the legacy
+ * {"error": ...} map only when the map transport delivers the event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ErrorPayloadBenchmark {
+    private final Object error = new Object() {
+        @Override
+        public String toString() {
+            return "GError{code=204, msg='no fill'}";
+        }
+    };
+
+    /** Shape of the former errorToMap(GError). */
+    @Benchmark
+    public Map<String, Object> eagerErrorMap() {
+        Map<String, Object> m = new HashMap<>();
+        m.put("error", String.valueOf(error));
+        return m;
+    }
+
+    /** What the SDK callback thread pays now. */
+    @Benchmark
+    public GeemeeEvent deferredErrorEvent() {
+        return GeemeeEvent.sdk("onBannerLoadFailed", "placement_1", String.valueOf(error), 0L);
+    }
+
+    /** What the main thread pays later on the map transport. */
+    @Benchmark
+    public Map<String, Object> deferredErrorEventToMap() {
+        return GeemeeEvent.sdk("onBannerLoadFailed", "placement_1", String.valueOf(error), 0L).toMap();
+    }
+}
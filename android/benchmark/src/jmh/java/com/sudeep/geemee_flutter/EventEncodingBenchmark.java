@@ -0,0 +1,85 @@
+package com.sudeep.geemee_flutter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.flutter.plugin.common.StandardMessageCodec;
+
+/**
+ * Cost of putting a batch of SDK events on the wire:
+ * - perEventMaps: the original safeSendEvent path, one map + one codec message per event
+ * - batchedMaps: the map transport, one list message per frame
+ * - binaryFrames: the opt-in binary transport (GeemeeEventCodec)
+ * - binaryFramesWithHandles: the same, with every placement registered as a handle
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventEncodingBenchmark {
+    @Param({"1", "16"})
+    public int batchSize;
+
+    private List<GeemeeEvent> batch;
+    private final GeemeePlacementHandles handles = new GeemeePlacementHandles();
+
+    @Setup
+    public void setUp() {
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            handles.register(i, "BANNER", "placement_" + i, null);
+            switch (i % 4) {
+                case 0:
+                    batch.add(GeemeeEvent.sdk("onBannerReady", "placement_" + i, null, i));
+                    break;
+                case 1:
+                    batch.add(GeemeeEvent.sdk("onBannerLoadFailed", "placement_" + i, "GError{code=204, msg='no fill'}", i));
+                    break;
+                case 2:
+                    batch.add(GeemeeEvent.sdk("onUserInteraction", "placement_" + i, "{\"action\":\"click\"}", i));
+                    break;
+                default:
+                    batch.add(GeemeeEvent.sdk("onInterstitialClose", "placement_" + i, null, i));
+                    break;
+            }
+        }
+    }
+
+    @Benchmark
+    public void perEventMaps(Blackhole bh) {
+        for (GeemeeEvent event : batch) {
+            bh.consume(StandardMessageCodec.INSTANCE.encodeMessage(event.toMap()));
+        }
+    }
+
+    @Benchmark
+    public ByteBuffer batchedMaps() {
+        List<Map<String, Object>> message = new ArrayList<>(batch.size());
+        for (GeemeeEvent event : batch) {
+            message.add(event.toMap());
+        }
+        return StandardMessageCodec.INSTANCE.encodeMessage(message);
+    }
+
+    @Benchmark
+    public ByteBuffer binaryFrames() {
+        return GeemeeEventCodec.encode(batch);
+    }
+
+    @Benchmark
+    public ByteBuffer binaryFramesWithHandles() {
+        return GeemeeEventCodec.encode(batch, handles);
+    }
+}
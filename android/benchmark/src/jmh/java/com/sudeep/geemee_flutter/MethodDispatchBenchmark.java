@@ -0,0 +1,105 @@
+package com.sudeep.geemee_flutter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import io.flutter.plugin.common.MethodCall;
+import io.flutter.plugin.common.MethodChannel.Result;
+
+/**
+ * Cost of getting a method call to its handler: the thread policy lookup done by the background
+ * channel, the init check done by onMethodCall and the GeemeeMethodRouter dispatch, through the
+ * real GeemeeMethodPolicy tables and a router holding a handler for every method the policy
+ * declares (the plugin's handler bodies need an Android runtime, so each one just replies).
+ * dispatchAllMethods covers every declared method, so new methods are picked up without
+ * touching this file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MethodDispatchBenchmark {
+
+    /** Counts replies, so the dispatch can't be optimized away. */
+    static final class CountingResult implements Result {
+        int replies;
+
+        @Override
+        public void success(Object value) { replies++; }
+
+        @Override
+        public void error(String errorCode, String errorMessage, Object errorDetails) { replies++; }
+
+        @Override
+        public void notImplemented() { replies++; }
+    }
+
+    @State(Scope.Thread)
+    public static class Router {
+        final GeemeeMethodRouter router = new GeemeeMethodRouter();
+        final CountingResult result = new CountingResult();
+
+        @Setup
+        public void setUp() {
+            for (String method : GeemeeMethodPolicy.methods()) {
+                router.on(method, (call, result) -> result.success(null));
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Call {
+        @Param({"initSDK", "isBannerReady", "getReadiness", "setEventTransport", "unknownMethod"})
+        public String method;
+
+        MethodCall call;
+
+        @Setup
+        public void setUp() {
+            // a fresh String instance, as decoded from a channel message
+            call = new MethodCall(new String(method.toCharArray()), null);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class AllMethods {
+        MethodCall[] calls;
+
+        @Setup
+        public void setUp() {
+            String[] names = GeemeeMethodPolicy.methods().toArray(new String[0]);
+            calls = new MethodCall[names.length];
+            for (int i = 0; i < names.length; i++) {
+                calls[i] = new MethodCall(new String(names[i].toCharArray()), null);
+            }
+        }
+    }
+
+    /** What onBackgroundMethodCall, onMethodCall and dispatchMethodCall do for one call. */
+    private static int dispatch(Router router, MethodCall call) throws Exception {
+        int route = GeemeeMethodPolicy.forMethod(call.method) == GeemeeMethodPolicy.ThreadPolicy.BACKGROUND ? 1 : 0;
+        if (GeemeeMethodPolicy.requiresInit(call.method)) route |= 2;
+        router.router.dispatch(call, router.result);
+        return route;
+    }
+
+    @Benchmark
+    public int dispatchMethod(Router router, Call call) throws Exception {
+        return dispatch(router, call.call);
+    }
+
+    @Benchmark
+    public void dispatchAllMethods(Router router, AllMethods all, Blackhole bh) throws Exception {
+        for (MethodCall call : all.calls) {
+            bh.consume(dispatch(router, call));
+        }
+        bh.consume(router.result.replies);
+    }
+}
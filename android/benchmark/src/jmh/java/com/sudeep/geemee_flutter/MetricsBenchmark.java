@@ -0,0 +1,25 @@
+package com.sudeep.geemee_flutter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/** Recording overhead added to every method call and callback by GeemeeMetrics. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetricsBenchmark {
+    private final GeemeeMetrics metrics = new GeemeeMetrics();
+    private long value = 1;
+
+    @Benchmark
+    public void recordMethod() {
+        value = value * 6364136223846793005L + 1442695040888963407L;
+        metrics.recordMethod("isBannerReady", (value >>> 40) & 0xFFFFF);
+    }
+}
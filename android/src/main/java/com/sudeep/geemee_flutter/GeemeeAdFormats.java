@@ -0,0 +1,15 @@
+package com.sudeep.geemee_flutter;
+
+/**
+ * Ad format names shared by the Dart API, the state table and the event codec.
+ * Kept free of Android dependencies so the codec and events can run on a plain JVM
+ * (see the benchmark module).
+ */
+final class GeemeeAdFormats {
+    static final String BANNER = "BANNER";
+    static final String INTERSTITIAL = "INTERSTITIAL";
+    static final String OFFER_WALL = "OFFER_WALL";
+    static final String USER_CENTER = "USER_CENTER";
+
+    private GeemeeAdFormats() {}
+}
@@ -0,0 +1,261 @@
+package com.sudeep.geemee_flutter;
+
+import android.view.View;
+
+import ai.geemee.AdSize;
+import ai.geemee.GeeMeeCallback;
+
+/**
+ * The GeeMee SDK surface used by the plugin. Production code goes through {@link GeemeeSdkBackend};
+ * {@link GeemeeSimulatedBackend} stands in for it when testing concurrency and throughput
+ * without the real SDK and network.
+ */
+interface GeemeeBackend {
+    void setCallback(GeeMeeCallback callback);
+
+    void initSDK(String appKey);
+
+    void setUserId(String userId);
+
+    String getUserId();
+
+    void debug(boolean debug);
+
+    String getVersion();
+
+    boolean isOfferWallReady(String placementId);
+
+    void openOfferWall(String placementId);
+
+    void loadBanner(String placementId, AdSize adSize);
+
+    boolean isBannerReady(String placementId);
+
+    /** Must be called on the main thread. */
+    View showBanner(String placementId);
+
+    void destroyBanner(String placementId);
+
+    boolean isInterstitialReady(String placementId);
+
+    void showInterstitial(String placementId);
+
+    boolean isUserCenterReady(String placementId);
+
+    void openUserCenter(String placementId);
+
+    /**
+     * Holds the backend in use; components keep a reference to the switch, so a backend
+     * selected before initSDK is picked up everywhere.
+     * Every SDK call passes through here, so this is also where they get their trace sections
+     * and where main-thread calls are timed by the stall watchdog.
+     */
+    final class Switch implements GeemeeBackend {
+        final GeemeeStallWatchdog watchdog = new GeemeeStallWatchdog();
+        private volatile GeemeeBackend target;
+
+        Switch(GeemeeBackend target) {
+            this.target = target;
+        }
+
+        void set(GeemeeBackend backend) {
+            target = backend;
+        }
+
+        GeemeeBackend get() {
+            return target;
+        }
+
+        @Override
+        public void setCallback(GeeMeeCallback callback) {
+            boolean traced = GeemeeTrace.begin("sdk setCallback", null);
+            int watched = watchdog.begin();
+            try {
+                target.setCallback(callback);
+            } finally {
+                watchdog.end(watched, "setCallback", null);
+                if (traced) GeemeeTrace.end();
+            }
+        }
+
+        @Override
+        public void initSDK(String appKey) {
+            boolean traced = GeemeeTrace.begin("sdk initSDK", null);
+            int watched = watchdog.begin();
+            try {
+                target.initSDK(appKey);
+            } finally {
+                watchdog.end(watched, "initSDK", null);
+                if (traced) GeemeeTrace.end();
+            }
+        }
+
+        @Override
+        public void setUserId(String userId) {
+            boolean traced = GeemeeTrace.begin("sdk setUserId", null);
+            int watched = watchdog.begin();
+            try {
+                target.setUserId(userId);
+            } finally {
+                watchdog.end(watched, "setUserId", null);
+                if (traced) GeemeeTrace.end();
+            }
+        }
+
+        @Override
+        public String getUserId() {
+            boolean traced = GeemeeTrace.begin("sdk getUserId", null);
+            int watched = watchdog.begin();
+            try {
+                return target.getUserId();
+            } finally {
+                watchdog.end(watched, "getUserId", null);
+                if (traced) GeemeeTrace.end();
+            }
+        }
+
+        @Override
+        public void debug(boolean debug) {
+            boolean traced = GeemeeTrace.begin("sdk debug", null);
+            int watched = watchdog.begin();
+            try {
+                target.debug(debug);
+            } finally {
+                watchdog.end(watched, "debug", null);
+                if (traced) GeemeeTrace.end();
+            }
+        }
+
+        @Override
+        public String getVersion() {
+            boolean traced = GeemeeTrace.begin("sdk getVersion", null);
+            int watched = watchdog.begin();
+            try {
+                return target.getVersion();
+            } finally {
+                watchdog.end(watched, "getVersion", null);
+                if (traced) GeemeeTrace.end();
+            }
+        }
+
+        @Override
+        public boolean isOfferWallReady(String placementId) {
+            boolean traced = GeemeeTrace.begin("sdk isOfferWallReady", placementId);
+            int watched = watchdog.begin();
+            try {
+                return target.isOfferWallReady(placementId);
+            } finally {
+                watchdog.end(watched, "isOfferWallReady", placementId);
+                if (traced) GeemeeTrace.end();
+            }
+        }
+
+        @Override
+        public void openOfferWall(String placementId) {
+            boolean traced = GeemeeTrace.begin("sdk openOfferWall", placementId);
+            int watched = watchdog.begin();
+            try {
+                target.openOfferWall(placementId);
+            } finally {
+                watchdog.end(watched, "openOfferWall", placementId);
+                if (traced) GeemeeTrace.end();
+            }
+        }
+
+        @Override
+        public void loadBanner(String placementId, AdSize adSize) {
+            boolean traced = GeemeeTrace.begin("sdk loadBanner", placementId);
+            int watched = watchdog.begin();
+            try {
+                target.loadBanner(placementId, adSize);
+            } finally {
+                watchdog.end(watched, "loadBanner", placementId);
+                if (traced) GeemeeTrace.end();
+            }
+        }
+
+        @Override
+        public boolean isBannerReady(String placementId) {
+            boolean traced = GeemeeTrace.begin("sdk isBannerReady", placementId);
+            int watched = watchdog.begin();
+            try {
+                return target.isBannerReady(placementId);
+            } finally {
+                watchdog.end(watched, "isBannerReady", placementId);
+                if (traced) GeemeeTrace.end();
+            }
+        }
+
+        @Override
+        public View showBanner(String placementId) {
+            boolean traced = GeemeeTrace.begin("sdk showBanner", placementId);
+            int watched = watchdog.begin();
+            try {
+                return target.showBanner(placementId);
+            } finally {
+                watchdog.end(watched, "showBanner", placementId);
+                if (traced) GeemeeTrace.end();
+            }
+        }
+
+        @Override
+        public void destroyBanner(String placementId) {
+            boolean traced = GeemeeTrace.begin("sdk destroyBanner", placementId);
+            int watched = watchdog.begin();
+            try {
+                target.destroyBanner(placementId);
+            } finally {
+                watchdog.end(watched, "destroyBanner", placementId);
+                if (traced) GeemeeTrace.end();
+            }
+        }
+
+        @Override
+        public boolean isInterstitialReady(String placementId) {
+            boolean traced = GeemeeTrace.begin("sdk isInterstitialReady", placementId);
+            int watched = watchdog.begin();
+            try {
+                return target.isInterstitialReady(placementId);
+            } finally {
+                watchdog.end(watched, "isInterstitialReady", placementId);
+                if (traced) GeemeeTrace.end();
+            }
+        }
+
+        @Override
+        public void showInterstitial(String placementId) {
+            boolean traced = GeemeeTrace.begin("sdk showInterstitial", placementId);
+            int watched = watchdog.begin();
+            try {
+                target.showInterstitial(placementId);
+            } finally {
+                watchdog.end(watched, "showInterstitial", placementId);
+                if (traced) GeemeeTrace.end();
+            }
+        }
+
+        @Override
+        public boolean isUserCenterReady(String placementId) {
+            boolean traced = GeemeeTrace.begin("sdk isUserCenterReady", placementId);
+            int watched = watchdog.begin();
+            try {
+                return target.isUserCenterReady(placementId);
+            } finally {
+                watchdog.end(watched, "isUserCenterReady", placementId);
+                if (traced) GeemeeTrace.end();
+            }
+        }
+
+        @Override
+        public void openUserCenter(String placementId) {
+            boolean traced = GeemeeTrace.begin("sdk openUserCenter", placementId);
+            int watched = watchdog.begin();
+            try {
+                target.openUserCenter(placementId);
+            } finally {
+                watchdog.end(watched, "openUserCenter", placementId);
+                if (traced) GeemeeTrace.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.sudeep.geemee_flutter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+/**
+ * Recycling pool for SDK banner views, keyed by placement.
+ * - the SDK manages one banner per placement (showBanner / destroyBanner take a placementId),
+ *   so the pool keeps at most one detached view per placement
+ * - LRU across placements with a time-to-live, an entry cap and an (estimated) memory cap
+ * - evicted or rejected views are released through {@link #destroyBanner(String)}, the one path
+ *   that destroys SDK banners: it also records the destruction in the placement state table
+ * - banners can be prepared ahead of time with {@link #prewarm(String)}
+ *
+ * All methods must be called on the main thread.
+ */
+class GeemeeBannerPool {
+    private static final String TAG = "GeemeeBannerPool";
+
+    static final int DEFAULT_MAX_ENTRIES = 4;
+    static final long DEFAULT_MAX_BYTES = 8L * 1024 * 1024;
+    static final long DEFAULT_TTL_MS = 60_000L;
+
+    // used when a view has not been laid out yet (e.g. prewarmed): a 320x50dp banner at xxhdpi, ARGB
+    private static final long UNMEASURED_VIEW_BYTES = 960L * 150 * 4;
+
+    private static final class Entry {
+        final View view;
+        final long pooledAtMs;
+        final long estimatedBytes;
+
+        Entry(View view, long pooledAtMs, long estimatedBytes) {
+            this.view = view;
+            this.pooledAtMs = pooledAtMs;
+            this.estimatedBytes = estimatedBytes;
+        }
+    }
+
+    // access-ordered: iteration starts at the least recently used placement
+    private final LinkedHashMap<String, Entry> pooled = new LinkedHashMap<>(16, 0.75f, true);
+    // live views per placement: several banner views may show the same placement
+    private final Map<String, Integer> inUse = new HashMap<>();
+    private final GeemeeBackend backend;
+    private final GeemeePlacementStates placementStates;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable sweepRunnable = this::sweepExpired;
+
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private long maxBytes = DEFAULT_MAX_BYTES;
+    private long ttlMs = DEFAULT_TTL_MS;
+    private long pooledBytes = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long prewarmed = 0;
+
+    GeemeeBannerPool(GeemeeBackend backend, GeemeePlacementStates placementStates) {
+        this.backend = backend;
+        this.placementStates = placementStates;
+    }
+
+    void configure(int maxEntries, long maxBytes, long ttlMs) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.maxBytes = Math.max(0L, maxBytes);
+        this.ttlMs = Math.max(0L, ttlMs);
+        trim();
+        sweepExpired();
+    }
+
+    /** Takes the pooled view for a placement, or returns null on a miss. Marks the placement in use. */
+    View acquire(String placementId) {
+        Entry entry = pooled.remove(placementId);
+        View view = null;
+        if (entry != null) {
+            pooledBytes -= entry.estimatedBytes;
+            if (!isExpired(entry, SystemClock.elapsedRealtime())) {
+                view = entry.view;
+            } else {
+                destroy(placementId);
+                evictions++;
+            }
+        }
+        Integer views = inUse.get(placementId);
+        inUse.put(placementId, views != null ? views + 1 : 1);
+        if (view != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return view;
+    }
+
+    /**
+     * Returns a disposed banner to the pool. The view is detached from its parent and kept for reuse;
+     * if the pool can't hold it, the banner is destroyed.
+     */
+    void release(String placementId, View view) {
+        Integer views = inUse.get(placementId);
+        if (views != null && views > 1) {
+            inUse.put(placementId, views - 1);
+        } else {
+            inUse.remove(placementId);
+        }
+        if (view == null) {
+            destroy(placementId);
+            return;
+        }
+        detach(view);
+        if (maxEntries == 0 || ttlMs == 0) {
+            destroy(placementId);
+            return;
+        }
+        long bytes = estimateBytes(view);
+        Entry previous = pooled.put(placementId, new Entry(view, SystemClock.elapsedRealtime(), bytes));
+        if (previous != null) {
+            pooledBytes -= previous.estimatedBytes;
+        }
+        pooledBytes += bytes;
+        trim();
+        scheduleSweep();
+    }
+
+    /**
+     * Creates the SDK banner view for a loaded placement ahead of time.
+     * Returns false if the placement is not loaded yet, already pooled or currently shown.
+     */
+    boolean prewarm(String placementId) {
+        if (pooled.containsKey(placementId) || inUse.containsKey(placementId)) return false;
+        try {
+            if (!backend.isBannerReady(placementId)) return false;
+            View view = backend.showBanner(placementId);
+            if (view == null) return false;
+            prewarmed++;
+            release(placementId, view);
+            return pooled.containsKey(placementId);
+        } catch (Exception e) {
+            Log.e(TAG, "prewarm failed for placement " + placementId, e);
+            return false;
+        }
+    }
+
+    /** Destroys every pooled banner; returns how many there were. */
+    int clear() {
+        mainHandler.removeCallbacks(sweepRunnable);
+        int cleared = pooled.size();
+        for (String placementId : new ArrayList<>(pooled.keySet())) {
+            destroy(placementId);
+        }
+        pooled.clear();
+        pooledBytes = 0;
+        return cleared;
+    }
+
+    /**
+     * Destroys the placement's SDK banner and marks it destroyed in the state table; a pooled view
+     * of it is dropped. Throws what the backend throws.
+     */
+    void destroyBanner(String placementId) {
+        Entry entry = pooled.remove(placementId);
+        if (entry != null) {
+            pooledBytes -= entry.estimatedBytes;
+            detach(entry.view);
+        }
+        backend.destroyBanner(placementId);
+        placementStates.onDestroyed(GeemeePlacementStates.BANNER, placementId);
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", evictions);
+        stats.put("prewarmed", prewarmed);
+        stats.put("size", pooled.size());
+        stats.put("inUse", inUse.size());
+        stats.put("estimatedBytes", pooledBytes);
+        stats.put("maxEntries", maxEntries);
+        stats.put("maxBytes", maxBytes);
+        stats.put("ttlMs", ttlMs);
+        return stats;
+    }
+
+    /** Evicts least recently used entries until both caps are met. */
+    private void trim() {
+        Iterator<Map.Entry<String, Entry>> it = pooled.entrySet().iterator();
+        while ((pooled.size() > maxEntries || pooledBytes > maxBytes) && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            it.remove();
+            pooledBytes -= eldest.getValue().estimatedBytes;
+            destroy(eldest.getKey());
+            evictions++;
+        }
+    }
+
+    private void sweepExpired() {
+        long now = SystemClock.elapsedRealtime();
+        Iterator<Map.Entry<String, Entry>> it = pooled.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            if (isExpired(e.getValue(), now)) {
+                it.remove();
+                pooledBytes -= e.getValue().estimatedBytes;
+                destroy(e.getKey());
+                evictions++;
+            }
+        }
+        scheduleSweep();
+    }
+
+    private void scheduleSweep() {
+        mainHandler.removeCallbacks(sweepRunnable);
+        if (pooled.isEmpty()) return;
+        long oldest = Long.MAX_VALUE;
+        for (Entry entry : pooled.values()) {
+            oldest = Math.min(oldest, entry.pooledAtMs);
+        }
+        long delay = Math.max(0L, oldest + ttlMs - SystemClock.elapsedRealtime());
+        mainHandler.postDelayed(sweepRunnable, delay + 1);
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.pooledAtMs >= ttlMs;
+    }
+
+    private static long estimateBytes(View view) {
+        long bytes = (long) view.getWidth() * view.getHeight() * 4;
+        return bytes > 0 ? bytes : UNMEASURED_VIEW_BYTES;
+    }
+
+    private static void detach(View view) {
+        ViewParent parent = view.getParent();
+        if (parent instanceof ViewGroup) {
+            try {
+                ((ViewGroup) parent).removeView(view);
+            } catch (Exception e) {
+                Log.w(TAG, "Failed to detach banner view from its parent", e);
+            }
+        }
+    }
+
+    /** Destroys the banner of a view leaving the pool, unless a live view shows the placement. */
+    private void destroy(String placementId) {
+        // a live platform view owns the SDK banner for this placement - don't pull it from under it
+        if (inUse.containsKey(placementId)) return;
+        try {
+            destroyBanner(placementId);
+        } catch (Exception e) {
+            Log.e(TAG, "destroyBanner threw for placement " + placementId, e);
+        }
+    }
+}
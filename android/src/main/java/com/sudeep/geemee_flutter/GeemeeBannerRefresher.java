@@ -0,0 +1,307 @@
+package com.sudeep.geemee_flutter;
+
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ai.geemee.AdSize;
+
+/**
+ * Viewability-gated auto-refresh for banner views of the configured placements:
+ * - each banner view is tracked while attached to a window: global layout and scroll changes,
+ *   plus a check at most every second while visible, measure how much of it is on screen
+ * - only time with at least minVisibleFraction of the view on screen counts; once it adds up
+ *   to refreshAfterMs, a new banner is loaded for the placement
+ * - when it is ready, the view swaps the new banner into its existing container: the Flutter
+ *   platform view is not recreated
+ * - a failed load starts a new visible-time interval; banners that are never seen never reload
+ *
+ * Main thread only, except configure and the SDK callback entry points.
+ */
+final class GeemeeBannerRefresher {
+    private static final String TAG = "GeemeeBannerRefresher";
+
+    static final double DEFAULT_MIN_VISIBLE_FRACTION = 0.5;
+    private static final long CHECK_INTERVAL_MS = 1_000L;
+
+    interface Loader {
+        /** Starts a load; returns false if it was refused (e.g. the placement's circuit is open). */
+        boolean load(String placementId, AdSize adSize);
+    }
+
+    /** A banner view that can be refreshed in place. */
+    interface RefreshableBanner {
+        String placementId();
+
+        /** The container whose visibility is measured; it stays while banners are swapped. */
+        View container();
+
+        /** False while no SDK banner is in the container (released, or the activity is stopped). */
+        boolean hasBanner();
+
+        /** Shows the freshly loaded banner in the container; returns false if there was none. */
+        boolean swapInFreshBanner(double visibleMs);
+    }
+
+    private static final class Config {
+        final AdSize adSize;
+        final long refreshAfterMs;
+        final double minVisibleFraction;
+
+        Config(AdSize adSize, long refreshAfterMs, double minVisibleFraction) {
+            this.adSize = adSize;
+            this.refreshAfterMs = refreshAfterMs;
+            this.minVisibleFraction = minVisibleFraction;
+        }
+    }
+
+    private final Loader loader;
+    private final GeemeeMetrics metrics;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ConcurrentHashMap<String, Config> configs = new ConcurrentHashMap<>();
+    // main thread only: trackers whose load is in flight, per placement, in request order
+    private final Map<String, ArrayDeque<Tracker>> loading = new HashMap<>();
+
+    GeemeeBannerRefresher(Loader loader, GeemeeMetrics metrics) {
+        this.loader = loader;
+        this.metrics = metrics;
+    }
+
+    /** refreshAfterMs <= 0 turns refresh off for the placement. */
+    void configure(String placementId, AdSize adSize, long refreshAfterMs, double minVisibleFraction) {
+        if (refreshAfterMs <= 0) {
+            configs.remove(placementId);
+        } else {
+            double fraction = Math.min(1.0, Math.max(0.0, minVisibleFraction));
+            configs.put(placementId, new Config(adSize, refreshAfterMs, fraction));
+        }
+    }
+
+    /** Starts tracking a banner view; stop the returned tracker when the view goes away. Main thread. */
+    Tracker track(RefreshableBanner banner) {
+        Tracker tracker = new Tracker(banner);
+        tracker.start();
+        return tracker;
+    }
+
+    void onBannerReady(String placementId) {
+        runOnMain(() -> {
+            Tracker tracker = poll(placementId);
+            if (tracker != null) tracker.onLoaded();
+        });
+    }
+
+    void onBannerLoadFailed(String placementId) {
+        runOnMain(() -> {
+            Tracker tracker = poll(placementId);
+            if (tracker != null) tracker.onLoadFailed();
+        });
+    }
+
+    void clear() {
+        configs.clear();
+        runOnMain(loading::clear);
+    }
+
+    private Tracker poll(String placementId) {
+        ArrayDeque<Tracker> queue = loading.get(placementId);
+        if (queue == null) return null;
+        Tracker tracker = queue.poll();
+        if (queue.isEmpty()) loading.remove(placementId);
+        return tracker;
+    }
+
+    private void enqueue(Tracker tracker) {
+        String placementId = tracker.banner.placementId();
+        ArrayDeque<Tracker> queue = loading.get(placementId);
+        if (queue == null) {
+            queue = new ArrayDeque<>();
+            loading.put(placementId, queue);
+        }
+        queue.add(tracker);
+    }
+
+    private void dequeue(Tracker tracker) {
+        String placementId = tracker.banner.placementId();
+        ArrayDeque<Tracker> queue = loading.get(placementId);
+        if (queue == null) return;
+        queue.remove(tracker);
+        if (queue.isEmpty()) loading.remove(placementId);
+    }
+
+    /** Visible-time accounting for one banner view. */
+    final class Tracker implements ViewTreeObserver.OnGlobalLayoutListener,
+            ViewTreeObserver.OnScrollChangedListener, View.OnAttachStateChangeListener, Runnable {
+        private final RefreshableBanner banner;
+        private final Rect visibleRect = new Rect();
+        private ViewTreeObserver observer;
+        private long visibleMs = 0;
+        // uptime of the last check that found the view visible, or -1
+        private long visibleSinceMs = -1;
+        private boolean loadInFlight = false;
+        // loaded while the banner was out of its container; swapped in when it is back
+        private boolean freshReady = false;
+        private boolean stopped = false;
+
+        private Tracker(RefreshableBanner banner) {
+            this.banner = banner;
+        }
+
+        private void start() {
+            View container = banner.container();
+            container.addOnAttachStateChangeListener(this);
+            if (container.isAttachedToWindow()) observe(container);
+            update();
+        }
+
+        void stop() {
+            if (stopped) return;
+            stopped = true;
+            mainHandler.removeCallbacks(this);
+            View container = banner.container();
+            container.removeOnAttachStateChangeListener(this);
+            unobserve();
+            if (loadInFlight) dequeue(this);
+        }
+
+        @Override
+        public void onViewAttachedToWindow(View v) {
+            observe(v);
+            update();
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+            unobserve();
+            update();
+        }
+
+        @Override
+        public void onGlobalLayout() {
+            update();
+        }
+
+        @Override
+        public void onScrollChanged() {
+            update();
+        }
+
+        /** Periodic check while visible. */
+        @Override
+        public void run() {
+            update();
+        }
+
+        private void observe(View view) {
+            unobserve();
+            observer = view.getViewTreeObserver();
+            observer.addOnGlobalLayoutListener(this);
+            observer.addOnScrollChangedListener(this);
+        }
+
+        private void unobserve() {
+            if (observer == null) return;
+            if (observer.isAlive()) {
+                observer.removeOnGlobalLayoutListener(this);
+                observer.removeOnScrollChangedListener(this);
+            }
+            observer = null;
+        }
+
+        /** Adds up visible time, starts a due refresh and schedules the next check. */
+        private void update() {
+            mainHandler.removeCallbacks(this);
+            if (stopped) return;
+            Config config = configs.get(banner.placementId());
+            long now = SystemClock.uptimeMillis();
+            // a minVisibleFraction of 0 still needs some of the view on screen
+            boolean visible = config != null && observer != null && banner.hasBanner()
+                    && visibleFraction() >= Math.max(config.minVisibleFraction, Double.MIN_VALUE);
+            if (visibleSinceMs >= 0) visibleMs += now - visibleSinceMs;
+            visibleSinceMs = visible ? now : -1;
+            if (config == null) return;
+
+            if (freshReady && banner.hasBanner()) {
+                freshReady = false;
+                swap();
+                return;
+            }
+            if (!visible || loadInFlight || freshReady) return;
+            if (visibleMs >= config.refreshAfterMs) {
+                requestLoad(config);
+                return;
+            }
+            mainHandler.postDelayed(this, Math.min(CHECK_INTERVAL_MS, config.refreshAfterMs - visibleMs));
+        }
+
+        private double visibleFraction() {
+            View container = banner.container();
+            long area = (long) container.getWidth() * container.getHeight();
+            if (area == 0 || !container.isShown() || !container.getGlobalVisibleRect(visibleRect)) return 0;
+            return (double) visibleRect.width() * visibleRect.height() / area;
+        }
+
+        private void requestLoad(Config config) {
+            loadInFlight = true;
+            enqueue(this);
+            boolean started = false;
+            try {
+                started = loader.load(banner.placementId(), config.adSize);
+            } catch (Exception e) {
+                Log.e(TAG, "Refresh load threw for placement " + banner.placementId(), e);
+            }
+            if (!started) onLoadFailed();
+        }
+
+        private void onLoaded() {
+            loadInFlight = false;
+            if (stopped) return;
+            if (banner.hasBanner()) {
+                swap();
+            } else {
+                freshReady = true;
+            }
+        }
+
+        private void onLoadFailed() {
+            if (!loadInFlight) return;
+            loadInFlight = false;
+            dequeue(this);
+            metrics.increment(GeemeeMetrics.BANNER_REFRESH_FAILURES, 1);
+            // try again after another full interval on screen
+            restartInterval();
+        }
+
+        private void swap() {
+            if (banner.swapInFreshBanner(visibleMs)) {
+                metrics.increment(GeemeeMetrics.BANNER_REFRESHES, 1);
+            } else {
+                metrics.increment(GeemeeMetrics.BANNER_REFRESH_FAILURES, 1);
+            }
+            restartInterval();
+        }
+
+        private void restartInterval() {
+            visibleMs = 0;
+            visibleSinceMs = -1;
+            update();
+        }
+    }
+
+    private void runOnMain(Runnable runnable) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            runnable.run();
+        } else {
+            mainHandler.post(runnable);
+        }
+    }
+}
@@ -2,17 +2,20 @@ package com.sudeep.geemee_flutter;
 
 import android.app.Activity;
 import android.content.Context;
+import android.graphics.Rect;
+import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
 
 import androidx.annotation.NonNull;
 
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 
-import ai.geemee.GeeMee;
 import io.flutter.plugin.common.StandardMessageCodec;
 import io.flutter.plugin.platform.PlatformView;
 import io.flutter.plugin.platform.PlatformViewFactory;
@@ -21,31 +24,69 @@ import io.flutter.plugin.platform.PlatformViewFactory;
  * Robust GeemeeBannerViewFactory with:
  * - argument checks
  * - UI-thread usage for GeeMee SDK calls
- * - null-safe fallback view
+ * - non-blocking creation: a lightweight container is returned right away and the
+ *   SDK banner is attached into it once showBanner completes on the main thread
+ * - creation latency reported to Dart as an "onBannerViewCreated" event
  * - defensive try/catch logging
+ * - live banners registered with {@link GeemeeMemoryTrimmer}, which may release off-screen ones,
+ *   and detached from their containers while the host activity is stopped
+ * - opt-in trace sections for attach / release and an async slice for creation (see {@link GeemeeTrace})
+ * - banner views recycled through a shared {@link GeemeeBannerPool} instead of destroyed on dispose
+ * - a "groupId" instead of a "placementId" shows the winner of a {@link GeemeePlacementGroups} group
+ * - banners of placements with auto-refresh are reloaded after enough time on screen and swapped
+ *   into the same container (see {@link GeemeeBannerRefresher})
  */
 public class GeemeeBannerViewFactory extends PlatformViewFactory {
     private static final String TAG = "GeemeeBannerViewFactory";
     private final Activity activity;
+    private final GeemeeBackend backend;
+    private final GeemeeBannerPool bannerPool;
+    private final GeemeeEventDispatcher eventDispatcher;
+    private final BannerShownListener bannerShownListener;
+    private final GeemeeMetrics metrics;
+    private final GeemeeMemoryTrimmer memoryTrimmer;
+    private final GeemeePlacementGroups placementGroups;
+    private final GeemeeBannerRefresher refresher;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
-    public GeemeeBannerViewFactory(Activity activity) {
+    /** Notified on the main thread when the SDK hands out a freshly loaded banner (not a pooled one). */
+    interface BannerShownListener {
+        void onBannerShown(String placementId);
+    }
+
+    public GeemeeBannerViewFactory(Activity activity, GeemeeBackend backend, GeemeeBannerPool bannerPool,
+                                   GeemeeEventDispatcher eventDispatcher, BannerShownListener bannerShownListener,
+                                   GeemeeMetrics metrics, GeemeeMemoryTrimmer memoryTrimmer,
+                                   GeemeePlacementGroups placementGroups, GeemeeBannerRefresher refresher) {
         super(StandardMessageCodec.INSTANCE);
         this.activity = activity;
+        this.backend = backend;
+        this.bannerPool = bannerPool;
+        this.eventDispatcher = eventDispatcher;
+        this.bannerShownListener = bannerShownListener;
+        this.metrics = metrics;
+        this.memoryTrimmer = memoryTrimmer;
+        this.placementGroups = placementGroups;
+        this.refresher = refresher;
     }
 
     @NonNull
     @Override
     public PlatformView create(@NonNull Context context, int viewId, Object args) {
-        // default placeholder view (in case SDK fails / returns null)
-        final View placeholder = new View(activity != null ? activity : context);
+        // lightweight container returned immediately; the SDK view is attached into it later
+        final FrameLayout container = new FrameLayout(activity != null ? activity : context);
 
         String placementId = null;
+        String groupId = null;
         if (args instanceof Map) {
             @SuppressWarnings("unchecked")
             Map<String, Object> params = (Map<String, Object>) args;
             Object pid = params.get("placementId");
+            Object gid = params.get("groupId");
             if (pid instanceof String) {
                 placementId = (String) pid;
+            } else if (gid instanceof String) {
+                groupId = (String) gid;
             } else {
                 Log.w(TAG, "placementId missing or not a string in args: " + args);
             }
@@ -53,97 +94,267 @@ public class GeemeeBannerViewFactory extends PlatformViewFactory {
             Log.w(TAG, "Expected args Map but got: " + args.getClass().getName());
         }
 
-        final String finalPlacementId = placementId;
-        final View[] sdkViewHolder = new View[1];
-        sdkViewHolder[0] = null;
+        BannerPlatformView platformView = new BannerPlatformView(container, placementId, groupId);
+        if (placementId != null) {
+            platformView.start();
+        } else if (groupId != null) {
+            platformView.startGroup();
+        } else {
+            metrics.increment(GeemeeMetrics.BANNER_PLACEHOLDERS, 1);
+            Log.w(TAG, "create: placementId is null - returning empty container");
+        }
+        return platformView;
+    }
+
+    /**
+     * Platform view whose SDK banner is created asynchronously.
+     * attach and dispose both run on the main thread, so no extra synchronization is needed.
+     */
+    private final class BannerPlatformView implements PlatformView, GeemeeMemoryTrimmer.LiveBanner,
+            GeemeeBannerRefresher.RefreshableBanner {
+        private final FrameLayout container;
+        // for a group view, set once the group has a winner
+        private String placementId;
+        private final String groupId;
+        private final Runnable attachRunnable = this::attach;
+        private final int traceCookie = System.identityHashCode(this);
+        private boolean createTraced = false;
+        private long requestedAtNanos;
+        private View sdkView;
+        // true once attach ran; from then on dispose must hand the placement back to the pool
+        private boolean attached = false;
+        // sdkView taken out of the container while the host activity is stopped
+        private boolean detached = false;
+        private boolean disposed = false;
+        private GeemeeBannerRefresher.Tracker refreshTracker;
+        // reused by isOnScreen, which the memory trimmer calls for every live banner
+        private final Rect visibleRect = new Rect();
 
-        if (finalPlacementId != null) {
-            // We must call SDK view creation on main thread. We'll run on UI thread and wait briefly.
-            Runnable createRunnable = () -> {
-                try {
+        BannerPlatformView(FrameLayout container, String placementId, String groupId) {
+            this.container = container;
+            this.placementId = placementId;
+            this.groupId = groupId;
+        }
+
+        /** Waits for the group's winner, then creates the banner as for a plain placement. */
+        void startGroup() {
+            placementGroups.takeWinner(groupId, winner -> {
+                if (disposed) {
+                    // disposed while waiting: leave the winner for the next view
+                    if (winner != null) placementGroups.putBack(groupId, winner);
+                    return;
+                }
+                if (winner == null) {
+                    metrics.increment(GeemeeMetrics.BANNER_PLACEHOLDERS, 1);
+                    Log.w(TAG, "No ready placement in group " + groupId + " - container stays empty");
+                    return;
+                }
+                placementId = winner;
+                start();
+            });
+        }
+
+        void start() {
+            requestedAtNanos = SystemClock.elapsedRealtimeNanos();
+            createTraced = GeemeeTrace.beginAsync("create banner view", placementId, traceCookie);
+            // always post: create must not wait for the SDK, even when already on the main thread
+            if (!mainHandler.post(attachRunnable)) {
+                Log.w(TAG, "Failed to post banner creation for placement " + placementId);
+            }
+        }
+
+        private void attach() {
+            if (disposed) return;
+            boolean traced = GeemeeTrace.begin("attach banner", placementId);
+            try {
+                attachView();
+            } finally {
+                if (traced) GeemeeTrace.end();
+            }
+        }
+
+        private void attachView() {
+            attached = true;
+            boolean pooled = false;
+            try {
+                // reuse a pooled (prewarmed or recycled) view before asking the SDK for a new one
+                sdkView = bannerPool.acquire(placementId);
+                pooled = sdkView != null;
+                if (sdkView == null) {
                     // SDK method that returns a view; may throw or return null
-                    sdkViewHolder[0] = GeeMee.showBanner(finalPlacementId);
-                } catch (Exception e) {
-                    Log.e(TAG, "GeeMee.showBanner threw an exception for placement " + finalPlacementId, e);
+                    sdkView = backend.showBanner(placementId);
+                    if (sdkView != null) {
+                        bannerShownListener.onBannerShown(placementId);
+                    }
                 }
-            };
+            } catch (Exception e) {
+                Log.e(TAG, "showBanner threw an exception for placement " + placementId, e);
+            }
 
-            if (Looper.myLooper() == Looper.getMainLooper()) {
-                createRunnable.run();
+            if (sdkView != null) {
+                try {
+                    container.addView(sdkView, new FrameLayout.LayoutParams(
+                            ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+                    memoryTrimmer.register(this);
+                    refreshTracker = refresher.track(this);
+                } catch (Exception e) {
+                    Log.e(TAG, "Failed to attach banner view for placement " + placementId, e);
+                }
             } else {
-                if (activity != null) {
-                    final CountDownLatch latch = new CountDownLatch(1);
-                    activity.runOnUiThread(() -> {
-                        try {
-                            createRunnable.run();
-                        } finally {
-                            latch.countDown();
-                        }
-                    });
-                    try {
-                        // wait a short time; don't block too long on plugin thread
-                        latch.await(200, TimeUnit.MILLISECONDS);
-                    } catch (InterruptedException ie) {
-                        Log.w(TAG, "Interrupted while waiting for banner creation", ie);
-                        Thread.currentThread().interrupt();
-                    }
-                } else {
-                    Log.w(TAG, "Activity is null and we're off the main thread - cannot safely create SDK banner view");
+                metrics.increment(GeemeeMetrics.BANNER_PLACEHOLDERS, 1);
+                Log.w(TAG, "No banner view for placement " + placementId + " - container stays empty");
+            }
+            reportCreated(pooled);
+        }
+
+        private void reportCreated(boolean pooled) {
+            endCreateSlice();
+            long latencyNanos = SystemClock.elapsedRealtimeNanos() - requestedAtNanos;
+            metrics.bannerCreate.recordNanos(latencyNanos);
+            Map<String, Object> data = new HashMap<>();
+            data.put("placementId", placementId);
+            if (groupId != null) data.put("groupId", groupId);
+            data.put("latencyMs", latencyNanos / 1_000_000.0);
+            data.put("success", sdkView != null);
+            data.put("pooled", pooled);
+            eventDispatcher.send("onBannerViewCreated", placementId, data);
+        }
+
+        @Override
+        public String placementId() {
+            return placementId;
+        }
+
+        @Override
+        public View container() {
+            return container;
+        }
+
+        @Override
+        public boolean hasBanner() {
+            return sdkView != null && !detached && !disposed;
+        }
+
+        @Override
+        public boolean swapInFreshBanner(double visibleMs) {
+            View fresh = null;
+            boolean traced = GeemeeTrace.begin("refresh banner", placementId);
+            try {
+                // the SDK keeps one banner per placement: the old one is destroyed (and recorded in
+                // the state table) before the fresh one is shown; it is stale, so it is not pooled
+                bannerPool.destroyBanner(placementId);
+                fresh = backend.showBanner(placementId);
+                if (fresh != null) {
+                    // add the new view before removing the old one, so no frame shows an empty container
+                    container.addView(fresh, new FrameLayout.LayoutParams(
+                            ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
                 }
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to swap in refreshed banner for placement " + placementId, e);
+            } finally {
+                if (traced) GeemeeTrace.end();
             }
-        } else {
-            Log.w(TAG, "create: placementId is null - returning placeholder view");
+            // the old view's banner is gone either way
+            container.removeView(sdkView);
+            if (fresh == null || fresh.getParent() != container) {
+                sdkView = null;
+                metrics.increment(GeemeeMetrics.BANNER_PLACEHOLDERS, 1);
+                Log.w(TAG, "No refreshed banner for placement " + placementId + " - container is now empty");
+                return false;
+            }
+            sdkView = fresh;
+            bannerShownListener.onBannerShown(placementId);
+            Map<String, Object> data = new HashMap<>();
+            data.put("placementId", placementId);
+            if (groupId != null) data.put("groupId", groupId);
+            data.put("visibleMs", visibleMs);
+            eventDispatcher.send("onBannerRefreshed", placementId, data);
+            return true;
+        }
+
+        @Override
+        public boolean isOnScreen() {
+            return !detached && container.isShown() && container.getGlobalVisibleRect(visibleRect);
         }
 
-        final View bannerView = (sdkViewHolder[0] != null) ? sdkViewHolder[0] : placeholder;
+        @Override
+        public boolean releaseBanner() {
+            if (sdkView == null) return false;
+            container.removeAllViews();
+            bannerPool.release(placementId, sdkView);
+            sdkView = null;
+            // nothing left for dispose to hand back
+            attached = false;
+            detached = false;
+            return true;
+        }
 
-        // Return a PlatformView that provides the banner and safely destroys it on dispose.
-        return new PlatformView() {
-            private boolean disposed = false;
+        @Override
+        public boolean detachBanner() {
+            if (sdkView == null || detached) return false;
+            container.removeView(sdkView);
+            detached = true;
+            return true;
+        }
 
-            @Override
-            public View getView() {
-                return bannerView;
+        @Override
+        public void reattachBanner() {
+            if (sdkView == null || !detached || disposed) return;
+            detached = false;
+            try {
+                container.addView(sdkView, new FrameLayout.LayoutParams(
+                        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to reattach banner view for placement " + placementId, e);
             }
+        }
 
-            @Override
-            public void dispose() {
-                if (disposed) return;
-                disposed = true;
+        @Override
+        public View getView() {
+            return container;
+        }
 
-                if (finalPlacementId == null) {
-                    // nothing to destroy from SDK
-                    return;
-                }
+        @Override
+        public void dispose() {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                disposeOnMain();
+            } else {
+                mainHandler.post(this::disposeOnMain);
+            }
+        }
 
-                Runnable destroyRunnable = () -> {
-                    try {
-                        GeeMee.destroyBanner(finalPlacementId);
-                    } catch (Exception e) {
-                        Log.e(TAG, "GeeMee.destroyBanner threw for placement " + finalPlacementId, e);
-                    }
-                };
-
-                if (Looper.myLooper() == Looper.getMainLooper()) {
-                    destroyRunnable.run();
-                } else {
-                    if (activity != null) {
-                        try {
-                            activity.runOnUiThread(destroyRunnable);
-                        } catch (Exception e) {
-                            Log.e(TAG, "Failed to post destroyBanner to UI thread", e);
-                        }
-                    } else {
-                        Log.w(TAG, "Activity is null when disposing banner - cannot call destroyBanner on UI thread");
-                        // As a last resort, try calling directly (may be unsafe depending on SDK)
-                        try {
-                            destroyRunnable.run();
-                        } catch (Exception e) {
-                            Log.e(TAG, "Fallback destroyBanner failed", e);
-                        }
-                    }
-                }
+        private void disposeOnMain() {
+            if (disposed) return;
+            disposed = true;
+            // cancel a creation that hasn't run yet - nothing was taken from the SDK
+            mainHandler.removeCallbacks(attachRunnable);
+            memoryTrimmer.unregister(this);
+            if (refreshTracker != null) {
+                refreshTracker.stop();
+                refreshTracker = null;
+            }
+            if (!attached) {
+                endCreateSlice();
+                return;
+            }
+
+            boolean traced = GeemeeTrace.begin("release banner", placementId);
+            try {
+                container.removeAllViews();
+                // detaches the view and keeps it for reuse; the pool destroys it if it can't hold it
+                bannerPool.release(placementId, sdkView);
+            } catch (Exception e) {
+                Log.e(TAG, "Releasing banner to the pool threw for placement " + placementId, e);
+            } finally {
+                if (traced) GeemeeTrace.end();
             }
-        };
+            sdkView = null;
+        }
+
+        private void endCreateSlice() {
+            if (!createTraced) return;
+            createTraced = false;
+            GeemeeTrace.endAsync("create banner view", placementId, traceCookie);
+        }
     }
 }
@@ -0,0 +1,142 @@
+package com.sudeep.geemee_flutter;
+
+import android.util.Log;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import ai.geemee.GError;
+import ai.geemee.GeeMeeCallback;
+
+/**
+ * Process-wide owner of the SDK callback.
+ * GeeMee.setCallback is global, so with several FlutterEngines (add-to-app, background isolates)
+ * the last engine to install its callback used to take every event. The hub installs a single
+ * callback on the SDK once and fans each callback out to every attached plugin instance.
+ * - plugin instances attach / detach with their engine; the hub reference-counts them
+ * - callbacks with no attached instance are dropped (there is no engine to deliver them to)
+ * - one subscriber throwing does not stop delivery to the others
+ */
+final class GeemeeCallbackHub {
+    private static final String TAG = "GeemeeCallbackHub";
+    private static final GeemeeCallbackHub INSTANCE = new GeemeeCallbackHub();
+
+    private final CopyOnWriteArrayList<GeeMeeCallback> subscribers = new CopyOnWriteArrayList<>();
+    // the SDK is initialized once per process, whichever engine asks first
+    private final GeemeeInitGate initGate = new GeemeeInitGate();
+    private boolean installed = false;
+
+    private GeemeeCallbackHub() {}
+
+    static GeemeeCallbackHub get() {
+        return INSTANCE;
+    }
+
+    /** Registers an engine's callback; returns the number of attached instances. */
+    synchronized int attach(GeeMeeCallback callback) {
+        if (!subscribers.contains(callback)) {
+            subscribers.add(callback);
+        }
+        return subscribers.size();
+    }
+
+    /** Unregisters an engine's callback; returns the number of instances still attached. */
+    synchronized int detach(GeeMeeCallback callback) {
+        subscribers.remove(callback);
+        return subscribers.size();
+    }
+
+    GeemeeInitGate initGate() {
+        return initGate;
+    }
+
+    int attachedCount() {
+        return subscribers.size();
+    }
+
+    /** Installs the fan-out callback on the SDK the first time it is called; later calls are no-ops. */
+    synchronized void install(GeemeeBackend sdk) {
+        if (installed) return;
+        sdk.setCallback(fanOut);
+        installed = true;
+    }
+
+    private interface Invocation {
+        void invoke(GeeMeeCallback callback);
+    }
+
+    private void forEach(String event, String placementId, Invocation invocation) {
+        GeemeeEventLog.get().recordCallback(event, placementId);
+        boolean traced = GeemeeTrace.begin(event, placementId);
+        try {
+            for (GeeMeeCallback subscriber : subscribers) {
+                try {
+                    invocation.invoke(subscriber);
+                } catch (Exception e) {
+                    Log.e(TAG, "Subscriber threw for " + event, e);
+                }
+            }
+        } finally {
+            if (traced) GeemeeTrace.end();
+        }
+    }
+
+    private final GeeMeeCallback fanOut = new GeeMeeCallback() {
+        @Override
+        public void onInitSuccess() { forEach("onInitSuccess", null, GeeMeeCallback::onInitSuccess); }
+        @Override
+        public void onInitFailed(GError error) { forEach("onInitFailed", null, cb -> cb.onInitFailed(error)); }
+
+        @Override
+        public void onBannerReady(String placementId) { forEach("onBannerReady", placementId, cb -> cb.onBannerReady(placementId)); }
+        @Override
+        public void onBannerLoadFailed(String placementId, GError error) {
+            forEach("onBannerLoadFailed", placementId, cb -> cb.onBannerLoadFailed(placementId, error));
+        }
+        @Override
+        public void onBannerShowFailed(String placementId, GError error) {
+            forEach("onBannerShowFailed", placementId, cb -> cb.onBannerShowFailed(placementId, error));
+        }
+        @Override
+        public void onBannerClick(String placementId) { forEach("onBannerClick", placementId, cb -> cb.onBannerClick(placementId)); }
+
+        @Override
+        public void onInterstitialOpen(String placementId) {
+            forEach("onInterstitialOpen", placementId, cb -> cb.onInterstitialOpen(placementId));
+        }
+        @Override
+        public void onInterstitialOpenFailed(String placementId, GError error) {
+            forEach("onInterstitialOpenFailed", placementId, cb -> cb.onInterstitialOpenFailed(placementId, error));
+        }
+        @Override
+        public void onInterstitialClose(String placementId) {
+            forEach("onInterstitialClose", placementId, cb -> cb.onInterstitialClose(placementId));
+        }
+
+        @Override
+        public void onOfferWallOpen(String placement) { forEach("onOfferWallOpen", placement, cb -> cb.onOfferWallOpen(placement)); }
+        @Override
+        public void onOfferWallOpenFailed(String placement, GError error) {
+            forEach("onOfferWallOpenFailed", placement, cb -> cb.onOfferWallOpenFailed(placement, error));
+        }
+        @Override
+        public void onOfferWallClose(String placement) { forEach("onOfferWallClose", placement, cb -> cb.onOfferWallClose(placement)); }
+
+        @Override
+        public void onUserCenterOpen(String placementId) {
+            forEach("onUserCenterOpen", placementId, cb -> cb.onUserCenterOpen(placementId));
+        }
+        @Override
+        public void onUserCenterOpenFailed(String placementId, GError error) {
+            forEach("onUserCenterOpenFailed", placementId, cb -> cb.onUserCenterOpenFailed(placementId, error));
+        }
+        @Override
+        public void onUserCenterClose(String placementId) {
+            forEach("onUserCenterClose", placementId, cb -> cb.onUserCenterClose(placementId));
+        }
+
+        @Override
+        public void onUserInteraction(String placementId, String data) {
+            forEach("onUserInteraction", placementId, cb -> cb.onUserInteraction(placementId, data));
+        }
+    };
+}
@@ -0,0 +1,180 @@
+package com.sudeep.geemee_flutter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-placement circuit breakers for load / show calls, driven by the SDK's success and failure callbacks.
+ * - CLOSED: calls pass; failureThreshold consecutive failures trip the breaker
+ * - OPEN: calls are rejected without reaching the SDK until cooldownMs has passed
+ * - HALF_OPEN: one trial call passes; its success closes the breaker, its failure opens it again.
+ *   A trial that never reports back frees the slot for another one after cooldownMs
+ * State changes are reported through the {@link Listener}.
+ *
+ * Safe to use from any thread.
+ */
+class GeemeeCircuitBreakers {
+    static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    static final long DEFAULT_COOLDOWN_MS = 30_000L;
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    interface Listener {
+        void onCircuitStateChanged(String format, String placementId, State state, int consecutiveFailures,
+                                   long retryAfterMs);
+    }
+
+    /** Guarded by its own monitor; runs (on main) when the cooldown of an open breaker elapses. */
+    private final class Breaker implements Runnable {
+        final String format;
+        final String placementId;
+        State state = State.CLOSED;
+        int consecutiveFailures;
+        long openedAtMs;
+        long trialStartedAtMs;
+        boolean trialInFlight;
+
+        Breaker(String format, String placementId) {
+            this.format = format;
+            this.placementId = placementId;
+        }
+
+        @Override
+        public void run() {
+            onCooldownElapsed(this);
+        }
+    }
+
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ConcurrentHashMap<String, Breaker> breakers = new ConcurrentHashMap<>();
+    private volatile boolean enabled = true;
+    private volatile int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+    private volatile long cooldownMs = DEFAULT_COOLDOWN_MS;
+
+    GeemeeCircuitBreakers(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Disabling closes every breaker. */
+    void configure(boolean enabled, int failureThreshold, long cooldownMs) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.cooldownMs = Math.max(0L, cooldownMs);
+        this.enabled = enabled;
+        if (!enabled) {
+            for (Breaker b : breakers.values()) {
+                synchronized (b) {
+                    mainHandler.removeCallbacks(b);
+                    transition(b, State.CLOSED, 0);
+                    b.consecutiveFailures = 0;
+                    b.trialInFlight = false;
+                }
+            }
+        }
+    }
+
+    private Breaker breaker(String format, String placementId) {
+        String key = format + ':' + placementId;
+        Breaker b = breakers.get(key);
+        if (b != null) return b;
+        Breaker created = new Breaker(format, placementId);
+        b = breakers.putIfAbsent(key, created);
+        return b != null ? b : created;
+    }
+
+    /**
+     * Returns 0 if a call for the placement may go to the SDK (taking the trial slot when half-open),
+     * otherwise how many milliseconds until it may be tried again.
+     */
+    long tryAcquire(String format, String placementId) {
+        if (!enabled) return 0;
+        Breaker b = breakers.get(format + ':' + placementId);
+        if (b == null) return 0;
+        synchronized (b) {
+            long now = SystemClock.elapsedRealtime();
+            switch (b.state) {
+                case OPEN:
+                    return Math.max(1L, b.openedAtMs + cooldownMs - now);
+                case HALF_OPEN:
+                    if (b.trialInFlight && now - b.trialStartedAtMs < cooldownMs) {
+                        return Math.max(1L, b.trialStartedAtMs + cooldownMs - now);
+                    }
+                    b.trialInFlight = true;
+                    b.trialStartedAtMs = now;
+                    return 0;
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    void onSuccess(String format, String placementId) {
+        if (!enabled) return;
+        Breaker b = breakers.get(format + ':' + placementId);
+        if (b == null) return;
+        synchronized (b) {
+            b.consecutiveFailures = 0;
+            b.trialInFlight = false;
+            if (b.state != State.CLOSED) {
+                mainHandler.removeCallbacks(b);
+                transition(b, State.CLOSED, 0);
+            }
+        }
+    }
+
+    void onFailure(String format, String placementId) {
+        if (!enabled || placementId == null) return;
+        Breaker b = breaker(format, placementId);
+        synchronized (b) {
+            b.consecutiveFailures++;
+            boolean trip = b.state == State.HALF_OPEN || (b.state == State.CLOSED && b.consecutiveFailures >= failureThreshold);
+            if (!trip) return;
+            b.trialInFlight = false;
+            b.openedAtMs = SystemClock.elapsedRealtime();
+            long cooldown = cooldownMs;
+            transition(b, State.OPEN, cooldown);
+            mainHandler.removeCallbacks(b);
+            mainHandler.postDelayed(b, cooldown);
+        }
+    }
+
+    private void onCooldownElapsed(Breaker b) {
+        synchronized (b) {
+            if (b.state != State.OPEN) return;
+            b.trialInFlight = false;
+            transition(b, State.HALF_OPEN, 0);
+        }
+    }
+
+    /** Caller holds the breaker's monitor. */
+    private void transition(Breaker b, State state, long retryAfterMs) {
+        if (b.state == state) return;
+        b.state = state;
+        listener.onCircuitStateChanged(b.format, b.placementId, state, b.consecutiveFailures, retryAfterMs);
+    }
+
+    /** Breakers that are not CLOSED, keyed FORMAT:placementId, with their state and consecutive failures. */
+    Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new HashMap<>();
+        for (Map.Entry<String, Breaker> e : breakers.entrySet()) {
+            Breaker b = e.getValue();
+            synchronized (b) {
+                if (b.state == State.CLOSED) continue;
+                Map<String, Object> row = new HashMap<>();
+                row.put("state", b.state.name());
+                row.put("consecutiveFailures", b.consecutiveFailures);
+                snapshot.put(e.getKey(), row);
+            }
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,78 @@
+package com.sudeep.geemee_flutter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable event waiting to be delivered to Flutter.
+ * SDK callbacks only store the raw placement and detail strings; the legacy map payload
+ * is built lazily, so the binary transport never pays for it.
+ * Plugin-generated events carry a ready-made {@code data} payload instead.
+ */
+final class GeemeeEvent {
+    final String name;
+    final String placementId;
+    // error string of failure callbacks or interaction data; SDK events only
+    final String detail;
+    // structured payload of plugin-generated events; null for SDK events
+    final Object data;
+    final long timestampMs;
+
+    private GeemeeEvent(String name, String placementId, String detail, Object data, long timestampMs) {
+        this.name = name;
+        this.placementId = placementId;
+        this.detail = detail;
+        this.data = data;
+        this.timestampMs = timestampMs;
+    }
+
+    static GeemeeEvent sdk(String name, String placementId, String detail, long timestampMs) {
+        return new GeemeeEvent(name, placementId, detail, null, timestampMs);
+    }
+
+    static GeemeeEvent plugin(String name, String placementId, Object data, long timestampMs) {
+        return new GeemeeEvent(name, placementId, null, data, timestampMs);
+    }
+
+    /**
+     * Ad format an event belongs to, derived from its name (e.g. onBannerReady -> BANNER),
+     * or null for events that are not about a format, like init.
+     */
+    static String formatOf(String name) {
+        if (name.startsWith("onBanner")) return GeemeeAdFormats.BANNER;
+        if (name.startsWith("onInterstitial")) return GeemeeAdFormats.INTERSTITIAL;
+        if (name.startsWith("onOfferWall")) return GeemeeAdFormats.OFFER_WALL;
+        if (name.startsWith("onUserCenter")) return GeemeeAdFormats.USER_CENTER;
+        return null;
+    }
+
+    /** map shape the Dart side has always received: {"event": name, "data": data} */
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("event", name);
+        Object payload = data != null ? data : legacyPayload();
+        if (payload != null) {
+            map.put("data", payload);
+        }
+        return map;
+    }
+
+    private Object legacyPayload() {
+        switch (name) {
+            case "onInitSuccess":
+                return null;
+            case "onUserInteraction":
+                return placementId + ":" + detail;
+            default:
+                if (name.endsWith("Failed")) {
+                    // same shape the plugin's errorToMap has always produced
+                    Map<String, Object> error = new HashMap<>();
+                    if (detail != null) {
+                        error.put("error", detail);
+                    }
+                    return error;
+                }
+                return placementId;
+        }
+    }
+}
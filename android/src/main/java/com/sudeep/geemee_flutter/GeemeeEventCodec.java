@@ -0,0 +1,185 @@
+package com.sudeep.geemee_flutter;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import io.flutter.plugin.common.StandardMessageCodec;
+
+/**
+ * Compact binary framing for batches of events, used by the opt-in binary transport.
+ *
+ * Layout (big endian, mirrored by the Dart decoder in lib/geemee_flutter.dart):
+ * <pre>
+ * batch  := u16 count, event*
+ * event  := u8 tag, place, body
+ * place  := u16 0xFFFE, u16 handle                (placement registered with registerPlacements)
+ *         | str placementId
+ * body   := str detail                          (SDK events, tag > 0)
+ *         | str name, u32 length, bytes          (custom events, tag 0; StandardMessageCodec payload)
+ * str    := u16 length (0xFFFF for null, at most 0xFFFD), UTF-8 bytes
+ * </pre>
+ * Strings are written straight into the frame, so encoding a batch allocates only the frame itself.
+ */
+final class GeemeeEventCodec {
+    static final int TAG_CUSTOM = 0;
+    /** The count is a u16: larger batches must be split into several frames by the caller. */
+    static final int MAX_BATCH_EVENTS = 0xFFFF;
+
+    // index == tag; append only, the Dart decoder keeps the same table
+    static final String[] EVENT_NAMES = {
+            null,
+            "onInitSuccess",
+            "onInitFailed",
+            "onBannerReady",
+            "onBannerLoadFailed",
+            "onBannerShowFailed",
+            "onBannerClick",
+            "onInterstitialOpen",
+            "onInterstitialOpenFailed",
+            "onInterstitialClose",
+            "onOfferWallOpen",
+            "onOfferWallOpenFailed",
+            "onOfferWallClose",
+            "onUserCenterOpen",
+            "onUserCenterOpenFailed",
+            "onUserCenterClose",
+            "onUserInteraction",
+    };
+
+    private static final int NULL_STRING = 0xFFFF;
+    private static final int HANDLE_MARKER = 0xFFFE;
+    private static final int MAX_STRING_BYTES = 0xFFFD;
+
+    private GeemeeEventCodec() {}
+
+    static int tagOf(String name) {
+        for (int i = 1; i < EVENT_NAMES.length; i++) {
+            if (EVENT_NAMES[i].equals(name)) return i;
+        }
+        return TAG_CUSTOM;
+    }
+
+    /** Encodes a batch into a direct buffer, flipped and ready to be sent over a BinaryCodec channel. */
+    static ByteBuffer encode(List<GeemeeEvent> batch) {
+        return encode(batch, null);
+    }
+
+    /**
+     * Same, with registered placements written as their handle (handles may be null).
+     * Only the first {@link #MAX_BATCH_EVENTS} events are encoded.
+     */
+    static ByteBuffer encode(List<GeemeeEvent> batch, GeemeePlacementHandles handles) {
+        int count = Math.min(batch.size(), MAX_BATCH_EVENTS);
+        int[] tags = new int[count];
+        int[] placementHandles = new int[count];
+        ByteBuffer[] customPayloads = null;
+
+        int size = 2;
+        for (int i = 0; i < count; i++) {
+            GeemeeEvent event = batch.get(i);
+            int tag = event.data == null ? tagOf(event.name) : TAG_CUSTOM;
+            tags[i] = tag;
+            int handle = handles != null ? handles.handleOf(event.placementId) : -1;
+            placementHandles[i] = handle;
+            size += 1 + (handle >= 0 ? 4 : stringSize(event.placementId));
+            if (tag == TAG_CUSTOM) {
+                if (customPayloads == null) customPayloads = new ByteBuffer[count];
+                ByteBuffer payload = StandardMessageCodec.INSTANCE.encodeMessage(event.data);
+                customPayloads[i] = payload;
+                size += stringSize(event.name) + 4 + (payload != null ? payload.limit() : 0);
+            } else {
+                size += stringSize(event.detail);
+            }
+        }
+
+        ByteBuffer out = ByteBuffer.allocateDirect(size);
+        out.putShort((short) count);
+        for (int i = 0; i < count; i++) {
+            GeemeeEvent event = batch.get(i);
+            out.put((byte) tags[i]);
+            if (placementHandles[i] >= 0) {
+                out.putShort((short) HANDLE_MARKER);
+                out.putShort((short) placementHandles[i]);
+            } else {
+                putString(out, event.placementId);
+            }
+            if (tags[i] == TAG_CUSTOM) {
+                putString(out, event.name);
+                ByteBuffer payload = customPayloads[i];
+                if (payload == null) {
+                    out.putInt(0);
+                } else {
+                    payload.rewind();
+                    out.putInt(payload.limit());
+                    out.put(payload);
+                }
+            } else {
+                putString(out, event.detail);
+            }
+        }
+        out.flip();
+        return out;
+    }
+
+    private static int stringSize(String s) {
+        return 2 + (s == null ? 0 : Math.min(utf8Length(s), MAX_STRING_BYTES));
+    }
+
+    private static int utf8Length(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /** Writes a length-prefixed UTF-8 string; strings longer than the u16 limit are truncated on a code point. */
+    private static void putString(ByteBuffer out, String s) {
+        if (s == null) {
+            out.putShort((short) NULL_STRING);
+            return;
+        }
+        int limit = MAX_STRING_BYTES;
+        int lengthPosition = out.position();
+        out.putShort((short) 0);
+        int written = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (written + 1 > limit) break;
+                out.put((byte) c);
+                written += 1;
+            } else if (c < 0x800) {
+                if (written + 2 > limit) break;
+                out.put((byte) (0xC0 | (c >> 6)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+                written += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                if (written + 4 > limit) break;
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                out.put((byte) (0xF0 | (cp >> 18)));
+                out.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                out.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (cp & 0x3F)));
+                written += 4;
+            } else {
+                if (written + 3 > limit) break;
+                out.put((byte) (0xE0 | (c >> 12)));
+                out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+                written += 3;
+            }
+        }
+        out.putShort(lengthPosition, (short) written);
+    }
+}
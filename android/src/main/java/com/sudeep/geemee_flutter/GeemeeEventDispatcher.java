@@ -0,0 +1,361 @@
+package com.sudeep.geemee_flutter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Choreographer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.flutter.plugin.common.BasicMessageChannel;
+import io.flutter.plugin.common.EventChannel;
+
+/**
+ * Frame-aligned event pipeline for the events channel:
+ * - SDK callbacks enqueue from any thread into a lock-free queue
+ * - a single drain runs on the main thread on the next Choreographer frame
+ * - back-to-back repeats of a state event for the same placement within a frame are merged
+ * - everything pending is delivered to Flutter as one list message
+ * - while no Dart listener is attached, events are held in a bounded replay buffer
+ *   (size and age limited) and replayed in order once a listener subscribes
+ * - optionally, batches are sent as compact binary frames (see {@link GeemeeEventCodec})
+ *   over a BasicMessageChannel instead of string-keyed maps
+ * - an optional per-engine filter drops events of other formats / placements before they are queued
+ * - while the host activity is stopped, non-urgent events are held back and delivered on start
+ */
+class GeemeeEventDispatcher {
+    private static final String TAG = "GeemeeEventDispatcher";
+
+    // state-like events where a repeat right after the same event for the placement adds nothing;
+    // failures are not merged, every one of them is reported
+    private static final Set<String> COALESCED_EVENTS = new HashSet<>(Arrays.asList(
+            "onInitSuccess",
+            "onInitFailed",
+            "onBannerReady",
+            "onBannerShowFailed"));
+
+    static final int DEFAULT_REPLAY_CAPACITY = 64;
+    static final long DEFAULT_REPLAY_MAX_AGE_MS = 60_000L;
+
+    private final GeemeeMetrics metrics;
+    private final ConcurrentLinkedQueue<GeemeeEvent> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Choreographer.FrameCallback drainCallback = frameTimeNanos -> drain();
+    private final Runnable postFrameCallback = () -> Choreographer.getInstance().postFrameCallback(drainCallback);
+
+    // replay buffer is only touched on the main thread
+    private final ArrayDeque<GeemeeEvent> replayBuffer = new ArrayDeque<>();
+    private volatile int replayCapacity = DEFAULT_REPLAY_CAPACITY;
+    private volatile long replayMaxAgeMs = DEFAULT_REPLAY_MAX_AGE_MS;
+
+    private volatile EventChannel.EventSink eventSink;
+    private volatile BasicMessageChannel<ByteBuffer> binaryChannel;
+    private volatile boolean binaryTransport = false;
+    private volatile GeemeePlacementHandles placementHandles;
+    // null means no restriction; each set is replaced wholesale, never mutated
+    private volatile Set<String> formatFilter;
+    private volatile Set<String> placementFilter;
+
+    // main thread only; bounded like the replay buffer
+    private final ArrayDeque<GeemeeEvent> held = new ArrayDeque<>();
+    // null while not holding, otherwise the placements whose events are never held
+    private volatile Set<String> holdExempt;
+
+    GeemeeEventDispatcher(GeemeeMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /** Called from the StreamHandler on the main thread; replays buffered events to a new listener. */
+    void setEventSink(EventChannel.EventSink sink) {
+        eventSink = sink;
+        if (sink == null) return;
+        int expired = pruneReplayBuffer(SystemClock.elapsedRealtime());
+        if (expired > 0) {
+            metrics.increment(GeemeeMetrics.EVENTS_DROPPED, expired);
+        }
+        if (!replayBuffer.isEmpty()) {
+            List<GeemeeEvent> replay = new ArrayList<>(replayBuffer);
+            replayBuffer.clear();
+            Log.d(TAG, "Replaying " + replay.size() + " buffered events");
+            boolean traced = GeemeeTrace.begin("replay events", null);
+            try {
+                deliver(sink, replay);
+            } finally {
+                if (traced) GeemeeTrace.end();
+            }
+        }
+        if (!pending.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Size and age limits of the replay buffer. A capacity of 0 disables buffering.
+     * Limits are applied the next time the buffer is touched on the main thread.
+     */
+    void configureReplayBuffer(int capacity, long maxAgeMs) {
+        replayCapacity = Math.max(0, capacity);
+        replayMaxAgeMs = Math.max(0L, maxAgeMs);
+    }
+
+    void setBinaryChannel(BasicMessageChannel<ByteBuffer> channel) {
+        binaryChannel = channel;
+    }
+
+    /** Opt-in: deliver batches as binary frames on the binary channel instead of maps on the event sink. */
+    void setBinaryTransport(boolean enabled) {
+        binaryTransport = enabled;
+    }
+
+    /** Registered placements go into binary frames as their handle. */
+    void setPlacementHandles(GeemeePlacementHandles handles) {
+        placementHandles = handles;
+    }
+
+    /**
+     * Restricts the events this engine receives to the given formats and placements.
+     * null means no restriction. Events without a format or placement (init) always pass.
+     */
+    void setFilter(Collection<String> formats, Collection<String> placementIds) {
+        formatFilter = formats != null ? new HashSet<>(formats) : null;
+        placementFilter = placementIds != null ? new HashSet<>(placementIds) : null;
+    }
+
+    private boolean accepts(String eventName, String placementId) {
+        Set<String> formats = formatFilter;
+        Set<String> placements = placementFilter;
+        if (formats == null && placements == null) return true;
+        String format = GeemeeEvent.formatOf(eventName);
+        if (formats != null && format != null && !formats.contains(format)) return false;
+        return placements == null || placementId == null || placements.contains(placementId);
+    }
+
+    /**
+     * Holds back non-urgent events (see {@link #isUrgent}), except those of the exempt placements,
+     * until {@link #release}. Main thread.
+     */
+    void hold(Collection<String> exemptPlacements) {
+        holdExempt = new HashSet<>(exemptPlacements);
+    }
+
+    /** Stops holding and delivers the held events, in order. Main thread. Returns how many there were. */
+    int release() {
+        holdExempt = null;
+        if (held.isEmpty()) return 0;
+        List<GeemeeEvent> batch = new ArrayList<>(held);
+        held.clear();
+        EventChannel.EventSink sink = eventSink;
+        if (sink == null) {
+            bufferForReplay(batch);
+        } else {
+            deliver(sink, batch);
+        }
+        return batch.size();
+    }
+
+    /**
+     * Init results, full-screen ad events and user interactions are never held: full-screen ads
+     * stop the host activity themselves, and the app acts on their results right away.
+     */
+    private static boolean isUrgent(GeemeeEvent event) {
+        String name = event.name;
+        if (name.startsWith("onInit") || "onUserInteraction".equals(name)) return true;
+        String format = GeemeeEvent.formatOf(name);
+        return format != null && !GeemeePlacementStates.BANNER.equals(format);
+    }
+
+    /** Enqueue an SDK callback from any thread; delivery happens on the next frame. */
+    void sendSdkEvent(String eventName, String placementId, String detail) {
+        if (!accepts(eventName, placementId)) {
+            metrics.increment(GeemeeMetrics.EVENTS_FILTERED, 1);
+            return;
+        }
+        pending.offer(GeemeeEvent.sdk(eventName, placementId, detail, SystemClock.elapsedRealtime()));
+        scheduleDrain();
+    }
+
+    /** Enqueue a plugin-generated event with a structured payload from any thread. */
+    void send(String eventName, String placementId, Object data) {
+        if (!accepts(eventName, placementId)) {
+            metrics.increment(GeemeeMetrics.EVENTS_FILTERED, 1);
+            return;
+        }
+        pending.offer(GeemeeEvent.plugin(eventName, placementId, data, SystemClock.elapsedRealtime()));
+        scheduleDrain();
+    }
+
+    /** Drop anything still queued, e.g. when the engine detaches. */
+    void clear() {
+        pending.clear();
+        mainHandler.post(replayBuffer::clear);
+        mainHandler.post(held::clear);
+        mainHandler.removeCallbacks(postFrameCallback);
+        eventSink = null;
+    }
+
+    private void scheduleDrain() {
+        if (!drainScheduled.compareAndSet(false, true)) return;
+        try {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                postFrameCallback.run();
+            } else {
+                mainHandler.post(postFrameCallback);
+            }
+        } catch (Exception e) {
+            drainScheduled.set(false);
+            Log.e(TAG, "Failed to schedule event drain", e);
+        }
+    }
+
+    /** Runs on the main thread only. */
+    private void drain() {
+        // reset first so events enqueued while draining schedule the next frame
+        drainScheduled.set(false);
+        boolean traced = GeemeeTrace.begin("drain events", null);
+        try {
+            drainPending();
+        } finally {
+            if (traced) GeemeeTrace.end();
+        }
+    }
+
+    private void drainPending() {
+        List<GeemeeEvent> batch = new ArrayList<>();
+        GeemeeEvent event;
+        while ((event = pending.poll()) != null) {
+            // only consecutive repeats are merged, so events in between keep their order
+            int last = batch.size() - 1;
+            if (last >= 0 && COALESCED_EVENTS.contains(event.name) && sameEvent(batch.get(last), event)) {
+                batch.set(last, event);
+                continue;
+            }
+            batch.add(event);
+        }
+        Set<String> exempt = holdExempt;
+        if (exempt != null) batch = holdBack(batch, exempt);
+        if (batch.isEmpty()) return;
+
+        EventChannel.EventSink sink = eventSink;
+        if (sink == null) {
+            bufferForReplay(batch);
+            return;
+        }
+        deliver(sink, batch);
+    }
+
+    private static boolean sameEvent(GeemeeEvent a, GeemeeEvent b) {
+        return a.name.equals(b.name)
+                && (a.placementId == null ? b.placementId == null : a.placementId.equals(b.placementId));
+    }
+
+    private void deliver(EventChannel.EventSink sink, List<GeemeeEvent> batch) {
+        BasicMessageChannel<ByteBuffer> binary = binaryChannel;
+        if (binaryTransport && binary != null) {
+            // a frame holds at most MAX_BATCH_EVENTS events: larger batches go as several frames
+            for (int from = 0; from < batch.size(); from += GeemeeEventCodec.MAX_BATCH_EVENTS) {
+                List<GeemeeEvent> frame = batch.subList(from, Math.min(batch.size(), from + GeemeeEventCodec.MAX_BATCH_EVENTS));
+                try {
+                    binary.send(GeemeeEventCodec.encode(frame, placementHandles));
+                    metrics.increment(GeemeeMetrics.EVENTS_DELIVERED, frame.size());
+                } catch (Exception e) {
+                    Log.e(TAG, "Failed to send binary events to Flutter", e);
+                }
+            }
+            return;
+        }
+
+        List<Map<String, Object>> message = new ArrayList<>(batch.size());
+        for (GeemeeEvent e : batch) {
+            message.add(e.toMap());
+        }
+        try {
+            sink.success(message);
+            metrics.increment(GeemeeMetrics.EVENTS_DELIVERED, batch.size());
+        } catch (Exception e) {
+            // log and swallow - a broken sink must not take down the main thread
+            Log.e(TAG, "Failed to send events to Flutter", e);
+        }
+    }
+
+    /** Moves the events that may wait into the held queue; returns the rest. */
+    private List<GeemeeEvent> holdBack(List<GeemeeEvent> batch, Set<String> exempt) {
+        List<GeemeeEvent> urgent = new ArrayList<>(batch.size());
+        for (GeemeeEvent event : batch) {
+            if (isUrgent(event) || (event.placementId != null && exempt.contains(event.placementId))) {
+                urgent.add(event);
+            } else {
+                held.addLast(event);
+            }
+        }
+        int dropped = 0;
+        while (held.size() > replayCapacity) {
+            held.pollFirst();
+            dropped++;
+        }
+        if (dropped > 0) {
+            metrics.increment(GeemeeMetrics.EVENTS_DROPPED, dropped);
+            Log.w(TAG, "Held events limit dropped " + dropped + " events");
+        }
+        return urgent;
+    }
+
+    private void bufferForReplay(List<GeemeeEvent> batch) {
+        replayBuffer.addAll(batch);
+        int dropped = pruneReplayBuffer(SystemClock.elapsedRealtime());
+        if (dropped > 0) {
+            metrics.increment(GeemeeMetrics.EVENTS_DROPPED, dropped);
+            Log.w(TAG, "EventSink is null - replay buffer limits dropped " + dropped + " events");
+        }
+    }
+
+    /**
+     * Memory pressure: drops held and buffered events except the init result, which a late
+     * listener can't get any other way. Main thread. Returns how many were dropped.
+     */
+    int trimReplayBuffer() {
+        int before = replayBuffer.size() + held.size();
+        held.clear();
+        Iterator<GeemeeEvent> it = replayBuffer.iterator();
+        while (it.hasNext()) {
+            String name = it.next().name;
+            if (!"onInitSuccess".equals(name) && !"onInitFailed".equals(name)) {
+                it.remove();
+            }
+        }
+        int dropped = before - replayBuffer.size();
+        if (dropped > 0) {
+            metrics.increment(GeemeeMetrics.EVENTS_DROPPED, dropped);
+        }
+        return dropped;
+    }
+
+    /** Enforces the limits, oldest events first (ring semantics); returns how many were removed. */
+    private int pruneReplayBuffer(long now) {
+        int capacity = replayCapacity;
+        long maxAgeMs = replayMaxAgeMs;
+        int removed = 0;
+        while (replayBuffer.size() > capacity) {
+            replayBuffer.pollFirst();
+            removed++;
+        }
+        GeemeeEvent oldest;
+        while ((oldest = replayBuffer.peekFirst()) != null && now - oldest.timestampMs > maxAgeMs) {
+            replayBuffer.pollFirst();
+            removed++;
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,355 @@
+package com.sudeep.geemee_flutter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Opt-in, process-wide on-device log of SDK callbacks and method calls, for fill-rate and
+ * latency analysis across app restarts.
+ * - fixed 64-byte binary records (layout below), written through two memory-mapped segment files
+ *   that rotate: when one is full the other is overwritten, so the log never exceeds maxBytes
+ * - producers (any thread) copy fields into a preallocated staging ring under a short lock - no
+ *   per-event allocation; a single writer thread moves records into the mapped files
+ * - the mapped pages belong to the kernel page cache, so records survive process death
+ *   (not a device crash: nothing is fsynced)
+ * - when the staging ring is full, records are dropped and counted
+ *
+ * Segment file: 16-byte header (u32 magic "GMEL", u16 version, u16 record size, 8 reserved bytes),
+ * then records. Record layout, big endian:
+ *   0  u32 sequence, increasing across segments and restarts (0 = never written)
+ *   4  u8  kind: 1 SDK callback, 2 method call, 3 method call that replied with an error
+ *   5  u8  code: callback tag (see GeemeeEventCodec.EVENT_NAMES) or method index (see METHOD_NAMES)
+ *   6  u8  format: 0 none, 1 BANNER, 2 INTERSTITIAL, 3 OFFER_WALL, 4 USER_CENTER
+ *   7  u8  flags: bit 0 failure callback
+ *   8  i64 wall clock time, epoch ms
+ *   16 i32 value: microseconds the method call ran (kind 2) or took to reply (kind 3), 0 for callbacks
+ *   20 u8  placement id length
+ *   21 43 bytes placement id, ASCII (other characters stored as '?'), truncated
+ * Readers take the older segment's increasing run of sequences, then the current one's.
+ */
+final class GeemeeEventLog {
+    private static final GeemeeEventLog INSTANCE = new GeemeeEventLog();
+
+    static final int RECORD_SIZE = 64;
+    static final int HEADER_SIZE = 16;
+    static final long DEFAULT_MAX_BYTES = 1024L * 1024;
+    private static final int MAGIC = 0x474D454C;
+    private static final short VERSION = 1;
+    private static final int MAX_PLACEMENT_BYTES = RECORD_SIZE - 21;
+    private static final int RING_CAPACITY = 1024;
+
+    static final byte KIND_CALLBACK = 1;
+    static final byte KIND_METHOD = 2;
+    static final byte KIND_METHOD_ERROR = 3;
+
+    /** Method codes are indices into this table; append only, the index is part of the file format. */
+    static final String[] METHOD_NAMES = {
+            null,
+            "initSDK", "setUserId", "getUserId", "setDebugMode", "getVersion",
+            "isOfferWallReady", "openOfferWall",
+            "loadBanner", "isBannerReady", "destroyBanner", "prewarmBanners", "configureBannerPool",
+            "getBannerPoolStats", "configurePreload",
+            "isInterstitialReady", "showInterstitial",
+            "isUserCenterReady", "openUserCenter",
+            "getReadiness", "configureEventBuffer", "getPlacementStates", "getMetrics", "setEventTransport",
+            "configureSimulatedBackend", "runLoadTest", "setEventFilter", "getInitState", "setTracing",
+            "createTextureBanner", "dispatchTextureBannerTouch", "disposeTextureBanner",
+            "configureCircuitBreaker", "configureEventLog", "exportEventLog",
+            "setBackgroundPolicy", "configureStallWatchdog", "registerPlacements", "presentAndWait",
+            "configurePlacementGroup", "loadPlacementGroup", "configureBannerRefresh",
+    };
+    private static final Map<String, Integer> METHOD_CODES = new HashMap<>();
+    private static final byte[] METHOD_FORMATS = new byte[METHOD_NAMES.length];
+
+    static {
+        for (int i = 1; i < METHOD_NAMES.length; i++) {
+            METHOD_CODES.put(METHOD_NAMES[i], i);
+            METHOD_FORMATS[i] = formatCode(formatOfMethod(METHOD_NAMES[i]));
+        }
+    }
+
+    // staging ring, guarded by lock; slots [tail, head) hold records not yet written to the file
+    private final Object lock = new Object();
+    private final byte[] ring = new byte[RING_CAPACITY * RECORD_SIZE];
+    private long head = 0;
+    private long tail = 0;
+    private long dropped = 0;
+    private int nextSequence = 1;
+
+    // mapped files, guarded by fileLock; only the writer thread writes them
+    private final Object fileLock = new Object();
+    private MappedByteBuffer[] segments;
+    private int current;
+
+    private volatile boolean enabled = false;
+    private Thread writer;
+
+    private GeemeeEventLog() {}
+
+    static GeemeeEventLog get() {
+        return INSTANCE;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Starts recording into {@code directory}, resuming an existing log of the same size. */
+    synchronized void enable(File directory, long maxBytes) throws IOException {
+        disable();
+        long segmentBytes = Math.max(HEADER_SIZE + RECORD_SIZE, maxBytes / 2);
+        segmentBytes = HEADER_SIZE + (segmentBytes - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        MappedByteBuffer[] mapped = new MappedByteBuffer[2];
+        for (int i = 0; i < 2; i++) {
+            mapped[i] = map(new File(directory, "events-" + i + ".bin"), segmentBytes);
+        }
+        synchronized (fileLock) {
+            segments = mapped;
+            resume();
+        }
+        synchronized (lock) {
+            head = 0;
+            tail = 0;
+        }
+        enabled = true;
+        writer = new Thread(this::writeLoop, "geemee-event-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Stops recording once the staged records are written; the log stays exportable. */
+    synchronized void disable() {
+        if (!enabled) return;
+        enabled = false;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        try {
+            writer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    /* ---------- producers ---------- */
+
+    void recordCallback(String event, String placementId) {
+        if (!enabled) return;
+        boolean failure = event.endsWith("Failed");
+        int tag = GeemeeEventCodec.tagOf(event);
+        String format = GeemeeEvent.formatOf(event);
+        stage(KIND_CALLBACK, tag, formatCode(format), failure ? 1 : 0, 0, placementId);
+    }
+
+    void recordMethod(String method, String placementId, long durationNanos, boolean error) {
+        if (!enabled) return;
+        Integer code = METHOD_CODES.get(method);
+        int index = code != null ? code : 0;
+        long micros = Math.min(Integer.MAX_VALUE, durationNanos / 1_000L);
+        stage(error ? KIND_METHOD_ERROR : KIND_METHOD, index, METHOD_FORMATS[index], 0, (int) micros, placementId);
+    }
+
+    private void stage(byte kind, int code, byte format, int flags, int value, String placementId) {
+        long now = System.currentTimeMillis();
+        synchronized (lock) {
+            if (head - tail >= RING_CAPACITY) {
+                dropped++;
+                return;
+            }
+            int o = (int) (head % RING_CAPACITY) * RECORD_SIZE;
+            byte[] r = ring;
+            putInt(r, o, nextSequence++);
+            r[o + 4] = kind;
+            r[o + 5] = (byte) code;
+            r[o + 6] = format;
+            r[o + 7] = (byte) flags;
+            putLong(r, o + 8, now);
+            putInt(r, o + 16, value);
+            int length = placementId != null ? Math.min(placementId.length(), MAX_PLACEMENT_BYTES) : 0;
+            r[o + 20] = (byte) length;
+            for (int i = 0; i < MAX_PLACEMENT_BYTES; i++) {
+                char c = i < length ? placementId.charAt(i) : 0;
+                r[o + 21 + i] = c < 0x80 ? (byte) c : (byte) '?';
+            }
+            head++;
+            // wake the writer when the ring goes from empty to non-empty
+            if (head - tail == 1) lock.notifyAll();
+        }
+    }
+
+    /* ---------- writer ---------- */
+
+    private void writeLoop() {
+        while (true) {
+            long from;
+            long to;
+            synchronized (lock) {
+                while (head == tail && enabled) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (head == tail) return; // disabled and drained
+                from = tail;
+                to = head;
+            }
+            // producers never overwrite [from, to) until tail moves past it
+            synchronized (fileLock) {
+                for (long i = from; i < to; i++) {
+                    write((int) (i % RING_CAPACITY) * RECORD_SIZE);
+                }
+            }
+            synchronized (lock) {
+                tail = to;
+            }
+        }
+    }
+
+    private void write(int ringOffset) {
+        MappedByteBuffer segment = segments[current];
+        if (segment.position() + RECORD_SIZE > segment.capacity()) {
+            current = 1 - current;
+            segment = segments[current];
+            segment.position(HEADER_SIZE);
+        }
+        segment.put(ring, ringOffset, RECORD_SIZE);
+    }
+
+    /** Finds where the previous process stopped; caller holds fileLock. */
+    private void resume() {
+        int[] last = new int[2];
+        int[] end = new int[2];
+        for (int i = 0; i < 2; i++) {
+            MappedByteBuffer segment = segments[i];
+            if (segment.getInt(0) != MAGIC || segment.getShort(4) != VERSION || segment.getShort(6) != RECORD_SIZE) {
+                segment.putInt(0, MAGIC);
+                segment.putShort(4, VERSION);
+                segment.putShort(6, (short) RECORD_SIZE);
+                segment.putInt(HEADER_SIZE, 0);
+            }
+            int position = HEADER_SIZE;
+            int previous = 0;
+            while (position + RECORD_SIZE <= segment.capacity()) {
+                int sequence = segment.getInt(position);
+                if (sequence == 0 || (previous != 0 && sequence <= previous)) break;
+                previous = sequence;
+                position += RECORD_SIZE;
+            }
+            last[i] = previous;
+            end[i] = position;
+        }
+        current = last[1] > last[0] ? 1 : 0;
+        segments[current].position(end[current]);
+        synchronized (lock) {
+            nextSequence = Math.max(last[0], last[1]) + 1;
+        }
+    }
+
+    private static MappedByteBuffer map(File file, long size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (raf.length() != size) {
+                // different size (or new): start this segment over
+                raf.setLength(0);
+                raf.setLength(size);
+            }
+            // the mapping stays valid after the channel is closed
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /* ---------- export ---------- */
+
+    /**
+     * Copies up to maxRecords records with a sequence above {@code afterSequence}, oldest first.
+     * Returns the raw records; an empty array means the export is complete.
+     */
+    byte[] export(int afterSequence, int maxRecords) {
+        synchronized (fileLock) {
+            if (segments == null) return new byte[0];
+            ByteBuffer out = ByteBuffer.allocate(Math.max(0, maxRecords) * RECORD_SIZE);
+            // the segment not being written holds the older records
+            copyRun(segments[1 - current], afterSequence, out);
+            copyRun(segments[current], afterSequence, out);
+            byte[] bytes = new byte[out.position()];
+            out.flip();
+            out.get(bytes);
+            return bytes;
+        }
+    }
+
+    private static void copyRun(MappedByteBuffer segment, int afterSequence, ByteBuffer out) {
+        ByteBuffer view = segment.duplicate();
+        int previous = 0;
+        for (int position = HEADER_SIZE; position + RECORD_SIZE <= view.capacity() && out.remaining() >= RECORD_SIZE;
+             position += RECORD_SIZE) {
+            int sequence = view.getInt(position);
+            if (sequence == 0 || (previous != 0 && sequence <= previous)) return;
+            previous = sequence;
+            if (sequence <= afterSequence) continue;
+            view.limit(position + RECORD_SIZE).position(position);
+            out.put(view);
+            view.limit(view.capacity());
+        }
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (lock) {
+            stats.put("enabled", enabled);
+            stats.put("nextSequence", nextSequence);
+            stats.put("dropped", dropped);
+            stats.put("pending", head - tail);
+        }
+        return stats;
+    }
+
+    /* ---------- helpers ---------- */
+
+    private static String formatOfMethod(String method) {
+        if (method.contains("Banner")) return GeemeePlacementStates.BANNER;
+        if (method.contains("Interstitial")) return GeemeePlacementStates.INTERSTITIAL;
+        if (method.contains("OfferWall")) return GeemeePlacementStates.OFFER_WALL;
+        if (method.contains("UserCenter")) return GeemeePlacementStates.USER_CENTER;
+        return null;
+    }
+
+    private static byte formatCode(String format) {
+        if (format == null) return 0;
+        switch (format) {
+            case GeemeePlacementStates.BANNER:
+                return 1;
+            case GeemeePlacementStates.INTERSTITIAL:
+                return 2;
+            case GeemeePlacementStates.OFFER_WALL:
+                return 3;
+            case GeemeePlacementStates.USER_CENTER:
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
+    private static void putInt(byte[] b, int o, int v) {
+        b[o] = (byte) (v >>> 24);
+        b[o + 1] = (byte) (v >>> 16);
+        b[o + 2] = (byte) (v >>> 8);
+        b[o + 3] = (byte) v;
+    }
+
+    private static void putLong(byte[] b, int o, long v) {
+        putInt(b, o, (int) (v >>> 32));
+        putInt(b, o + 4, (int) v);
+    }
+}
@@ -2,61 +2,282 @@ package com.sudeep.geemee_flutter;
 
 import android.app.Activity;
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import ai.geemee.AdSize;
-import ai.geemee.GeeMee;
 import ai.geemee.GeeMeeCallback;
 import ai.geemee.GError;
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
 import io.flutter.embedding.engine.plugins.activity.ActivityAware;
 import io.flutter.embedding.engine.plugins.activity.ActivityPluginBinding;
+import io.flutter.embedding.engine.plugins.lifecycle.FlutterLifecycleAdapter;
+import io.flutter.plugin.common.BasicMessageChannel;
+import io.flutter.plugin.common.BinaryCodec;
+import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.EventChannel;
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugin.common.MethodChannel.Result;
+import io.flutter.plugin.common.StandardMethodCodec;
 import io.flutter.plugin.platform.PlatformViewRegistry;
 
 /** GeemeeFlutterPlugin */
 public class GeemeeFlutterPlugin implements FlutterPlugin, MethodChannel.MethodCallHandler, ActivityAware {
   private static final String TAG = "GeemeeFlutterPlugin";
 
+  // values of the compact readiness vector returned by getReadiness
+  private static final byte NOT_READY = 0;
+  private static final byte READY = 1;
+  private static final byte READY_ERROR = 2;
+
+  // method / callback latency histograms and failure counters (see getMetrics)
+  private final GeemeeMetrics metrics = new GeemeeMetrics();
+  // method name -> handler; built once, see buildMethodRouter
+  private final GeemeeMethodRouter methodRouter = buildMethodRouter();
   private MethodChannel channel;
+  // same handler, but calls arrive on a background task queue (see GeemeeMethodPolicy)
+  private MethodChannel backgroundChannel;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
   private EventChannel eventChannel;
-  private EventChannel.EventSink eventSink;
+  // frame-aligned, thread-safe delivery of SDK events to the events channel
+  private final GeemeeEventDispatcher eventDispatcher = new GeemeeEventDispatcher(metrics);
   private EventChannel.StreamHandler streamHandler;
+  private BasicMessageChannel<ByteBuffer> binaryEventChannel;
   private Context context;
   private Activity activity;
+  // every SDK call goes through here; the real SDK unless a simulated backend was configured
+  private final GeemeeBackend.Switch backend = new GeemeeBackend.Switch(GeemeeSdkBackend.INSTANCE);
+  // non-null while the simulated backend is selected (see configureSimulatedBackend)
+  private volatile GeemeeSimulatedBackend simulatedBackend;
+  // per-placement state driven by SDK callbacks; answers readiness without crossing into the SDK
+  private final GeemeePlacementStates placementStates = new GeemeePlacementStates();
+  // keeps configured banner placements loaded, with backoff and a concurrency cap
+  private final GeemeePreloadScheduler preloadScheduler = new GeemeePreloadScheduler(placementStates, this::preloadBanner);
+  // recycled / prewarmed banner views shared by every banner view factory of this engine
+  private final GeemeeBannerPool bannerPool = new GeemeeBannerPool(backend, placementStates);
+  // calls that need the SDK, made before init succeeded; guarded by itself, run in order on main
+  private final ArrayDeque<PendingCall> preInitCalls = new ArrayDeque<>();
+  private static final int MAX_PRE_INIT_CALLS = 64;
+  // short-circuits loads / shows of placements that keep failing
+  private final GeemeeCircuitBreakers circuitBreakers = new GeemeeCircuitBreakers(this::onCircuitStateChanged);
+  // releases banners and queued work on onTrimMemory; registered while attached to the engine
+  private final GeemeeMemoryTrimmer memoryTrimmer = new GeemeeMemoryTrimmer(bannerPool, eventDispatcher, preloadScheduler);
+  // small integer handles Dart may send instead of placement ids
+  private final GeemeePlacementHandles placementHandles = new GeemeePlacementHandles();
+  // results of presentAndWait calls, completed by the matching close / open-failed callback
+  private final GeemeePendingShows pendingShows = new GeemeePendingShows();
+  // pauses loads, events and banners while the activity is stopped; observes the activity's lifecycle
+  private final GeemeeLifecycleGate lifecycleGate =
+          new GeemeeLifecycleGate(preloadScheduler, eventDispatcher, memoryTrimmer, this::loadBannerNow);
+  private Lifecycle activityLifecycle;
+  // fallback banner placements for one slot, loaded side by side; the first ready one wins
+  private final GeemeePlacementGroups placementGroups = new GeemeePlacementGroups(new GeemeePlacementGroups.Loader() {
+    @Override
+    public boolean isReady(String placementId) {
+      return Boolean.TRUE.equals(placementStates.cachedReadiness(GeemeePlacementStates.BANNER, placementId));
+    }
+
+    @Override
+    public boolean load(String placementId, AdSize adSize) {
+      return requestBannerLoad(placementId, adSize);
+    }
+
+    @Override
+    public void release(String placementId) {
+      try {
+        bannerPool.destroyBanner(placementId);
+      } catch (Exception e) {
+        Log.e(TAG, "Releasing group loser " + placementId + " threw", e);
+      }
+    }
+  }, this::onPlacementGroupResolved);
+  // reloads banner views after enough time on screen and swaps the new banner into the same view
+  private final GeemeeBannerRefresher bannerRefresher = new GeemeeBannerRefresher(this::requestBannerLoad, metrics);
+  // banners drawn into Flutter textures instead of platform views; created when attached to the engine
+  private GeemeeTextureBanners textureBanners;
   // cached registry so we can register platform views when activity attaches
   private PlatformViewRegistry platformViewRegistry;
 
+  /**
+   * SDK callbacks: update the placement state table, then forward the event to Flutter.
+   * Installed on the SDK through the process-wide {@link GeemeeCallbackHub}, which fans each
+   * callback out to every attached engine; the simulated backend calls it directly.
+   */
+  private final GeeMeeCallback sdkCallback = new GeeMeeCallback() {
+    @Override
+    public void onInitSuccess() {
+      metrics.onInitFinished();
+      initGate().onSuccess();
+      preloadScheduler.setSdkReady(true);
+      mainHandler.post(GeemeeFlutterPlugin.this::runPreInitCalls);
+      safeSendEvent("onInitSuccess", null, null);
+    }
+    @Override
+    public void onInitFailed(GError error) {
+      metrics.onInitFinished();
+      String message = errorToString(error);
+      initGate().onFailure(message);
+      failPreInitCalls("INIT_FAILED", "SDK init failed: " + message);
+      safeSendEvent("onInitFailed", null, message);
+    }
+
+    /** Banner Callbacks */
+    @Override
+    public void onBannerReady(String placementId) {
+      placementStates.onReady(GeemeePlacementStates.BANNER, placementId);
+      circuitBreakers.onSuccess(GeemeePlacementStates.BANNER, placementId);
+      preloadScheduler.onBannerReady(placementId);
+      placementGroups.onBannerReady(placementId);
+      bannerRefresher.onBannerReady(placementId);
+      safeSendEvent("onBannerReady", placementId, null);
+    }
+    @Override
+    public void onBannerLoadFailed(String placementId, GError gError) {
+      Log.d(TAG, "Banner Load Failed: " + (gError != null ? gError.toString() : "null"));
+      String error = errorToString(gError);
+      placementStates.onFailed(GeemeePlacementStates.BANNER, placementId, error);
+      circuitBreakers.onFailure(GeemeePlacementStates.BANNER, placementId);
+      preloadScheduler.onBannerLoadFailed(placementId);
+      placementGroups.onBannerLoadFailed(placementId);
+      bannerRefresher.onBannerLoadFailed(placementId);
+      safeSendEvent("onBannerLoadFailed", placementId, error);
+    }
+    @Override
+    public void onBannerShowFailed(String placementId, GError gError) {
+      Log.d(TAG, "Banner Show Failed: " + (gError != null ? gError.toString() : "null"));
+      String error = errorToString(gError);
+      placementStates.onFailed(GeemeePlacementStates.BANNER, placementId, error);
+      circuitBreakers.onFailure(GeemeePlacementStates.BANNER, placementId);
+      preloadScheduler.onBannerConsumed(placementId);
+      safeSendEvent("onBannerShowFailed", placementId, error);
+    }
+
+    @Override
+    public void onBannerClick(String placementId) { safeSendEvent("onBannerClick", placementId, null); }
+
+    /** Interstitial Callbacks */
+    @Override
+    public void onInterstitialOpen(String placementId) {
+      placementStates.onOpened(GeemeePlacementStates.INTERSTITIAL, placementId);
+      circuitBreakers.onSuccess(GeemeePlacementStates.INTERSTITIAL, placementId);
+      pendingShows.onOpened(GeemeePlacementStates.INTERSTITIAL, placementId);
+      safeSendEvent("onInterstitialOpen", placementId, null);
+    }
+    @Override
+    public void onInterstitialOpenFailed(String placementId, GError gError) {
+      String error = errorToString(gError);
+      placementStates.onFailed(GeemeePlacementStates.INTERSTITIAL, placementId, error);
+      circuitBreakers.onFailure(GeemeePlacementStates.INTERSTITIAL, placementId);
+      pendingShows.onOpenFailed(GeemeePlacementStates.INTERSTITIAL, placementId, error);
+      safeSendEvent("onInterstitialOpenFailed", placementId, error);
+    }
+    @Override
+    public void onInterstitialClose(String placementId) {
+      placementStates.onClosed(GeemeePlacementStates.INTERSTITIAL, placementId);
+      pendingShows.onClosed(GeemeePlacementStates.INTERSTITIAL, placementId);
+      safeSendEvent("onInterstitialClose", placementId, null);
+    }
+
+    /** OfferWall Callbacks */
+    @Override
+    public void onOfferWallOpen(String placement) {
+      placementStates.onOpened(GeemeePlacementStates.OFFER_WALL, placement);
+      circuitBreakers.onSuccess(GeemeePlacementStates.OFFER_WALL, placement);
+      pendingShows.onOpened(GeemeePlacementStates.OFFER_WALL, placement);
+      safeSendEvent("onOfferWallOpen", placement, null);
+    }
+    @Override
+    public void onOfferWallOpenFailed(String placement, GError error) {
+      String message = errorToString(error);
+      placementStates.onFailed(GeemeePlacementStates.OFFER_WALL, placement, message);
+      circuitBreakers.onFailure(GeemeePlacementStates.OFFER_WALL, placement);
+      pendingShows.onOpenFailed(GeemeePlacementStates.OFFER_WALL, placement, message);
+      safeSendEvent("onOfferWallOpenFailed", placement, message);
+    }
+    @Override
+    public void onOfferWallClose(String placement) {
+      placementStates.onClosed(GeemeePlacementStates.OFFER_WALL, placement);
+      pendingShows.onClosed(GeemeePlacementStates.OFFER_WALL, placement);
+      safeSendEvent("onOfferWallClose", placement, null);
+    }
+
+    /** PlayMee Callbacks */
+    @Override
+    public void onUserCenterOpen(String placementId) {
+      placementStates.onOpened(GeemeePlacementStates.USER_CENTER, placementId);
+      circuitBreakers.onSuccess(GeemeePlacementStates.USER_CENTER, placementId);
+      pendingShows.onOpened(GeemeePlacementStates.USER_CENTER, placementId);
+      safeSendEvent("onUserCenterOpen", placementId, null);
+    }
+    @Override
+    public void onUserCenterOpenFailed(String placementId, GError gError) {
+      String error = errorToString(gError);
+      placementStates.onFailed(GeemeePlacementStates.USER_CENTER, placementId, error);
+      circuitBreakers.onFailure(GeemeePlacementStates.USER_CENTER, placementId);
+      pendingShows.onOpenFailed(GeemeePlacementStates.USER_CENTER, placementId, error);
+      safeSendEvent("onUserCenterOpenFailed", placementId, error);
+    }
+    @Override
+    public void onUserCenterClose(String placementId) {
+      placementStates.onClosed(GeemeePlacementStates.USER_CENTER, placementId);
+      pendingShows.onClosed(GeemeePlacementStates.USER_CENTER, placementId);
+      safeSendEvent("onUserCenterClose", placementId, null);
+    }
+
+    @Override
+    public void onUserInteraction(String placementId, String data) {
+      safeSendEvent("onUserInteraction", placementId, data);
+    }
+  };
+
   @Override
   public void onAttachedToEngine(@NonNull FlutterPluginBinding flutterPluginBinding) {
     context = flutterPluginBinding.getApplicationContext();
+    int engines = GeemeeCallbackHub.get().attach(sdkCallback);
+    Log.d(TAG, "Attached to engine; " + engines + " engine(s) receiving SDK callbacks");
     channel = new MethodChannel(flutterPluginBinding.getBinaryMessenger(), "geemee_flutter");
     channel.setMethodCallHandler(this);
 
+    BinaryMessenger messenger = flutterPluginBinding.getBinaryMessenger();
+    BinaryMessenger.TaskQueue taskQueue = messenger.makeBackgroundTaskQueue();
+    backgroundChannel = new MethodChannel(
+            messenger, "geemee_flutter/background", StandardMethodCodec.INSTANCE, taskQueue);
+    backgroundChannel.setMethodCallHandler(this::onBackgroundMethodCall);
+
     eventChannel = new EventChannel(flutterPluginBinding.getBinaryMessenger(), "geemee_flutter_events");
 
     // keep a reference so we can unregister cleanly later
     streamHandler = new EventChannel.StreamHandler() {
       @Override
       public void onListen(Object arguments, EventChannel.EventSink events) {
-        eventSink = events;
+        eventDispatcher.setEventSink(events);
       }
 
       @Override
       public void onCancel(Object arguments) {
-        eventSink = null;
+        eventDispatcher.setEventSink(null);
       }
     };
     eventChannel.setStreamHandler(streamHandler);
 
+    // opt-in binary transport for events (see setEventTransport)
+    binaryEventChannel = new BasicMessageChannel<>(
+            flutterPluginBinding.getBinaryMessenger(), "geemee_flutter_events_binary", BinaryCodec.INSTANCE);
+    eventDispatcher.setBinaryChannel(binaryEventChannel);
+
     // Cache the platform view registry now (only FlutterPluginBinding exposes it)
     try {
       platformViewRegistry = flutterPluginBinding.getPlatformViewRegistry();
@@ -65,321 +286,976 @@ public class GeemeeFlutterPlugin implements FlutterPlugin, MethodChannel.MethodC
       platformViewRegistry = null;
     }
 
+    context.registerComponentCallbacks(memoryTrimmer);
+    backend.watchdog.setListener(this::onMainThreadStall);
+    eventDispatcher.setPlacementHandles(placementHandles);
+
+    textureBanners = new GeemeeTextureBanners(flutterPluginBinding.getTextureRegistry(), backend, bannerPool,
+            this::onBannerShown, this::onTextureBannerReleased);
+
     // Do NOT register the view factory here if activity is null - we'll do that in onAttachedToActivity.
   }
 
   @Override
   public void onMethodCall(@NonNull MethodCall call, @NonNull Result result) {
+    if (GeemeeMethodPolicy.requiresInit(call.method) && deferUntilInit(call, result)) return;
+    invoke(call, result);
+  }
+
+  private void invoke(@NonNull MethodCall call, @NonNull Result result) {
+    long startNanos = System.nanoTime();
+    boolean traced = GeemeeTrace.isEnabled() && GeemeeTrace.begin("call " + call.method, placementOf(call));
     try {
-      String method = call.method;
-      switch (method) {
-        /** ================= SDK INIT ================= */
-        case "initSDK": {
-          String appKey = call.argument("appKey");
-          if (appKey == null) {
-            result.error("INVALID_ARGUMENT", "appKey is required", null);
-            return;
-          }
-          try {
-            GeeMee.setCallback(new GeeMeeCallback() {
-              @Override
-              public void onInitSuccess() { safeSendEvent("onInitSuccess", null); }
-              @Override
-              public void onInitFailed(GError error) { safeSendEvent("onInitFailed", errorToMap(error)); }
-
-              /** Banner Callbacks */
-              @Override
-              public void onBannerReady(String placementId) { safeSendEvent("onBannerReady", placementId); }
-              @Override
-              public void onBannerLoadFailed(String placementId, GError gError) {
-                Log.d(TAG, "Banner Load Failed: " + (gError != null ? gError.toString() : "null"));
-                safeSendEvent("onBannerLoadFailed", errorToMap(gError));
-              }
-              @Override
-              public void onBannerShowFailed(String placementId, GError gError) {
-                Log.d(TAG, "Banner Show Failed: " + (gError != null ? gError.toString() : "null"));
-                safeSendEvent("onBannerShowFailed", errorToMap(gError));
-              }
-
-              @Override
-              public void onBannerClick(String placementId) { safeSendEvent("onBannerClick", placementId); }
-
-              /** Interstitial Callbacks */
-              @Override
-              public void onInterstitialOpen(String placementId) { safeSendEvent("onInterstitialOpen", placementId); }
-              @Override
-              public void onInterstitialOpenFailed(String placementId, GError gError) { safeSendEvent("onInterstitialOpenFailed", errorToMap(gError)); }
-              @Override
-              public void onInterstitialClose(String placementId) { safeSendEvent("onInterstitialClose", placementId); }
-
-              /** OfferWall Callbacks */
-              @Override
-              public void onOfferWallOpen(String placement) { safeSendEvent("onOfferWallOpen", placement); }
-              @Override
-              public void onOfferWallOpenFailed(String placement, GError error) { safeSendEvent("onOfferWallOpenFailed", errorToMap(error)); }
-              @Override
-              public void onOfferWallClose(String placement) { safeSendEvent("onOfferWallClose", placement); }
-
-              /** PlayMee Callbacks */
-              @Override
-              public void onUserCenterOpen(String placementId) { safeSendEvent("onUserCenterOpen", placementId); }
-              @Override
-              public void onUserCenterOpenFailed(String placementId, GError gError) { safeSendEvent("onUserCenterOpenFailed", errorToMap(gError)); }
-              @Override
-              public void onUserCenterClose(String placementId) { safeSendEvent("onUserCenterClose", placementId); }
-
-              @Override
-              public void onUserInteraction(String placementId, String data) {
-                safeSendEvent("onUserInteraction", placementId + ":" + data);
-              }
-            });
-            GeeMee.initSDK(appKey);
-            result.success(null);
-          } catch (Exception e) {
-            Log.e(TAG, "initSDK error", e);
-            result.error("INIT_ERROR", e.getMessage(), null);
-          }
-          break;
-        }
+      dispatchMethodCall(call, new MetricsResult(call, startNanos, result));
+    } finally {
+      if (traced) GeemeeTrace.end();
+      long elapsedNanos = System.nanoTime() - startNanos;
+      metrics.recordMethod(call.method, elapsedNanos);
+      GeemeeEventLog log = GeemeeEventLog.get();
+      if (log.isEnabled()) log.recordMethod(call.method, placementOf(call), elapsedNanos, false);
+    }
+  }
 
-        /** ================= USER SETTINGS ================= */
-        case "setUserId": {
-          String userId = call.argument("userId");
-          if (userId == null) {
-            result.error("INVALID_ARGUMENT", "userId is required", null);
-            return;
-          }
-          try {
-            GeeMee.setUserId(userId);
-            result.success(null);
-          } catch (Exception e) {
-            Log.e(TAG, "setUserId error", e);
-            result.error("SET_USER_ERROR", e.getMessage(), null);
-          }
-          break;
-        }
+  /** placementId argument of a call, for trace labels and the event log; null when absent */
+  private String placementOf(MethodCall call) {
+    if (call.arguments instanceof Integer) return placementArg(call);
+    if (!(call.arguments instanceof Map)) return null;
+    Object placementId = ((Map<?, ?>) call.arguments).get("placementId");
+    if (placementId instanceof String) return (String) placementId;
+    Object handle = ((Map<?, ?>) call.arguments).get("handle");
+    GeemeePlacementHandles.Entry entry = handle instanceof Integer ? placementHandles.get((Integer) handle) : null;
+    return entry != null ? entry.placementId : null;
+  }
 
-        case "getUserId": {
-          try {
-            String uid = GeeMee.getUserId();
-            result.success(uid);
-          } catch (Exception e) {
-            Log.e(TAG, "getUserId error", e);
-            result.error("GET_USER_ERROR", e.getMessage(), null);
-          }
-          break;
-        }
+  /**
+   * placementId of a call that sent either a {"placementId": ...} map or a bare registered
+   * placement handle (see GeemeePlacementHandles); null when missing or unknown
+   */
+  private String placementArg(MethodCall call) {
+    if (call.arguments instanceof Integer) {
+      GeemeePlacementHandles.Entry entry = placementHandles.get((Integer) call.arguments);
+      return entry != null ? entry.placementId : null;
+    }
+    return call.argument("placementId");
+  }
 
-        case "setDebugMode": {
-          Boolean debug = call.argument("debug");
-          try {
-            GeeMee.debug(debug != null && debug);
-            result.success(null);
-          } catch (Exception e) {
-            Log.e(TAG, "setDebugMode error", e);
-            result.error("DEBUG_ERROR", e.getMessage(), null);
-          }
-          break;
-        }
+  /** adSize of a loadBanner call; a handle carries the size it was registered with */
+  private String adSizeArg(MethodCall call) {
+    if (call.arguments instanceof Integer) {
+      GeemeePlacementHandles.Entry entry = placementHandles.get((Integer) call.arguments);
+      return entry != null ? entry.adSize : null;
+    }
+    return call.argument("adSize");
+  }
 
-        case "getVersion": {
-          try {
-            result.success(GeeMee.getVersion());
-          } catch (Exception e) {
-            Log.e(TAG, "getVersion error", e);
-            result.error("VERSION_ERROR", e.getMessage(), null);
-          }
-          break;
-        }
+  /** Counts error replies per method for getMetrics and the event log */
+  private final class MetricsResult implements Result {
+    private final MethodCall call;
+    private final long startNanos;
+    private final Result delegate;
+
+    MetricsResult(MethodCall call, long startNanos, Result delegate) {
+      this.call = call;
+      this.startNanos = startNanos;
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void success(Object value) { delegate.success(value); }
+
+    @Override
+    public void error(@NonNull String errorCode, String errorMessage, Object errorDetails) {
+      metrics.recordMethodFailure(call.method);
+      GeemeeEventLog log = GeemeeEventLog.get();
+      if (log.isEnabled()) log.recordMethod(call.method, placementOf(call), System.nanoTime() - startNanos, true);
+      delegate.error(errorCode, errorMessage, errorDetails);
+    }
+
+    @Override
+    public void notImplemented() { delegate.notImplemented(); }
+  }
+
+  private void dispatchMethodCall(@NonNull MethodCall call, @NonNull Result result) {
+    try {
+      methodRouter.dispatch(call, result);
+    } catch (Exception e) {
+      Log.e(TAG, "onMethodCall unexpected error", e);
+      result.error("UNEXPECTED_ERROR", e.getMessage(), null);
+    }
+  }
+
+  /** One handler per method channel call; unknown methods reply notImplemented */
+  private GeemeeMethodRouter buildMethodRouter() {
+    GeemeeMethodRouter router = new GeemeeMethodRouter();
 
-        /** ================= OFFER WALL ================= */
-        case "isOfferWallReady": {
-          String placement = call.argument("placementId");
-          if (placement == null) {
-            result.error("INVALID_ARGUMENT", "placementId is required", null);
-            return;
-          }
-          try {
-            result.success(GeeMee.isOfferWallReady(placement));
-          } catch (Exception e) {
-            Log.e(TAG, "isOfferWallReady error", e);
-            result.error("OFFERWALL_READY_ERROR", e.getMessage(), null);
-          }
-          break;
+    /** ================= SDK INIT ================= */
+    router.on("initSDK", (call, result) -> {
+      String appKey = call.argument("appKey");
+      if (appKey == null) {
+        result.error("INVALID_ARGUMENT", "appKey is required", null);
+        return;
+      }
+      GeemeeInitGate gate = initGate();
+      if (!gate.begin()) {
+        // fold into the init in flight (its callback reaches every engine) or the finished one
+        Log.d(TAG, "initSDK ignored, SDK init is already " + gate.state());
+        if (gate.state() == GeemeeInitGate.State.READY) {
+          // this engine may be waiting for the event: replay it
+          preloadScheduler.setSdkReady(true);
+          safeSendEvent("onInitSuccess", null, null);
         }
+        result.success(null);
+        return;
+      }
+      try {
+        GeemeeBackend target = backend.get();
+        if (target == GeemeeSdkBackend.INSTANCE) {
+          // GeeMee.setCallback is process-global: install the hub once, never per engine
+          GeemeeCallbackHub.get().install(target);
+        } else {
+          target.setCallback(sdkCallback);
+        }
+        metrics.onInitStarted();
+        backend.initSDK(appKey);
+        result.success(null);
+      } catch (Exception e) {
+        Log.e(TAG, "initSDK error", e);
+        gate.onFailure(e.getMessage());
+        failPreInitCalls("INIT_FAILED", "SDK init failed: " + e.getMessage());
+        result.error("INIT_ERROR", e.getMessage(), null);
+      }
+    });
 
-        case "openOfferWall": {
-          String placement = call.argument("placementId");
-          if (placement == null) {
-            result.error("INVALID_ARGUMENT", "placementId is required", null);
-            return;
-          }
-          try {
-            GeeMee.openOfferWall(placement);
-            result.success(null);
-          } catch (Exception e) {
-            Log.e(TAG, "openOfferWall error", e);
-            result.error("OFFERWALL_OPEN_ERROR", e.getMessage(), null);
-          }
-          break;
+    /** ================= USER SETTINGS ================= */
+    router.on("setUserId", (call, result) -> {
+      String userId = call.argument("userId");
+      if (userId == null) {
+        result.error("INVALID_ARGUMENT", "userId is required", null);
+        return;
+      }
+      try {
+        backend.setUserId(userId);
+        result.success(null);
+      } catch (Exception e) {
+        Log.e(TAG, "setUserId error", e);
+        result.error("SET_USER_ERROR", e.getMessage(), null);
+      }
+    });
+
+    router.on("getUserId", (call, result) -> {
+      try {
+        String uid = backend.getUserId();
+        result.success(uid);
+      } catch (Exception e) {
+        Log.e(TAG, "getUserId error", e);
+        result.error("GET_USER_ERROR", e.getMessage(), null);
+      }
+    });
+
+    router.on("setDebugMode", (call, result) -> {
+      Boolean debug = call.argument("debug");
+      try {
+        backend.debug(debug != null && debug);
+        result.success(null);
+      } catch (Exception e) {
+        Log.e(TAG, "setDebugMode error", e);
+        result.error("DEBUG_ERROR", e.getMessage(), null);
+      }
+    });
+
+    router.on("getVersion", (call, result) -> {
+      try {
+        result.success(backend.getVersion());
+      } catch (Exception e) {
+        Log.e(TAG, "getVersion error", e);
+        result.error("VERSION_ERROR", e.getMessage(), null);
+      }
+    });
+
+    /** ================= OFFER WALL ================= */
+    router.on("isOfferWallReady", (call, result) -> {
+      String placement = placementArg(call);
+      if (placement == null) {
+        result.error("INVALID_ARGUMENT", "placementId is required", null);
+        return;
+      }
+      try {
+        result.success(isPlacementReady(GeemeePlacementStates.OFFER_WALL, placement));
+      } catch (Exception e) {
+        Log.e(TAG, "isOfferWallReady error", e);
+        result.error("OFFERWALL_READY_ERROR", e.getMessage(), null);
+      }
+    });
+
+    router.on("openOfferWall", (call, result) -> {
+      String placement = placementArg(call);
+      if (placement == null) {
+        result.error("INVALID_ARGUMENT", "placementId is required", null);
+        return;
+      }
+      if (rejectedByCircuit(GeemeePlacementStates.OFFER_WALL, placement, result)) return;
+      try {
+        placementStates.onShowRequested(GeemeePlacementStates.OFFER_WALL, placement);
+        backend.openOfferWall(placement);
+        result.success(null);
+      } catch (Exception e) {
+        Log.e(TAG, "openOfferWall error", e);
+        result.error("OFFERWALL_OPEN_ERROR", e.getMessage(), null);
+      }
+    });
+
+    /** ================= BANNER ================= */
+    router.on("loadBanner", (call, result) -> {
+      String placementBanner = placementArg(call);
+      String size = adSizeArg(call);
+      if (placementBanner == null || size == null) {
+        result.error("INVALID_ARGUMENT", "placementId and adSize are required", null);
+        return;
+      }
+      if (rejectedByCircuit(GeemeePlacementStates.BANNER, placementBanner, result)) return;
+      try {
+        AdSize adSize = parseAdSize(size);
+        // while the activity is stopped the load may wait for it to start again
+        if (!lifecycleGate.deferLoad(placementBanner, adSize)) {
+          loadBannerNow(placementBanner, adSize);
         }
+        result.success(null);
+      } catch (Exception e) {
+        Log.e(TAG, "loadBanner error", e);
+        result.error("LOAD_BANNER_ERROR", e.getMessage(), null);
+      }
+    });
 
-        /** ================= BANNER ================= */
-        case "loadBanner": {
-          String placementBanner = call.argument("placementId");
-          String size = call.argument("adSize");
-          if (placementBanner == null || size == null) {
-            result.error("INVALID_ARGUMENT", "placementId and adSize are required", null);
-            return;
-          }
-          try {
-            AdSize adSize = AdSize.BANNER;
-            if ("MEDIUM_RECTANGLE".equals(size)) adSize = AdSize.MEDIUM_RECTANGLE;
-            else if ("LEADERBOARD".equals(size)) adSize = AdSize.LEADERBOARD;
-            GeeMee.loadBanner(placementBanner, adSize);
-            result.success(null);
-          } catch (Exception e) {
-            Log.e(TAG, "loadBanner error", e);
-            result.error("LOAD_BANNER_ERROR", e.getMessage(), null);
-          }
-          break;
+    router.on("isBannerReady", (call, result) -> {
+      String placement = placementArg(call);
+      if (placement == null) {
+        result.error("INVALID_ARGUMENT", "placementId is required", null);
+        return;
+      }
+      try {
+        result.success(isPlacementReady(GeemeePlacementStates.BANNER, placement));
+      } catch (Exception e) {
+        Log.e(TAG, "isBannerReady error", e);
+        result.error("BANNER_READY_ERROR", e.getMessage(), null);
+      }
+    });
+
+    router.on("destroyBanner", (call, result) -> {
+      String placement = placementArg(call);
+      if (placement == null) {
+        result.error("INVALID_ARGUMENT", "placementId is required", null);
+        return;
+      }
+      try {
+        bannerPool.destroyBanner(placement);
+        result.success(null);
+      } catch (Exception e) {
+        Log.e(TAG, "destroyBanner error", e);
+        result.error("DESTROY_BANNER_ERROR", e.getMessage(), null);
+      }
+    });
+
+    router.on("prewarmBanners", (call, result) -> {
+      List<String> placementIds = call.argument("placementIds");
+      if (placementIds == null) {
+        result.error("INVALID_ARGUMENT", "placementIds is required", null);
+        return;
+      }
+      try {
+        Map<String, Boolean> prewarmed = new HashMap<>();
+        for (String placementId : placementIds) {
+          prewarmed.put(placementId, placementId != null && bannerPool.prewarm(placementId));
         }
+        result.success(prewarmed);
+      } catch (Exception e) {
+        Log.e(TAG, "prewarmBanners error", e);
+        result.error("PREWARM_BANNER_ERROR", e.getMessage(), null);
+      }
+    });
+
+    router.on("createTextureBanner", (call, result) -> {
+      String placementId = call.argument("placementId");
+      Integer width = call.argument("width");
+      Integer height = call.argument("height");
+      if (placementId == null || width == null || height == null || width <= 0 || height <= 0) {
+        result.error("INVALID_ARGUMENT", "placementId and a positive width and height are required", null);
+        return;
+      }
+      if (textureBanners == null) {
+        result.error("NOT_ATTACHED", "Plugin is not attached to an engine", null);
+        return;
+      }
+      try {
+        // null when the placement has no banner loaded
+        result.success(textureBanners.create(placementId, width, height));
+      } catch (Exception e) {
+        Log.e(TAG, "createTextureBanner error", e);
+        result.error("TEXTURE_BANNER_ERROR", e.getMessage(), null);
+      }
+    });
+
+    router.on("dispatchTextureBannerTouch", (call, result) -> {
+      Number textureId = call.argument("textureId");
+      Integer action = call.argument("action");
+      Number x = call.argument("x");
+      Number y = call.argument("y");
+      if (textureId == null || action == null || x == null || y == null) {
+        result.error("INVALID_ARGUMENT", "textureId, action, x and y are required", null);
+        return;
+      }
+      result.success(textureBanners != null
+              && textureBanners.dispatchTouch(textureId.longValue(), action, x.floatValue(), y.floatValue()));
+    });
+
+    router.on("disposeTextureBanner", (call, result) -> {
+      Number textureId = call.argument("textureId");
+      if (textureId == null) {
+        result.error("INVALID_ARGUMENT", "textureId is required", null);
+        return;
+      }
+      if (textureBanners != null) textureBanners.dispose(textureId.longValue());
+      result.success(null);
+    });
+
+    router.on("configureBannerPool", (call, result) -> {
+      Integer maxEntries = call.argument("maxEntries");
+      Number maxBytes = call.argument("maxBytes");
+      Number ttlMs = call.argument("ttlMs");
+      bannerPool.configure(
+              maxEntries != null ? maxEntries : GeemeeBannerPool.DEFAULT_MAX_ENTRIES,
+              maxBytes != null ? maxBytes.longValue() : GeemeeBannerPool.DEFAULT_MAX_BYTES,
+              ttlMs != null ? ttlMs.longValue() : GeemeeBannerPool.DEFAULT_TTL_MS);
+      result.success(null);
+    });
+
+    router.on("getBannerPoolStats", (call, result) -> {
+      result.success(bannerPool.stats());
+    });
+
+    router.on("configurePlacementGroup", (call, result) -> {
+      String groupId = call.argument("groupId");
+      List<String> placementIds = call.argument("placementIds");
+      String size = call.argument("adSize");
+      String strategy = call.argument("strategy");
+      Integer maxConcurrentLoads = call.argument("maxConcurrentLoads");
+      Number loadTimeoutMs = call.argument("loadTimeoutMs");
+      if (groupId == null || placementIds == null) {
+        result.error("INVALID_ARGUMENT", "groupId and placementIds are required", null);
+        return;
+      }
+      placementGroups.configure(groupId, placementIds, parseAdSize(size),
+              "PRIORITY".equals(strategy) ? GeemeePlacementGroups.Strategy.PRIORITY : GeemeePlacementGroups.Strategy.FIRST_READY,
+              maxConcurrentLoads != null ? maxConcurrentLoads : GeemeePlacementGroups.DEFAULT_MAX_CONCURRENT_LOADS,
+              loadTimeoutMs != null ? loadTimeoutMs.longValue() : GeemeePlacementGroups.DEFAULT_LOAD_TIMEOUT_MS);
+      result.success(null);
+    });
+
+    router.on("loadPlacementGroup", (call, result) -> {
+      String groupId = call.argument("groupId");
+      if (groupId == null) {
+        result.error("INVALID_ARGUMENT", "groupId is required", null);
+        return;
+      }
+      // replies with the winning placement once the group is decided, null if none was ready
+      placementGroups.load(groupId, result::success);
+    });
+
+    router.on("configureBannerRefresh", (call, result) -> {
+      String placementId = call.argument("placementId");
+      String size = call.argument("adSize");
+      Number refreshAfterMs = call.argument("refreshAfterMs");
+      Number minVisibleFraction = call.argument("minVisibleFraction");
+      if (placementId == null) {
+        result.error("INVALID_ARGUMENT", "placementId is required", null);
+        return;
+      }
+      bannerRefresher.configure(placementId, parseAdSize(size),
+              refreshAfterMs != null ? refreshAfterMs.longValue() : 0L,
+              minVisibleFraction != null ? minVisibleFraction.doubleValue() : GeemeeBannerRefresher.DEFAULT_MIN_VISIBLE_FRACTION);
+      result.success(null);
+    });
 
-        case "isBannerReady": {
-          String placement = call.argument("placementId");
-          if (placement == null) {
-            result.error("INVALID_ARGUMENT", "placementId is required", null);
-            return;
-          }
-          try {
-            result.success(GeeMee.isBannerReady(placement));
-          } catch (Exception e) {
-            Log.e(TAG, "isBannerReady error", e);
-            result.error("BANNER_READY_ERROR", e.getMessage(), null);
-          }
-          break;
+    router.on("configurePreload", (call, result) -> {
+      Boolean enabled = call.argument("enabled");
+      Map<String, String> placements = call.argument("placements");
+      Integer maxConcurrentLoads = call.argument("maxConcurrentLoads");
+      Number baseBackoffMs = call.argument("baseBackoffMs");
+      Number maxBackoffMs = call.argument("maxBackoffMs");
+      Number loadTimeoutMs = call.argument("loadTimeoutMs");
+      Map<String, AdSize> sizes = new HashMap<>();
+      if (placements != null) {
+        for (Map.Entry<String, String> e : placements.entrySet()) {
+          if (e.getKey() != null) sizes.put(e.getKey(), parseAdSize(e.getValue()));
         }
+      }
+      preloadScheduler.configure(
+              enabled != null && enabled,
+              sizes,
+              maxConcurrentLoads != null ? maxConcurrentLoads : GeemeePreloadScheduler.DEFAULT_MAX_CONCURRENT_LOADS,
+              baseBackoffMs != null ? baseBackoffMs.longValue() : GeemeePreloadScheduler.DEFAULT_BASE_BACKOFF_MS,
+              maxBackoffMs != null ? maxBackoffMs.longValue() : GeemeePreloadScheduler.DEFAULT_MAX_BACKOFF_MS,
+              loadTimeoutMs != null ? loadTimeoutMs.longValue() : GeemeePreloadScheduler.DEFAULT_LOAD_TIMEOUT_MS);
+      result.success(null);
+    });
+
+    /** ================= INTERSTITIAL ================= */
+    router.on("isInterstitialReady", (call, result) -> {
+      String placement = placementArg(call);
+      if (placement == null) {
+        result.error("INVALID_ARGUMENT", "placementId is required", null);
+        return;
+      }
+      try {
+        result.success(isPlacementReady(GeemeePlacementStates.INTERSTITIAL, placement));
+      } catch (Exception e) {
+        Log.e(TAG, "isInterstitialReady error", e);
+        result.error("INTERSTITIAL_READY_ERROR", e.getMessage(), null);
+      }
+    });
+
+    router.on("showInterstitial", (call, result) -> {
+      String placement = placementArg(call);
+      if (placement == null) {
+        result.error("INVALID_ARGUMENT", "placementId is required", null);
+        return;
+      }
+      if (rejectedByCircuit(GeemeePlacementStates.INTERSTITIAL, placement, result)) return;
+      try {
+        placementStates.onShowRequested(GeemeePlacementStates.INTERSTITIAL, placement);
+        backend.showInterstitial(placement);
+        result.success(null);
+      } catch (Exception e) {
+        Log.e(TAG, "showInterstitial error", e);
+        result.error("SHOW_INTERSTITIAL_ERROR", e.getMessage(), null);
+      }
+    });
+
+    /** ================= PLAYMEE ================= */
+    router.on("isUserCenterReady", (call, result) -> {
+      String placement = placementArg(call);
+      if (placement == null) {
+        result.error("INVALID_ARGUMENT", "placementId is required", null);
+        return;
+      }
+      try {
+        result.success(isPlacementReady(GeemeePlacementStates.USER_CENTER, placement));
+      } catch (Exception e) {
+        Log.e(TAG, "isUserCenterReady error", e);
+        result.error("USERCENTER_READY_ERROR", e.getMessage(), null);
+      }
+    });
+
+    router.on("openUserCenter", (call, result) -> {
+      String placement = placementArg(call);
+      if (placement == null) {
+        result.error("INVALID_ARGUMENT", "placementId is required", null);
+        return;
+      }
+      if (rejectedByCircuit(GeemeePlacementStates.USER_CENTER, placement, result)) return;
+      try {
+        placementStates.onShowRequested(GeemeePlacementStates.USER_CENTER, placement);
+        backend.openUserCenter(placement);
+        result.success(null);
+      } catch (Exception e) {
+        Log.e(TAG, "openUserCenter error", e);
+        result.error("OPEN_USERCENTER_ERROR", e.getMessage(), null);
+      }
+    });
 
-        case "destroyBanner": {
-          String placement = call.argument("placementId");
-          if (placement == null) {
-            result.error("INVALID_ARGUMENT", "placementId is required", null);
-            return;
-          }
-          try {
-            GeeMee.destroyBanner(placement);
-            result.success(null);
-          } catch (Exception e) {
-            Log.e(TAG, "destroyBanner error", e);
-            result.error("DESTROY_BANNER_ERROR", e.getMessage(), null);
-          }
-          break;
+    /** ================= AWAITABLE SHOWS ================= */
+    router.on("presentAndWait", (call, result) -> {
+      // a registered placement handle stands for the format and placementId
+      Integer handle = call.argument("handle");
+      GeemeePlacementHandles.Entry entry = handle != null ? placementHandles.get(handle) : null;
+      if (handle != null && entry == null) {
+        result.error("INVALID_ARGUMENT", "Unknown placement handle " + handle, null);
+        return;
+      }
+      String format = entry != null ? entry.format : call.argument("format");
+      String placement = entry != null ? entry.placementId : call.argument("placementId");
+      Number openTimeoutMs = call.argument("openTimeoutMs");
+      Number closeTimeoutMs = call.argument("closeTimeoutMs");
+      if (placement == null || !(GeemeePlacementStates.INTERSTITIAL.equals(format)
+              || GeemeePlacementStates.OFFER_WALL.equals(format)
+              || GeemeePlacementStates.USER_CENTER.equals(format))) {
+        result.error("INVALID_ARGUMENT", "placementId and a full-screen format are required", null);
+        return;
+      }
+      if (rejectedByCircuit(format, placement, result)) return;
+      if (!pendingShows.begin(format, placement, result,
+              openTimeoutMs != null ? openTimeoutMs.longValue() : GeemeePendingShows.DEFAULT_OPEN_TIMEOUT_MS,
+              closeTimeoutMs != null ? closeTimeoutMs.longValue() : GeemeePendingShows.DEFAULT_CLOSE_TIMEOUT_MS)) {
+        return;
+      }
+      try {
+        placementStates.onShowRequested(format, placement);
+        if (GeemeePlacementStates.INTERSTITIAL.equals(format)) {
+          backend.showInterstitial(placement);
+        } else if (GeemeePlacementStates.OFFER_WALL.equals(format)) {
+          backend.openOfferWall(placement);
+        } else {
+          backend.openUserCenter(placement);
         }
+        // the result completes on the close / open-failed callback or a timeout
+      } catch (Exception e) {
+        Log.e(TAG, "presentAndWait error", e);
+        pendingShows.abort(format, placement, "PRESENT_ERROR", e.getMessage());
+      }
+    });
 
-        /** ================= INTERSTITIAL ================= */
-        case "isInterstitialReady": {
-          String placement = call.argument("placementId");
-          if (placement == null) {
-            result.error("INVALID_ARGUMENT", "placementId is required", null);
-            return;
-          }
-          try {
-            result.success(GeeMee.isInterstitialReady(placement));
-          } catch (Exception e) {
-            Log.e(TAG, "isInterstitialReady error", e);
-            result.error("INTERSTITIAL_READY_ERROR", e.getMessage(), null);
-          }
-          break;
+    /** ================= BATCHED QUERIES ================= */
+    router.on("getReadiness", (call, result) -> {
+      List<String> formats = call.argument("formats");
+      List<String> placements = call.argument("placementIds");
+      if (formats == null || placements == null || formats.size() != placements.size()) {
+        result.error("INVALID_ARGUMENT", "formats and placementIds are required and must have the same length", null);
+        return;
+      }
+      // one byte per query: READY / NOT_READY / READY_ERROR
+      byte[] readiness = new byte[formats.size()];
+      for (int i = 0; i < readiness.length; i++) {
+        try {
+          readiness[i] = isPlacementReady(formats.get(i), placements.get(i)) ? READY : NOT_READY;
+        } catch (Exception e) {
+          Log.e(TAG, "getReadiness error for " + formats.get(i) + "/" + placements.get(i), e);
+          readiness[i] = READY_ERROR;
         }
+      }
+      result.success(readiness);
+    });
+
+    /** ================= EVENTS ================= */
+    router.on("configureEventBuffer", (call, result) -> {
+      Integer capacity = call.argument("capacity");
+      Number maxAgeMs = call.argument("maxAgeMs");
+      eventDispatcher.configureReplayBuffer(
+              capacity != null ? capacity : GeemeeEventDispatcher.DEFAULT_REPLAY_CAPACITY,
+              maxAgeMs != null ? maxAgeMs.longValue() : GeemeeEventDispatcher.DEFAULT_REPLAY_MAX_AGE_MS);
+      result.success(null);
+    });
+
+    router.on("setTracing", (call, result) -> {
+      Boolean enabled = call.argument("enabled");
+      GeemeeTrace.setEnabled(enabled != null && enabled);
+      result.success(null);
+    });
+
+    router.on("configureCircuitBreaker", (call, result) -> {
+      Boolean enabled = call.argument("enabled");
+      Integer failureThreshold = call.argument("failureThreshold");
+      Number cooldownMs = call.argument("cooldownMs");
+      circuitBreakers.configure(
+              enabled == null || enabled,
+              failureThreshold != null ? failureThreshold : GeemeeCircuitBreakers.DEFAULT_FAILURE_THRESHOLD,
+              cooldownMs != null ? cooldownMs.longValue() : GeemeeCircuitBreakers.DEFAULT_COOLDOWN_MS);
+      result.success(null);
+    });
+
+    router.on("configureEventLog", (call, result) -> {
+      Boolean enabled = call.argument("enabled");
+      Number maxBytes = call.argument("maxBytes");
+      GeemeeEventLog log = GeemeeEventLog.get();
+      if (enabled == null || !enabled) {
+        log.disable();
+        result.success(null);
+        return;
+      }
+      if (context == null) {
+        result.error("NO_CONTEXT", "Plugin is not attached to an engine", null);
+        return;
+      }
+      try {
+        log.enable(new File(context.getFilesDir(), "geemee_event_log"),
+                maxBytes != null ? maxBytes.longValue() : GeemeeEventLog.DEFAULT_MAX_BYTES);
+        result.success(null);
+      } catch (IOException e) {
+        Log.e(TAG, "configureEventLog error", e);
+        result.error("EVENT_LOG_ERROR", e.getMessage(), null);
+      }
+    });
 
-        case "showInterstitial": {
-          String placement = call.argument("placementId");
-          if (placement == null) {
-            result.error("INVALID_ARGUMENT", "placementId is required", null);
-            return;
-          }
-          try {
-            GeeMee.showInterstitial(placement);
-            result.success(null);
-          } catch (Exception e) {
-            Log.e(TAG, "showInterstitial error", e);
-            result.error("SHOW_INTERSTITIAL_ERROR", e.getMessage(), null);
-          }
-          break;
+    router.on("exportEventLog", (call, result) -> {
+      Number afterSequence = call.argument("afterSequence");
+      Integer maxRecords = call.argument("maxRecords");
+      GeemeeEventLog log = GeemeeEventLog.get();
+      Map<String, Object> chunk = log.stats();
+      chunk.put("recordSize", GeemeeEventLog.RECORD_SIZE);
+      chunk.put("records", log.export(
+              afterSequence != null ? afterSequence.intValue() : 0,
+              maxRecords != null ? maxRecords : 1024));
+      result.success(chunk);
+    });
+
+    router.on("configureStallWatchdog", (call, result) -> {
+      Boolean enabled = call.argument("enabled");
+      Number budgetMs = call.argument("budgetMs");
+      backend.watchdog.configure(enabled != null && enabled,
+              budgetMs != null ? budgetMs.longValue() : GeemeeStallWatchdog.DEFAULT_BUDGET_MS);
+      result.success(null);
+    });
+
+    router.on("setBackgroundPolicy", (call, result) -> {
+      String placementId = call.argument("placementId");
+      String policy = call.argument("policy");
+      Integer priority = call.argument("priority");
+      if (placementId == null || policy == null) {
+        result.error("INVALID_ARGUMENT", "placementId and policy are required", null);
+        return;
+      }
+      try {
+        lifecycleGate.setPolicy(placementId, GeemeeLifecycleGate.BackgroundPolicy.valueOf(policy),
+                priority != null ? priority : 0);
+      } catch (IllegalArgumentException e) {
+        result.error("INVALID_ARGUMENT", "Unknown background policy: " + policy, null);
+        return;
+      }
+      // work paused already must see the new policy
+      mainHandler.post(lifecycleGate::applyPolicies);
+      result.success(null);
+    });
+
+    router.on("registerPlacements", (call, result) -> {
+      List<?> handles = call.argument("handles");
+      List<?> formats = call.argument("formats");
+      List<?> placementIds = call.argument("placementIds");
+      List<?> adSizes = call.argument("adSizes");
+      if (handles == null || formats == null || placementIds == null
+              || formats.size() != handles.size() || placementIds.size() != handles.size()
+              || (adSizes != null && adSizes.size() != handles.size())) {
+        result.error("INVALID_ARGUMENT", "handles, formats and placementIds must be lists of the same length", null);
+        return;
+      }
+      // check every element first: a bad one must not leave the table half registered
+      for (int i = 0; i < handles.size(); i++) {
+        Object handle = handles.get(i);
+        Object adSize = adSizes != null ? adSizes.get(i) : null;
+        if (!(handle instanceof Integer) || !GeemeePlacementHandles.isValidHandle((Integer) handle)
+                || !(formats.get(i) instanceof String) || !(placementIds.get(i) instanceof String)
+                || (adSize != null && !(adSize instanceof String))) {
+          result.error("INVALID_ARGUMENT", "Invalid placement registration at index " + i + ": handle "
+                  + handle + ", format " + formats.get(i) + ", placementId " + placementIds.get(i), null);
+          return;
         }
+      }
+      // a restarted isolate numbers its handles from 0 again
+      if (Boolean.TRUE.equals(call.argument("reset"))) placementHandles.clear();
+      for (int i = 0; i < handles.size(); i++) {
+        placementHandles.register((Integer) handles.get(i), (String) formats.get(i), (String) placementIds.get(i),
+                adSizes != null ? (String) adSizes.get(i) : null);
+      }
+      result.success(null);
+    });
+
+    router.on("getInitState", (call, result) -> {
+      result.success(initGate().snapshot());
+    });
+
+    router.on("getPlacementStates", (call, result) -> {
+      result.success(placementStates.snapshot());
+    });
+
+    router.on("getMetrics", (call, result) -> {
+      Boolean reset = call.argument("reset");
+      Map<String, Object> snapshot = metrics.snapshot();
+      snapshot.put("placements", placementStates.latencySnapshot());
+      snapshot.put("attachedEngines", GeemeeCallbackHub.get().attachedCount());
+      snapshot.put("openCircuits", circuitBreakers.snapshot());
+      snapshot.put("activityStopped", lifecycleGate.isStopped());
+      snapshot.put("pendingShows", pendingShows.size());
+      snapshot.put("placementGroups", placementGroups.snapshot());
+      snapshot.put("mainThreadStalls", backend.watchdog.snapshot());
+      if (reset != null && reset) {
+        metrics.reset();
+        placementStates.resetLatencies();
+        backend.watchdog.reset();
+      }
+      result.success(snapshot);
+    });
+
+    router.on("setEventFilter", (call, result) -> {
+      List<String> formats = call.argument("formats");
+      List<String> placementIds = call.argument("placementIds");
+      eventDispatcher.setFilter(formats, placementIds);
+      result.success(null);
+    });
 
-        /** ================= PLAYMEE ================= */
-        case "isUserCenterReady": {
-          String placement = call.argument("placementId");
-          if (placement == null) {
-            result.error("INVALID_ARGUMENT", "placementId is required", null);
-            return;
-          }
-          try {
-            result.success(GeeMee.isUserCenterReady(placement));
-          } catch (Exception e) {
-            Log.e(TAG, "isUserCenterReady error", e);
-            result.error("USERCENTER_READY_ERROR", e.getMessage(), null);
-          }
-          break;
+    router.on("setEventTransport", (call, result) -> {
+      Boolean binary = call.argument("binary");
+      eventDispatcher.setBinaryTransport(binary != null && binary);
+      result.success(null);
+    });
+
+    /** ================= TESTING ================= */
+    router.on("configureSimulatedBackend", (call, result) -> {
+      if (!BuildConfig.DEBUG) {
+        result.error("DEBUG_ONLY", "configureSimulatedBackend is only available in debug builds", null);
+        return;
+      }
+      Boolean enabled = call.argument("enabled");
+      try {
+        GeemeeSimulatedBackend previous = simulatedBackend;
+        if (enabled != null && enabled) {
+          GeemeeSimulatedBackend.Config config = new GeemeeSimulatedBackend.Config();
+          Number minLatencyMs = call.argument("minLatencyMs");
+          Number maxLatencyMs = call.argument("maxLatencyMs");
+          Number fillRate = call.argument("fillRate");
+          Number failureRate = call.argument("failureRate");
+          String callbackThread = call.argument("callbackThread");
+          if (minLatencyMs != null) config.minLatencyMs = minLatencyMs.longValue();
+          if (maxLatencyMs != null) config.maxLatencyMs = maxLatencyMs.longValue();
+          if (fillRate != null) config.fillRate = fillRate.doubleValue();
+          if (failureRate != null) config.failureRate = failureRate.doubleValue();
+          if (callbackThread != null) config.callbackThread = GeemeeSimulatedBackend.CallbackThread.valueOf(callbackThread);
+          simulatedBackend = new GeemeeSimulatedBackend(context, config);
+          backend.set(simulatedBackend);
+        } else {
+          simulatedBackend = null;
+          backend.set(GeemeeSdkBackend.INSTANCE);
         }
+        if (previous != null) previous.shutdown();
+        // the new backend has its own init state
+        preloadScheduler.setSdkReady(initGate().state() == GeemeeInitGate.State.READY);
+        result.success(null);
+      } catch (IllegalArgumentException e) {
+        result.error("INVALID_ARGUMENT", "callbackThread must be MAIN, SINGLE or POOL", null);
+      } catch (Exception e) {
+        Log.e(TAG, "configureSimulatedBackend error", e);
+        result.error("SIMULATED_BACKEND_ERROR", e.getMessage(), null);
+      }
+    });
 
-        case "openUserCenter": {
-          String placement = call.argument("placementId");
-          if (placement == null) {
-            result.error("INVALID_ARGUMENT", "placementId is required", null);
-            return;
-          }
-          try {
-            GeeMee.openUserCenter(placement);
-            result.success(null);
-          } catch (Exception e) {
-            Log.e(TAG, "openUserCenter error", e);
-            result.error("OPEN_USERCENTER_ERROR", e.getMessage(), null);
-          }
-          break;
+    router.on("runLoadTest", (call, result) -> {
+      if (!BuildConfig.DEBUG) {
+        result.error("DEBUG_ONLY", "runLoadTest is only available in debug builds", null);
+        return;
+      }
+      GeemeeSimulatedBackend simulated = simulatedBackend;
+      if (simulated == null) {
+        result.error("SIMULATED_BACKEND_REQUIRED", "runLoadTest requires configureSimulatedBackend(enabled: true) and initSDK first", null);
+        return;
+      }
+      Integer cycles = call.argument("cycles");
+      Integer concurrency = call.argument("concurrency");
+      // blocks for the whole run: keep it off the main thread and the background task queue
+      new Thread(() -> {
+        try {
+          Map<String, Object> report = new GeemeeLoadGenerator(this, simulated).run(
+                  cycles != null ? cycles : 100, concurrency != null ? concurrency : 4);
+          result.success(report);
+        } catch (Exception e) {
+          Log.e(TAG, "runLoadTest error", e);
+          result.error("LOAD_TEST_ERROR", e.getMessage(), null);
         }
+      }, "geemee-load-test").start();
+    });
+
+    return router;
+  }
+
+  /** A method call parked until the SDK init completes */
+  private static final class PendingCall {
+    final MethodCall call;
+    final Result result;
+
+    PendingCall(MethodCall call, Result result) {
+      this.call = call;
+      this.result = result;
+    }
+  }
+
+  /** Init state of the backend in use: process-wide for the real SDK, per engine for the simulated one */
+  private GeemeeInitGate initGate() {
+    GeemeeSimulatedBackend simulated = simulatedBackend;
+    return simulated != null ? simulated.initGate : GeemeeCallbackHub.get().initGate();
+  }
 
-        default:
-          result.notImplemented();
+  /**
+   * Parks a call that needs the SDK until init succeeds, or fails it right away if init failed.
+   * Returns false when the call can run now. Calls queued earlier keep their order: while any
+   * are waiting, new ones queue behind them even once init is ready.
+   */
+  private boolean deferUntilInit(MethodCall call, Result result) {
+    synchronized (preInitCalls) {
+      GeemeeInitGate gate = initGate();
+      GeemeeInitGate.State state = gate.state();
+      if (state == GeemeeInitGate.State.READY && preInitCalls.isEmpty()) return false;
+      if (state == GeemeeInitGate.State.FAILED) {
+        result.error("INIT_FAILED", "SDK init failed: " + gate.lastError(), null);
+        return true;
       }
-    } catch (Exception e) {
-      Log.e(TAG, "onMethodCall unexpected error", e);
-      result.error("UNEXPECTED_ERROR", e.getMessage(), null);
+      if (preInitCalls.size() >= MAX_PRE_INIT_CALLS) {
+        result.error("NOT_INITIALIZED", "SDK not initialized and " + MAX_PRE_INIT_CALLS + " calls already waiting; call initSDK first", null);
+        return true;
+      }
+      preInitCalls.add(new PendingCall(call, result));
+      return true;
     }
   }
 
-  /** Safe wrapper around sending events to Flutter - avoids crashes if sink is null or sink throws */
-  private void safeSendEvent(String eventName, Object data) {
-    try {
-      if (eventSink != null) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("event", eventName);
-        if (data != null) {
-          map.put("data", data);
-        }
-        eventSink.success(map);
-      } else {
-        Log.w(TAG, "EventSink is null - dropping event: " + eventName);
+  /** Runs the parked calls in arrival order once init succeeded. Main thread. */
+  private void runPreInitCalls() {
+    while (true) {
+      PendingCall next;
+      synchronized (preInitCalls) {
+        next = preInitCalls.poll();
       }
+      if (next == null) return;
+      invoke(next.call, next.result);
+    }
+  }
+
+  private void failPreInitCalls(String code, String message) {
+    ArrayDeque<PendingCall> failed;
+    synchronized (preInitCalls) {
+      failed = new ArrayDeque<>(preInitCalls);
+      preInitCalls.clear();
+    }
+    for (PendingCall pending : failed) {
+      pending.result.error(code, message, null);
+    }
+  }
+
+  /** Entry point of the background channel: runs background-safe methods in place, hops the rest to main. */
+  private void onBackgroundMethodCall(@NonNull MethodCall call, @NonNull Result result) {
+    if (GeemeeMethodPolicy.forMethod(call.method) == GeemeeMethodPolicy.ThreadPolicy.BACKGROUND) {
+      onMethodCall(call, result);
+    } else {
+      mainHandler.post(() -> onMethodCall(call, result));
+    }
+  }
+
+  /**
+   * Readiness lookup shared by the isXReady methods and the batched query.
+   * Answered from the placement state table when it knows; otherwise asks the SDK and records the answer.
+   * Throws for unknown formats or missing placements.
+   */
+  private boolean isPlacementReady(String format, String placementId) {
+    if (format == null || placementId == null) {
+      throw new IllegalArgumentException("format and placementId are required");
+    }
+    Boolean cached = placementStates.cachedReadiness(format, placementId);
+    if (cached != null) return cached;
+
+    boolean ready;
+    switch (format) {
+      case GeemeePlacementStates.BANNER:
+        ready = backend.isBannerReady(placementId);
+        break;
+      case GeemeePlacementStates.INTERSTITIAL:
+        ready = backend.isInterstitialReady(placementId);
+        break;
+      case GeemeePlacementStates.OFFER_WALL:
+        ready = backend.isOfferWallReady(placementId);
+        break;
+      case GeemeePlacementStates.USER_CENTER:
+        ready = backend.isUserCenterReady(placementId);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown format: " + format);
+    }
+    placementStates.onReadinessObserved(format, placementId, ready);
+    return ready;
+  }
+
+  /** A loaded banner was handed to a platform view by the SDK: it is no longer ready, so refill it */
+  private void onBannerShown(String placementId) {
+    placementStates.onOpened(GeemeePlacementStates.BANNER, placementId);
+    preloadScheduler.onBannerConsumed(placementId);
+  }
+
+  /** Starts a banner load; loadBanner calls deferred while the activity was stopped also end up here */
+  private void loadBannerNow(String placementId, AdSize adSize) {
+    placementStates.onLoadRequested(GeemeePlacementStates.BANNER, placementId);
+    // the ready callback of this load is not a group loser's to release
+    placementGroups.onLoadRequested(placementId);
+    backend.loadBanner(placementId, adSize);
+  }
+
+  /** A preload scheduler load; returns the breaker's retry delay if the placement's circuit is open */
+  private long preloadBanner(String placementId, AdSize adSize) {
+    long retryAfterMs = circuitBreakers.tryAcquire(GeemeePlacementStates.BANNER, placementId);
+    if (retryAfterMs == 0) loadBannerNow(placementId, adSize);
+    return retryAfterMs;
+  }
+
+  /** A load made by the plugin itself; false if the placement's circuit is open */
+  private boolean requestBannerLoad(String placementId, AdSize adSize) {
+    if (circuitBreakers.tryAcquire(GeemeePlacementStates.BANNER, placementId) != 0) return false;
+    // while the activity is stopped the load may wait for it to start again
+    if (!lifecycleGate.deferLoad(placementId, adSize)) loadBannerNow(placementId, adSize);
+    return true;
+  }
+
+  /** Short-circuits a load / show of a placement whose breaker is open; returns true if it replied */
+  private boolean rejectedByCircuit(String format, String placementId, Result result) {
+    long retryAfterMs = circuitBreakers.tryAcquire(format, placementId);
+    if (retryAfterMs == 0) return false;
+    result.error("CIRCUIT_OPEN",
+            format + " " + placementId + " keeps failing; calls are paused for another " + retryAfterMs + " ms", null);
+    return true;
+  }
+
+  private void onCircuitStateChanged(String format, String placementId, GeemeeCircuitBreakers.State state,
+                                     int consecutiveFailures, long retryAfterMs) {
+    Map<String, Object> data = new HashMap<>();
+    data.put("format", format);
+    data.put("placementId", placementId);
+    data.put("state", state.name());
+    data.put("consecutiveFailures", consecutiveFailures);
+    data.put("retryAfterMs", retryAfterMs);
+    eventDispatcher.send("onCircuitStateChanged", placementId, data);
+  }
+
+  /** A placement group picked its winner, or every member failed */
+  private void onPlacementGroupResolved(String groupId, String winner, Map<String, Object> data) {
+    eventDispatcher.send("onPlacementGroupResolved", winner, data);
+  }
+
+  /** A synchronous SDK call blocked the main thread for longer than the watchdog's budget */
+  private void onMainThreadStall(Map<String, Object> stall) {
+    Log.w(TAG, "SDK call " + stall.get("method") + " blocked the main thread for "
+            + stall.get("durationMs") + " ms (placement " + stall.get("placementId") + ")");
+    eventDispatcher.send("onMainThreadStall", (String) stall.get("placementId"), stall);
+  }
+
+  /** The activity went away under a texture banner: tell its Dart widget to create a new one */
+  private void onTextureBannerReleased(long textureId, String placementId) {
+    Map<String, Object> data = new HashMap<>();
+    data.put("textureId", textureId);
+    data.put("placementId", placementId);
+    eventDispatcher.send("onTextureBannerReleased", placementId, data);
+  }
+
+  /** Maps the Dart GeemeeBannerSize value to the SDK size; unknown values fall back to BANNER */
+  private static AdSize parseAdSize(String size) {
+    if ("MEDIUM_RECTANGLE".equals(size)) return AdSize.MEDIUM_RECTANGLE;
+    if ("LEADERBOARD".equals(size)) return AdSize.LEADERBOARD;
+    return AdSize.BANNER;
+  }
+
+  /**
+   * Safe wrapper around sending SDK events to Flutter - may be called from any SDK thread, never throws.
+   * {@code detail} is the error string of failure callbacks or the interaction data.
+   */
+  private void safeSendEvent(String eventName, String placementId, String detail) {
+    try {
+      eventDispatcher.sendSdkEvent(eventName, placementId, detail);
     } catch (Exception e) {
       // log and swallow - do not crash the SDK callback thread
-      Log.e(TAG, "Failed to send event to Flutter: " + eventName, e);
+      Log.e(TAG, "Failed to queue event for Flutter: " + eventName, e);
     }
   }
 
-  /** convert GError to simple map (null safe) to send to dart side */
-  private Map<String, Object> errorToMap(GError error) {
-    Map<String, Object> m = new HashMap<>();
-    if (error == null) return m;
+  /** convert GError to its string form (null safe); the legacy map payload is built from it lazily */
+  private String errorToString(GError error) {
+    if (error == null) return null;
     try {
       // GError API may differ across SDK versions. Use toString() as a safe fallback
-      m.put("error", String.valueOf(error));
+      return String.valueOf(error);
     } catch (Exception e) {
-      Log.e(TAG, "errorToMap failed", e);
-      m.put("error", "unknown_error");
+      Log.e(TAG, "errorToString failed", e);
+      return "unknown_error";
     }
-    return m;
   }
 
   @Override
@@ -389,16 +1265,42 @@ public class GeemeeFlutterPlugin implements FlutterPlugin, MethodChannel.MethodC
         channel.setMethodCallHandler(null);
         channel = null;
       }
+      if (backgroundChannel != null) {
+        backgroundChannel.setMethodCallHandler(null);
+        backgroundChannel = null;
+      }
       if (eventChannel != null) {
         // unregister our stream handler
         eventChannel.setStreamHandler(null);
         eventChannel = null;
       }
-      // clear sink and stream handler references
-      eventSink = null;
+      // drop pending events and clear sink and stream handler references
+      eventDispatcher.clear();
+      eventDispatcher.setBinaryChannel(null);
+      binaryEventChannel = null;
       streamHandler = null;
+      GeemeeCallbackHub.get().detach(sdkCallback);
+      failPreInitCalls("DETACHED", "Engine detached before the SDK was initialized");
       // clear cached registry
       platformViewRegistry = null;
+      if (context != null) context.unregisterComponentCallbacks(memoryTrimmer);
+      backend.watchdog.configure(false, GeemeeStallWatchdog.DEFAULT_BUDGET_MS);
+      backend.watchdog.setListener(null);
+      if (textureBanners != null) {
+        textureBanners.clear();
+        textureBanners = null;
+      }
+      lifecycleGate.clear();
+      pendingShows.clear("DETACHED", "Engine detached before the ad closed");
+      placementGroups.clear();
+      bannerRefresher.clear();
+      placementHandles.clear();
+      bannerPool.clear();
+      preloadScheduler.stop();
+      GeemeeSimulatedBackend simulated = simulatedBackend;
+      simulatedBackend = null;
+      backend.set(GeemeeSdkBackend.INSTANCE);
+      if (simulated != null) simulated.shutdown();
     } catch (Exception e) {
       Log.e(TAG, "onDetachedFromEngine error", e);
     }
@@ -408,11 +1310,14 @@ public class GeemeeFlutterPlugin implements FlutterPlugin, MethodChannel.MethodC
   @Override
   public void onAttachedToActivity(@NonNull ActivityPluginBinding binding) {
     this.activity = binding.getActivity();
+    if (textureBanners != null) textureBanners.setActivity(activity);
+    observeLifecycle(binding);
     try {
       // register the banner view factory now that activity is available
       if (activity != null && platformViewRegistry != null) {
         platformViewRegistry.registerViewFactory(
-                "geemee_banner_view", new GeemeeBannerViewFactory(activity));
+                "geemee_banner_view", new GeemeeBannerViewFactory(activity, backend, bannerPool, eventDispatcher, this::onBannerShown, metrics, memoryTrimmer,
+                        placementGroups, bannerRefresher));
       } else {
         Log.w(TAG, "Activity or PlatformViewRegistry is null onAttachedToActivity - cannot register banner view");
       }
@@ -424,15 +1329,23 @@ public class GeemeeFlutterPlugin implements FlutterPlugin, MethodChannel.MethodC
   @Override
   public void onDetachedFromActivityForConfigChanges() {
     this.activity = null;
+    // the next activity's lifecycle takes over; paused work waits for it to start
+    stopObservingLifecycle();
+    // texture and pooled banner views were created against the old activity
+    if (textureBanners != null) textureBanners.setActivity(null);
+    bannerPool.clear();
   }
 
   @Override
   public void onReattachedToActivityForConfigChanges(@NonNull ActivityPluginBinding binding) {
     this.activity = binding.getActivity();
+    if (textureBanners != null) textureBanners.setActivity(activity);
+    observeLifecycle(binding);
     try {
       if (activity != null && platformViewRegistry != null) {
         platformViewRegistry.registerViewFactory(
-                "geemee_banner_view", new GeemeeBannerViewFactory(activity));
+                "geemee_banner_view", new GeemeeBannerViewFactory(activity, backend, bannerPool, eventDispatcher, this::onBannerShown, metrics, memoryTrimmer,
+                        placementGroups, bannerRefresher));
       } else {
         Log.w(TAG, "Activity or PlatformViewRegistry is null onReattachedToActivityForConfigChanges");
       }
@@ -444,5 +1357,29 @@ public class GeemeeFlutterPlugin implements FlutterPlugin, MethodChannel.MethodC
   @Override
   public void onDetachedFromActivity() {
     this.activity = null;
+    if (textureBanners != null) textureBanners.setActivity(null);
+    stopObservingLifecycle();
+    lifecycleGate.onActivityDetached();
+    bannerPool.clear();
+  }
+
+  /** Follows the activity's start / stop through Flutter's lifecycle adapter. */
+  private void observeLifecycle(@NonNull ActivityPluginBinding binding) {
+    stopObservingLifecycle();
+    try {
+      activityLifecycle = FlutterLifecycleAdapter.getActivityLifecycle(binding);
+      // a lifecycle that is already started replays onStart right away
+      activityLifecycle.addObserver(lifecycleGate);
+    } catch (Exception e) {
+      activityLifecycle = null;
+      Log.e(TAG, "Failed to observe the activity lifecycle", e);
+    }
+  }
+
+  private void stopObservingLifecycle() {
+    if (activityLifecycle != null) {
+      activityLifecycle.removeObserver(lifecycleGate);
+      activityLifecycle = null;
+    }
   }
 }
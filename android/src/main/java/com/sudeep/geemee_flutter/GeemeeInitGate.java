@@ -0,0 +1,67 @@
+package com.sudeep.geemee_flutter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Init state machine of one SDK backend: UNINITIALIZED -> INITIALIZING -> READY or FAILED.
+ * - {@link #begin()} folds duplicate initSDK calls into the one in flight (or the finished one)
+ * - a FAILED init can be retried with another initSDK
+ * - success / failure may be reported more than once (every engine sees the callback); only the
+ *   first report of an init attempt changes the state
+ *
+ * The real SDK is process-global, so its gate is shared through {@link GeemeeCallbackHub};
+ * a simulated backend has its own.
+ */
+final class GeemeeInitGate {
+    enum State {
+        UNINITIALIZED,
+        INITIALIZING,
+        READY,
+        FAILED
+    }
+
+    private State state = State.UNINITIALIZED;
+    private String lastError;
+
+    synchronized State state() {
+        return state;
+    }
+
+    synchronized String lastError() {
+        return lastError;
+    }
+
+    /** Returns true when the caller must start the SDK init, false when it is already running or done. */
+    synchronized boolean begin() {
+        if (state == State.INITIALIZING || state == State.READY) return false;
+        state = State.INITIALIZING;
+        lastError = null;
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        state = State.READY;
+        lastError = null;
+    }
+
+    synchronized void onFailure(String error) {
+        // a late failure report must not undo a successful init
+        if (state == State.READY) return;
+        state = State.FAILED;
+        lastError = error;
+    }
+
+    /** Back to UNINITIALIZED. Only for tests: the real SDK cannot be uninitialized. */
+    synchronized void reset() {
+        state = State.UNINITIALIZED;
+        lastError = null;
+    }
+
+    synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("state", state.name());
+        snapshot.put("error", lastError);
+        return snapshot;
+    }
+}
@@ -0,0 +1,203 @@
+package com.sudeep.geemee_flutter;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ai.geemee.AdSize;
+
+/**
+ * Pauses the plugin's SDK work while the host activity is stopped (app in the background, or
+ * covered by a full-screen ad), following the activity lifecycle through FlutterLifecycleAdapter.
+ * On stop:
+ * - the preload scheduler starts no new loads, and loadBanner calls are deferred until start
+ * - non-urgent events (banner and plugin events) are held; init and full-screen events are not
+ * - banner views are taken out of their containers - none can be on screen - so their
+ *   rendering and refresh stop; they stay registered with {@link GeemeeMemoryTrimmer}
+ * On start, in placement priority order: banners are reattached, deferred loads run and the
+ * scheduler resumes; then the held events are delivered.
+ *
+ * Placements with the RUN background policy are exempt from all of this. Policies may be set
+ * from any thread; everything else runs on the main thread.
+ */
+class GeemeeLifecycleGate implements DefaultLifecycleObserver {
+    private static final String TAG = "GeemeeLifecycleGate";
+
+    enum BackgroundPolicy {
+        /** wait for the activity to start again (default) */
+        PAUSE,
+        /** keep loading and delivering events in the background */
+        RUN
+    }
+
+    /** Starts a banner load the way the loadBanner method call does. */
+    interface BannerLoader {
+        void loadBanner(String placementId, AdSize adSize);
+    }
+
+    private static final class Policy {
+        final BackgroundPolicy background;
+        final int priority;
+
+        Policy(BackgroundPolicy background, int priority) {
+            this.background = background;
+            this.priority = priority;
+        }
+    }
+
+    private static final Policy DEFAULT_POLICY = new Policy(BackgroundPolicy.PAUSE, 0);
+
+    private final GeemeePreloadScheduler preloadScheduler;
+    private final GeemeeEventDispatcher eventDispatcher;
+    private final GeemeeMemoryTrimmer memoryTrimmer;
+    private final BannerLoader bannerLoader;
+    private final ConcurrentHashMap<String, Policy> policies = new ConcurrentHashMap<>();
+
+    // written on the main thread; read by getMetrics
+    private volatile boolean stopped = false;
+    // main thread only
+    private final Map<String, AdSize> deferredLoads = new LinkedHashMap<>();
+    private final List<GeemeeMemoryTrimmer.LiveBanner> detachedBanners = new ArrayList<>();
+
+    GeemeeLifecycleGate(GeemeePreloadScheduler preloadScheduler, GeemeeEventDispatcher eventDispatcher,
+                        GeemeeMemoryTrimmer memoryTrimmer, BannerLoader bannerLoader) {
+        this.preloadScheduler = preloadScheduler;
+        this.eventDispatcher = eventDispatcher;
+        this.memoryTrimmer = memoryTrimmer;
+        this.bannerLoader = bannerLoader;
+    }
+
+    /** Sets what a placement may do in the background; higher priorities resume first. */
+    void setPolicy(String placementId, BackgroundPolicy background, int priority) {
+        policies.put(placementId, new Policy(background, priority));
+    }
+
+    /** Re-applies the policies to work that is already paused. Main thread. */
+    void applyPolicies() {
+        if (!stopped) return;
+        List<String> exempt = exemptPlacements();
+        preloadScheduler.pause(exempt);
+        eventDispatcher.hold(exempt);
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Defers a banner load while stopped, unless its placement may run in the background.
+     * Returns false if the load should run now. Main thread.
+     */
+    boolean deferLoad(String placementId, AdSize adSize) {
+        if (!stopped || policyOf(placementId).background == BackgroundPolicy.RUN) return false;
+        // a later request for the same placement replaces the earlier one
+        deferredLoads.remove(placementId);
+        deferredLoads.put(placementId, adSize);
+        return true;
+    }
+
+    @Override
+    public void onStart(@NonNull LifecycleOwner owner) {
+        resume();
+    }
+
+    @Override
+    public void onStop(@NonNull LifecycleOwner owner) {
+        if (stopped) return;
+        stopped = true;
+        boolean traced = GeemeeTrace.begin("pause for background", null);
+        try {
+            List<String> exempt = exemptPlacements();
+            preloadScheduler.pause(exempt);
+            eventDispatcher.hold(exempt);
+            for (GeemeeMemoryTrimmer.LiveBanner banner : memoryTrimmer.liveBanners()) {
+                if (policyOf(banner.placementId()).background == BackgroundPolicy.RUN) continue;
+                if (banner.detachBanner()) detachedBanners.add(banner);
+            }
+            Log.d(TAG, "Activity stopped: detached " + detachedBanners.size() + " banners");
+        } finally {
+            if (traced) GeemeeTrace.end();
+        }
+    }
+
+    /**
+     * Activity detached for good (not for a configuration change): nothing is left to wait for,
+     * so paused work resumes.
+     */
+    void onActivityDetached() {
+        resume();
+    }
+
+    /** Engine detached: drops the deferred work. */
+    void clear() {
+        stopped = false;
+        deferredLoads.clear();
+        detachedBanners.clear();
+    }
+
+    private void resume() {
+        if (!stopped) return;
+        stopped = false;
+        boolean traced = GeemeeTrace.begin("resume from background", null);
+        try {
+            List<GeemeeMemoryTrimmer.LiveBanner> banners = new ArrayList<>(detachedBanners);
+            detachedBanners.clear();
+            Collections.sort(banners,
+                    (a, b) -> Integer.compare(priorityOf(b.placementId()), priorityOf(a.placementId())));
+            for (GeemeeMemoryTrimmer.LiveBanner banner : banners) {
+                banner.reattachBanner();
+            }
+
+            List<String> loads = byPriority(new ArrayList<>(deferredLoads.keySet()));
+            Map<String, AdSize> sizes = new HashMap<>(deferredLoads);
+            deferredLoads.clear();
+            for (String placementId : loads) {
+                try {
+                    bannerLoader.loadBanner(placementId, sizes.get(placementId));
+                } catch (Exception e) {
+                    Log.e(TAG, "Deferred loadBanner threw for placement " + placementId, e);
+                }
+            }
+
+            preloadScheduler.resume(byPriority(new ArrayList<>(policies.keySet())));
+            int released = eventDispatcher.release();
+            Log.d(TAG, "Activity started: reattached " + banners.size() + " banners, ran "
+                    + loads.size() + " deferred loads, released " + released + " events");
+        } finally {
+            if (traced) GeemeeTrace.end();
+        }
+    }
+
+    private Policy policyOf(String placementId) {
+        Policy policy = placementId != null ? policies.get(placementId) : null;
+        return policy != null ? policy : DEFAULT_POLICY;
+    }
+
+    private int priorityOf(String placementId) {
+        return policyOf(placementId).priority;
+    }
+
+    /** Highest priority first; the sort is stable, so equal priorities keep their order. */
+    private List<String> byPriority(List<String> placementIds) {
+        Collections.sort(placementIds, (a, b) -> Integer.compare(priorityOf(b), priorityOf(a)));
+        return placementIds;
+    }
+
+    private List<String> exemptPlacements() {
+        List<String> exempt = new ArrayList<>();
+        for (Map.Entry<String, Policy> e : policies.entrySet()) {
+            if (e.getValue().background == BackgroundPolicy.RUN) exempt.add(e.getKey());
+        }
+        return exempt;
+    }
+}
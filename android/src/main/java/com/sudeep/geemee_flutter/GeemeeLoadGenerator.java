@@ -0,0 +1,222 @@
+package com.sudeep.geemee_flutter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.flutter.plugin.common.MethodCall;
+import io.flutter.plugin.common.MethodChannel;
+
+/**
+ * Drives load / ready / show cycles through the plugin's method handler against a
+ * {@link GeemeeSimulatedBackend}, so callbacks and events take the same path as in production:
+ * backend callback -> plugin state, scheduler and event pipeline.
+ *
+ * Each worker owns one banner and one interstitial placement and runs cycles of
+ * loadBanner -> onBannerReady -> isBannerReady -> showInterstitial -> onInterstitialClose.
+ * Method calls are routed like the channels route them (see {@link GeemeeMethodPolicy}).
+ *
+ * {@link #run} blocks; call it from a worker thread.
+ */
+class GeemeeLoadGenerator {
+    private static final long CALLBACK_TIMEOUT_MS = 10_000L;
+
+    private final MethodChannel.MethodCallHandler handler;
+    private final GeemeeSimulatedBackend backend;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // placementId -> waiter for the next terminal callback of that placement
+    private final ConcurrentHashMap<String, Waiter> waiters = new ConcurrentHashMap<>();
+
+    private final GeemeeMetrics.Histogram methodCall = new GeemeeMetrics.Histogram();
+    private final GeemeeMetrics.Histogram loadToReady = new GeemeeMetrics.Histogram();
+    private final GeemeeMetrics.Histogram showToClose = new GeemeeMetrics.Histogram();
+    private final GeemeeMetrics.Histogram cycle = new GeemeeMetrics.Histogram();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong showFailures = new AtomicLong();
+    private final AtomicLong methodErrors = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong callbacks = new AtomicLong();
+
+    private static final class Waiter {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<String> event = new AtomicReference<>();
+        final String[] terminalEvents;
+
+        Waiter(String... terminalEvents) {
+            this.terminalEvents = terminalEvents;
+        }
+
+        boolean offer(String e) {
+            for (String terminal : terminalEvents) {
+                if (terminal.equals(e) && event.compareAndSet(null, e)) {
+                    latch.countDown();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    GeemeeLoadGenerator(MethodChannel.MethodCallHandler handler, GeemeeSimulatedBackend backend) {
+        this.handler = handler;
+        this.backend = backend;
+    }
+
+    /** Runs {@code cycles} cycles spread over {@code concurrency} workers and returns the report. */
+    Map<String, Object> run(int cycles, int concurrency) throws InterruptedException {
+        int workers = Math.max(1, concurrency);
+        backend.setListener((event, placementId) -> {
+            callbacks.incrementAndGet();
+            if (placementId == null) return;
+            Waiter waiter = waiters.get(placementId);
+            if (waiter != null) waiter.offer(event);
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        long startNanos = System.nanoTime();
+        try {
+            for (int w = 0; w < workers; w++) {
+                final int worker = w;
+                final int share = cycles / workers + (w < cycles % workers ? 1 : 0);
+                pool.execute(() -> {
+                    for (int c = 0; c < share && !Thread.currentThread().isInterrupted(); c++) {
+                        runCycle(worker);
+                    }
+                });
+            }
+            pool.shutdown();
+            // generous bound: every step of every cycle timing out
+            pool.awaitTermination((long) cycles * CALLBACK_TIMEOUT_MS * 2 / workers + 60_000L, TimeUnit.MILLISECONDS);
+        } finally {
+            pool.shutdownNow();
+            backend.setListener(null);
+        }
+        long durationNanos = System.nanoTime() - startNanos;
+
+        Map<String, Object> report = new HashMap<>();
+        report.put("cycles", cycles);
+        report.put("concurrency", workers);
+        report.put("completed", completed.get());
+        report.put("loadFailures", loadFailures.get());
+        report.put("showFailures", showFailures.get());
+        report.put("methodErrors", methodErrors.get());
+        report.put("timeouts", timeouts.get());
+        report.put("callbacks", callbacks.get());
+        report.put("durationMs", durationNanos / 1_000_000L);
+        report.put("cyclesPerSecond", durationNanos == 0 ? 0.0 : completed.get() * 1e9 / durationNanos);
+        report.put("methodCall", methodCall.snapshot());
+        report.put("loadToReady", loadToReady.snapshot());
+        report.put("showToClose", showToClose.snapshot());
+        report.put("cycle", cycle.snapshot());
+        return report;
+    }
+
+    private void runCycle(int worker) {
+        long cycleStart = System.nanoTime();
+        String banner = "sim_banner_" + worker;
+        String interstitial = "sim_interstitial_" + worker;
+
+        Map<String, Object> bannerArgs = new HashMap<>();
+        bannerArgs.put("placementId", banner);
+        bannerArgs.put("adSize", "BANNER");
+        String loaded = callAndAwait(new MethodCall("loadBanner", bannerArgs), banner, loadToReady,
+                "onBannerReady", "onBannerLoadFailed");
+        if (!"onBannerReady".equals(loaded)) {
+            if (loaded != null) loadFailures.incrementAndGet();
+            return;
+        }
+
+        Map<String, Object> queryArgs = new HashMap<>();
+        queryArgs.put("placementId", banner);
+        call(new MethodCall("isBannerReady", queryArgs));
+
+        Map<String, Object> showArgs = new HashMap<>();
+        showArgs.put("placementId", interstitial);
+        String closed = callAndAwait(new MethodCall("showInterstitial", showArgs), interstitial, showToClose,
+                "onInterstitialClose", "onInterstitialOpenFailed");
+        if (!"onInterstitialClose".equals(closed)) {
+            if (closed != null) showFailures.incrementAndGet();
+            return;
+        }
+
+        completed.incrementAndGet();
+        cycle.recordNanos(System.nanoTime() - cycleStart);
+    }
+
+    /** Calls the method and waits for one of the terminal callbacks; returns it, or null on timeout. */
+    private String callAndAwait(MethodCall call, String placementId, GeemeeMetrics.Histogram latency,
+                                String... terminalEvents) {
+        Waiter waiter = new Waiter(terminalEvents);
+        waiters.put(placementId, waiter);
+        long start = SystemClock.elapsedRealtimeNanos();
+        try {
+            if (!call(call)) return null;
+            if (!waiter.latch.await(CALLBACK_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                return null;
+            }
+            latency.recordNanos(SystemClock.elapsedRealtimeNanos() - start);
+            return waiter.event.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            waiters.remove(placementId, waiter);
+        }
+    }
+
+    /** Invokes the handler on the thread the channels would use and waits for its reply. */
+    private boolean call(MethodCall call) {
+        CountDownLatch replied = new CountDownLatch(1);
+        boolean[] ok = new boolean[1];
+        MethodChannel.Result result = new MethodChannel.Result() {
+            @Override
+            public void success(Object value) {
+                ok[0] = true;
+                replied.countDown();
+            }
+
+            @Override
+            public void error(String errorCode, String errorMessage, Object errorDetails) {
+                methodErrors.incrementAndGet();
+                replied.countDown();
+            }
+
+            @Override
+            public void notImplemented() {
+                methodErrors.incrementAndGet();
+                replied.countDown();
+            }
+        };
+
+        long start = System.nanoTime();
+        if (GeemeeMethodPolicy.forMethod(call.method) == GeemeeMethodPolicy.ThreadPolicy.BACKGROUND) {
+            handler.onMethodCall(call, result);
+        } else {
+            mainHandler.post(() -> handler.onMethodCall(call, result));
+        }
+        try {
+            if (!replied.await(CALLBACK_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        methodCall.recordNanos(System.nanoTime() - start);
+        return ok[0];
+    }
+}
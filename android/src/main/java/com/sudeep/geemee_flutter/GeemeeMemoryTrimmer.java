@@ -0,0 +1,143 @@
+package com.sudeep.geemee_flutter;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Releases banner memory and queued work when the system asks the app to trim memory.
+ * Stages, by onTrimMemory level:
+ * 1. RUNNING_MODERATE, UI_HIDDEN: destroy the banners held in the pool (all off screen)
+ * 2. RUNNING_LOW, BACKGROUND: also drop non-critical buffered events and pending preload retries
+ * 3. RUNNING_CRITICAL, MODERATE, COMPLETE and onLowMemory: also destroy the banners of live
+ *    platform views that are off screen; their containers stay empty until recreated
+ * What was released is reported as an "onTrimMemory" event.
+ *
+ * Registered on the application context by the plugin; callbacks arrive on the main thread.
+ */
+class GeemeeMemoryTrimmer implements ComponentCallbacks2 {
+    private static final String TAG = "GeemeeMemoryTrimmer";
+
+    /**
+     * A banner platform view whose SDK banner can be released under memory pressure, or
+     * detached while the host activity is stopped (see {@link GeemeeLifecycleGate}).
+     */
+    interface LiveBanner {
+        String placementId();
+
+        /** True while any part of the banner is on screen. */
+        boolean isOnScreen();
+
+        /** Detaches the SDK view and hands it back to the pool; returns false if there was none. */
+        boolean releaseBanner();
+
+        /** Takes the SDK view out of its container but keeps it; returns false if there was none. */
+        boolean detachBanner();
+
+        /** Puts a detached SDK view back into its container; no-op if it was released meanwhile. */
+        void reattachBanner();
+    }
+
+    private final GeemeeBannerPool bannerPool;
+    private final GeemeeEventDispatcher eventDispatcher;
+    private final GeemeePreloadScheduler preloadScheduler;
+    // main thread only
+    private final Set<LiveBanner> liveBanners = new LinkedHashSet<>();
+
+    GeemeeMemoryTrimmer(GeemeeBannerPool bannerPool, GeemeeEventDispatcher eventDispatcher,
+                        GeemeePreloadScheduler preloadScheduler) {
+        this.bannerPool = bannerPool;
+        this.eventDispatcher = eventDispatcher;
+        this.preloadScheduler = preloadScheduler;
+    }
+
+    void register(LiveBanner banner) {
+        liveBanners.add(banner);
+    }
+
+    void unregister(LiveBanner banner) {
+        liveBanners.remove(banner);
+    }
+
+    List<LiveBanner> liveBanners() {
+        return new ArrayList<>(liveBanners);
+    }
+
+    static int stageOf(int level) {
+        switch (level) {
+            case TRIM_MEMORY_RUNNING_MODERATE:
+            case TRIM_MEMORY_UI_HIDDEN:
+                return 1;
+            case TRIM_MEMORY_RUNNING_LOW:
+            case TRIM_MEMORY_BACKGROUND:
+                return 2;
+            case TRIM_MEMORY_RUNNING_CRITICAL:
+            case TRIM_MEMORY_MODERATE:
+            case TRIM_MEMORY_COMPLETE:
+                return 3;
+            default:
+                // unknown future levels: go by severity
+                return level >= TRIM_MEMORY_MODERATE ? 3 : level >= TRIM_MEMORY_BACKGROUND ? 2 : 1;
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        trim(level, stageOf(level));
+    }
+
+    @Override
+    public void onLowMemory() {
+        trim(TRIM_MEMORY_COMPLETE, 3);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {}
+
+    private void trim(int level, int stage) {
+        boolean traced = GeemeeTrace.begin("trim memory", null);
+        try {
+            int pooledReleased = bannerPool.clear();
+            List<String> liveReleased = new ArrayList<>();
+            if (stage >= 3) {
+                for (LiveBanner banner : new ArrayList<>(liveBanners)) {
+                    if (!banner.isOnScreen() && banner.releaseBanner()) {
+                        liveReleased.add(banner.placementId());
+                        liveBanners.remove(banner);
+                    }
+                }
+                // released views went back into the pool: destroy them too
+                bannerPool.clear();
+            }
+            int eventsDropped = 0;
+            int preloadsCancelled = 0;
+            if (stage >= 2) {
+                eventsDropped = eventDispatcher.trimReplayBuffer();
+                preloadsCancelled = preloadScheduler.cancelRetries();
+            }
+
+            Log.i(TAG, "onTrimMemory(" + level + "): released " + pooledReleased + " pooled and "
+                    + liveReleased.size() + " live banners, dropped " + eventsDropped + " events and "
+                    + preloadsCancelled + " preload retries");
+            Map<String, Object> report = new HashMap<>();
+            report.put("level", level);
+            report.put("stage", stage);
+            report.put("pooledBannersReleased", pooledReleased);
+            report.put("liveBannersReleased", liveReleased);
+            report.put("eventsDropped", eventsDropped);
+            report.put("preloadRetriesCancelled", preloadsCancelled);
+            eventDispatcher.send("onTrimMemory", null, report);
+        } catch (Exception e) {
+            Log.e(TAG, "onTrimMemory(" + level + ") failed", e);
+        } finally {
+            if (traced) GeemeeTrace.end();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.sudeep.geemee_flutter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Declares which thread each method channel call runs on.
+ * BACKGROUND methods are pure queries / plugin bookkeeping and run on the background task queue;
+ * everything else (anything that touches UI or SDK state) is hopped to the main looper.
+ * Also declares which calls must wait for the SDK init to complete.
+ */
+final class GeemeeMethodPolicy {
+    enum ThreadPolicy {
+        BACKGROUND,
+        MAIN
+    }
+
+    private static final Map<String, ThreadPolicy> POLICIES = new HashMap<>();
+
+    static {
+        // pure SDK queries
+        POLICIES.put("getUserId", ThreadPolicy.BACKGROUND);
+        POLICIES.put("getVersion", ThreadPolicy.BACKGROUND);
+        POLICIES.put("isOfferWallReady", ThreadPolicy.BACKGROUND);
+        POLICIES.put("isBannerReady", ThreadPolicy.BACKGROUND);
+        POLICIES.put("isInterstitialReady", ThreadPolicy.BACKGROUND);
+        POLICIES.put("isUserCenterReady", ThreadPolicy.BACKGROUND);
+        POLICIES.put("getReadiness", ThreadPolicy.BACKGROUND);
+        POLICIES.put("getPlacementStates", ThreadPolicy.BACKGROUND);
+        POLICIES.put("getMetrics", ThreadPolicy.BACKGROUND);
+
+        // plugin-only state, thread-safe by construction
+        POLICIES.put("configureEventBuffer", ThreadPolicy.BACKGROUND);
+        POLICIES.put("setEventTransport", ThreadPolicy.BACKGROUND);
+        POLICIES.put("setEventFilter", ThreadPolicy.BACKGROUND);
+        POLICIES.put("getInitState", ThreadPolicy.BACKGROUND);
+        POLICIES.put("setTracing", ThreadPolicy.BACKGROUND);
+        POLICIES.put("configureCircuitBreaker", ThreadPolicy.BACKGROUND);
+        POLICIES.put("configureEventLog", ThreadPolicy.BACKGROUND);
+        POLICIES.put("exportEventLog", ThreadPolicy.BACKGROUND);
+        POLICIES.put("setBackgroundPolicy", ThreadPolicy.BACKGROUND);
+        POLICIES.put("configureStallWatchdog", ThreadPolicy.BACKGROUND);
+        POLICIES.put("registerPlacements", ThreadPolicy.BACKGROUND);
+        POLICIES.put("configurePreload", ThreadPolicy.BACKGROUND);
+        POLICIES.put("configurePlacementGroup", ThreadPolicy.BACKGROUND);
+        POLICIES.put("configureBannerRefresh", ThreadPolicy.BACKGROUND);
+        // starts its own thread for the run
+        POLICIES.put("runLoadTest", ThreadPolicy.BACKGROUND);
+
+        // SDK calls that create or show UI, or mutate SDK state, and main-thread-only plugin state
+        POLICIES.put("initSDK", ThreadPolicy.MAIN);
+        POLICIES.put("setUserId", ThreadPolicy.MAIN);
+        POLICIES.put("setDebugMode", ThreadPolicy.MAIN);
+        POLICIES.put("openOfferWall", ThreadPolicy.MAIN);
+        POLICIES.put("loadBanner", ThreadPolicy.MAIN);
+        POLICIES.put("destroyBanner", ThreadPolicy.MAIN);
+        POLICIES.put("prewarmBanners", ThreadPolicy.MAIN);
+        POLICIES.put("configureBannerPool", ThreadPolicy.MAIN);
+        POLICIES.put("getBannerPoolStats", ThreadPolicy.MAIN);
+        POLICIES.put("showInterstitial", ThreadPolicy.MAIN);
+        POLICIES.put("openUserCenter", ThreadPolicy.MAIN);
+        POLICIES.put("presentAndWait", ThreadPolicy.MAIN);
+        POLICIES.put("loadPlacementGroup", ThreadPolicy.MAIN);
+        POLICIES.put("configureSimulatedBackend", ThreadPolicy.MAIN);
+        POLICIES.put("createTextureBanner", ThreadPolicy.MAIN);
+        POLICIES.put("dispatchTextureBannerTouch", ThreadPolicy.MAIN);
+        POLICIES.put("disposeTextureBanner", ThreadPolicy.MAIN);
+    }
+
+    private GeemeeMethodPolicy() {}
+
+    // calls that need an initialized SDK; made earlier, they wait for init (see GeemeeInitGate)
+    private static final Set<String> REQUIRES_INIT = new HashSet<>(Arrays.asList(
+            "isOfferWallReady",
+            "openOfferWall",
+            "loadBanner",
+            "isBannerReady",
+            "destroyBanner",
+            "prewarmBanners",
+            "createTextureBanner",
+            "isInterstitialReady",
+            "showInterstitial",
+            "isUserCenterReady",
+            "openUserCenter",
+            "presentAndWait",
+            "loadPlacementGroup",
+            "getReadiness"));
+
+    /** Unknown methods default to MAIN, the thread every call used to run on. */
+    static ThreadPolicy forMethod(String method) {
+        ThreadPolicy policy = method != null ? POLICIES.get(method) : null;
+        return policy != null ? policy : ThreadPolicy.MAIN;
+    }
+
+    static boolean requiresInit(String method) {
+        return method != null && REQUIRES_INIT.contains(method);
+    }
+
+    /** Every method with a declared policy, i.e. the plugin's method channel API. */
+    static Set<String> methods() {
+        return Collections.unmodifiableSet(POLICIES.keySet());
+    }
+}
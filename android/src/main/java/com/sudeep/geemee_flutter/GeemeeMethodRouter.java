@@ -0,0 +1,36 @@
+package com.sudeep.geemee_flutter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import io.flutter.plugin.common.MethodCall;
+import io.flutter.plugin.common.MethodChannel.Result;
+
+/**
+ * Routes method channel calls to their handlers by method name; unknown methods reply
+ * notImplemented. Handlers are registered once, when the plugin is created, so dispatch is a
+ * single map lookup. Android-free, so the dispatch path can be benchmarked on a plain JVM.
+ */
+final class GeemeeMethodRouter {
+    interface MethodHandler {
+        void handle(MethodCall call, Result result) throws Exception;
+    }
+
+    private final Map<String, MethodHandler> handlers = new HashMap<>();
+
+    /** Registers the handler for a method, replacing any previous one. */
+    GeemeeMethodRouter on(String method, MethodHandler handler) {
+        handlers.put(method, handler);
+        return this;
+    }
+
+    /** Runs the call's handler; exceptions it throws reach the caller. */
+    void dispatch(MethodCall call, Result result) throws Exception {
+        MethodHandler handler = call.method != null ? handlers.get(call.method) : null;
+        if (handler == null) {
+            result.notImplemented();
+            return;
+        }
+        handler.handle(call, result);
+    }
+}
@@ -0,0 +1,173 @@
+package com.sudeep.geemee_flutter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Low-overhead latency and failure metrics for the plugin.
+ * - histograms use fixed power-of-two microsecond buckets; recording is a few atomic adds, no allocation
+ * - method histograms are created once per method name and reused afterwards
+ * - placement latencies (load -> ready, show -> open) live on the placement state table entries
+ *
+ * Safe to record from any thread.
+ */
+class GeemeeMetrics {
+
+    /** Lock-free histogram of durations in microseconds; bucket i holds values in [2^(i-1), 2^i). */
+    static final class Histogram {
+        private static final int BUCKETS = 40;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sumUs = new AtomicLong();
+        private final AtomicLong maxUs = new AtomicLong();
+
+        void recordNanos(long nanos) {
+            recordMicros(nanos / 1_000L);
+        }
+
+        void recordMillis(long millis) {
+            recordMicros(millis * 1_000L);
+        }
+
+        void recordMicros(long micros) {
+            if (micros < 0) micros = 0;
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+            sumUs.addAndGet(micros);
+            long max;
+            while (micros > (max = maxUs.get()) && !maxUs.compareAndSet(max, micros)) {
+                // retry until our value is stored or a larger one won
+            }
+        }
+
+        long count() {
+            return count.get();
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+            count.set(0);
+            sumUs.set(0);
+            maxUs.set(0);
+        }
+
+        /** {count, meanUs, maxUs, p50Us, p90Us, p99Us}; percentiles are bucket upper bounds. */
+        Map<String, Object> snapshot() {
+            long[] copy = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                copy[i] = buckets.get(i);
+                total += copy[i];
+            }
+            Map<String, Object> m = new HashMap<>();
+            m.put("count", total);
+            m.put("meanUs", total == 0 ? 0 : sumUs.get() / total);
+            m.put("maxUs", maxUs.get());
+            m.put("p50Us", percentile(copy, total, 0.50));
+            m.put("p90Us", percentile(copy, total, 0.90));
+            m.put("p99Us", percentile(copy, total, 0.99));
+            return m;
+        }
+
+        private static long percentile(long[] buckets, long total, double q) {
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(q * total);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) return i == 0 ? 0 : (1L << i) - 1;
+            }
+            return Long.MAX_VALUE;
+        }
+    }
+
+    // counters
+    static final String EVENTS_DELIVERED = "eventsDelivered";
+    static final String EVENTS_DROPPED = "eventsDropped";
+    static final String METHOD_FAILURES = "methodFailures";
+    static final String BANNER_PLACEHOLDERS = "bannerPlaceholders";
+    static final String EVENTS_FILTERED = "eventsFiltered";
+    static final String BANNER_REFRESHES = "bannerRefreshes";
+    static final String BANNER_REFRESH_FAILURES = "bannerRefreshFailures";
+
+    private final ConcurrentHashMap<String, Histogram> methods = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> methodFailures = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    final Histogram initToReady = new Histogram();
+    final Histogram bannerCreate = new Histogram();
+    private final AtomicLong initStartedAtNanos = new AtomicLong();
+
+    Histogram method(String name) {
+        Histogram h = methods.get(name);
+        if (h != null) return h;
+        // putIfAbsent rather than computeIfAbsent: the latter needs API 24 without desugaring
+        Histogram created = new Histogram();
+        h = methods.putIfAbsent(name, created);
+        return h != null ? h : created;
+    }
+
+    void recordMethod(String name, long durationNanos) {
+        method(name).recordNanos(durationNanos);
+    }
+
+    void recordMethodFailure(String name) {
+        counter(methodFailures, name).incrementAndGet();
+        increment(METHOD_FAILURES, 1);
+    }
+
+    void increment(String counter, long delta) {
+        counter(counters, counter).addAndGet(delta);
+    }
+
+    void onInitStarted() {
+        initStartedAtNanos.set(System.nanoTime());
+    }
+
+    void onInitFinished() {
+        long started = initStartedAtNanos.getAndSet(0);
+        if (started != 0) initToReady.recordNanos(System.nanoTime() - started);
+    }
+
+    void reset() {
+        for (Histogram h : methods.values()) h.reset();
+        for (AtomicLong c : methodFailures.values()) c.set(0);
+        for (AtomicLong c : counters.values()) c.set(0);
+        initToReady.reset();
+        bannerCreate.reset();
+    }
+
+    /** Method and plugin-wide metrics; placement latencies are added by the caller. */
+    Map<String, Object> snapshot() {
+        Map<String, Object> methodStats = new HashMap<>();
+        for (Map.Entry<String, Histogram> e : methods.entrySet()) {
+            if (e.getValue().count() == 0) continue;
+            Map<String, Object> m = e.getValue().snapshot();
+            AtomicLong failures = methodFailures.get(e.getKey());
+            m.put("failures", failures != null ? failures.get() : 0L);
+            methodStats.put(e.getKey(), m);
+        }
+        Map<String, Object> counterStats = new HashMap<>();
+        for (Map.Entry<String, AtomicLong> e : counters.entrySet()) {
+            counterStats.put(e.getKey(), e.getValue().get());
+        }
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("methods", methodStats);
+        snapshot.put("counters", counterStats);
+        snapshot.put("initToReady", initToReady.snapshot());
+        snapshot.put("bannerCreate", bannerCreate.snapshot());
+        return snapshot;
+    }
+
+    private static AtomicLong counter(ConcurrentHashMap<String, AtomicLong> map, String key) {
+        AtomicLong c = map.get(key);
+        if (c != null) return c;
+        AtomicLong created = new AtomicLong();
+        c = map.putIfAbsent(key, created);
+        return c != null ? c : created;
+    }
+}
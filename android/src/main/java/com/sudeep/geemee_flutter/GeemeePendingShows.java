@@ -0,0 +1,186 @@
+package com.sudeep.geemee_flutter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.flutter.plugin.common.MethodChannel.Result;
+
+/**
+ * Method results of full-screen shows that wait for the ad to finish (presentAndWait), keyed by
+ * format and placement:
+ * - the result completes on the placement's close or open-failed callback, with timing data
+ * - an open timeout covers an SDK that never calls back; a close timeout caps the whole show
+ * - one waiting show per placement; a second one is rejected with SHOW_IN_PROGRESS
+ *
+ * Callbacks may arrive on any thread; results are always completed on the main thread.
+ */
+final class GeemeePendingShows {
+    static final long DEFAULT_OPEN_TIMEOUT_MS = 15_000L;
+    static final long DEFAULT_CLOSE_TIMEOUT_MS = 30 * 60_000L;
+
+    static final String CLOSED = "CLOSED";
+    static final String OPEN_FAILED = "OPEN_FAILED";
+    static final String OPEN_TIMEOUT = "OPEN_TIMEOUT";
+    static final String CLOSE_TIMEOUT = "CLOSE_TIMEOUT";
+
+    /** Guarded by the table's monitor; runs (on main) when its current timeout elapses. */
+    private final class Pending implements Runnable {
+        final String format;
+        final String placementId;
+        final Result result;
+        final long requestedAtMs = System.currentTimeMillis();
+        final long requestedAtNanos = SystemClock.elapsedRealtimeNanos();
+        final long closeTimeoutMs;
+        long openedAtMs;
+        long openedAtNanos;
+
+        Pending(String format, String placementId, Result result, long closeTimeoutMs) {
+            this.format = format;
+            this.placementId = placementId;
+            this.result = result;
+            this.closeTimeoutMs = closeTimeoutMs;
+        }
+
+        @Override
+        public void run() {
+            onTimeout(this);
+        }
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, Pending> pending = new HashMap<>();
+
+    private static String key(String format, String placementId) {
+        return format + ':' + placementId;
+    }
+
+    /**
+     * Parks the result of a show about to be made. Returns false, having already failed the
+     * result, if the placement has a show waiting.
+     */
+    boolean begin(String format, String placementId, Result result, long openTimeoutMs, long closeTimeoutMs) {
+        Pending p = new Pending(format, placementId, result, Math.max(1L, closeTimeoutMs));
+        synchronized (pending) {
+            String key = key(format, placementId);
+            if (pending.containsKey(key)) {
+                result.error("SHOW_IN_PROGRESS", "A show is already waiting for " + key, null);
+                return false;
+            }
+            pending.put(key, p);
+        }
+        mainHandler.postDelayed(p, Math.max(1L, openTimeoutMs));
+        return true;
+    }
+
+    /** The show call itself threw: fail the waiting result right away. */
+    void abort(String format, String placementId, String code, String message) {
+        Pending p = remove(format, placementId);
+        if (p == null) return;
+        mainHandler.removeCallbacks(p);
+        complete(p, code, message, null);
+    }
+
+    void onOpened(String format, String placementId) {
+        Pending p;
+        synchronized (pending) {
+            p = pending.get(key(format, placementId));
+            if (p == null || p.openedAtNanos != 0) return;
+            p.openedAtMs = System.currentTimeMillis();
+            p.openedAtNanos = SystemClock.elapsedRealtimeNanos();
+        }
+        // the open timeout is over; what is left of the close timeout starts
+        mainHandler.removeCallbacks(p);
+        long elapsedMs = (p.openedAtNanos - p.requestedAtNanos) / 1_000_000L;
+        mainHandler.postDelayed(p, Math.max(1L, p.closeTimeoutMs - elapsedMs));
+    }
+
+    void onOpenFailed(String format, String placementId, String error) {
+        finish(format, placementId, OPEN_FAILED, error);
+    }
+
+    void onClosed(String format, String placementId) {
+        finish(format, placementId, CLOSED, null);
+    }
+
+    private void finish(String format, String placementId, String outcome, String error) {
+        Pending p = remove(format, placementId);
+        if (p == null) return;
+        mainHandler.removeCallbacks(p);
+        complete(p, null, null, outcome(p, outcome, error));
+    }
+
+    private void onTimeout(Pending p) {
+        synchronized (pending) {
+            String key = key(p.format, p.placementId);
+            if (pending.get(key) != p) return;
+            pending.remove(key);
+        }
+        complete(p, null, null, outcome(p, p.openedAtNanos == 0 ? OPEN_TIMEOUT : CLOSE_TIMEOUT, null));
+    }
+
+    private Pending remove(String format, String placementId) {
+        synchronized (pending) {
+            return pending.remove(key(format, placementId));
+        }
+    }
+
+    private static Map<String, Object> outcome(Pending p, String outcome, String error) {
+        long nowMs = System.currentTimeMillis();
+        long nowNanos = SystemClock.elapsedRealtimeNanos();
+        Map<String, Object> map = new HashMap<>();
+        map.put("outcome", outcome);
+        map.put("format", p.format);
+        map.put("placementId", p.placementId);
+        map.put("requestedAt", p.requestedAtMs);
+        map.put("totalMs", (nowNanos - p.requestedAtNanos) / 1_000_000.0);
+        if (p.openedAtNanos != 0) {
+            map.put("openedAt", p.openedAtMs);
+            map.put("openLatencyMs", (p.openedAtNanos - p.requestedAtNanos) / 1_000_000.0);
+            map.put("shownMs", (nowNanos - p.openedAtNanos) / 1_000_000.0);
+        }
+        map.put(CLOSED.equals(outcome) ? "closedAt" : "endedAt", nowMs);
+        if (error != null) map.put("error", error);
+        return map;
+    }
+
+    /** Completes on main; errorCode != null fails the result instead. */
+    private void complete(final Pending p, final String errorCode, final String message, final Map<String, Object> value) {
+        Runnable reply = () -> {
+            if (errorCode != null) {
+                p.result.error(errorCode, message, null);
+            } else {
+                p.result.success(value);
+            }
+        };
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            reply.run();
+        } else {
+            mainHandler.post(reply);
+        }
+    }
+
+    /** Fails every waiting show, e.g. when the engine detaches. */
+    void clear(String code, String message) {
+        List<Pending> dropped;
+        synchronized (pending) {
+            dropped = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        for (Pending p : dropped) {
+            mainHandler.removeCallbacks(p);
+            complete(p, code, message, null);
+        }
+    }
+
+    int size() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+}
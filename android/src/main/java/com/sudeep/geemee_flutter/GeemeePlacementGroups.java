@@ -0,0 +1,446 @@
+package com.sudeep.geemee_flutter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ai.geemee.AdSize;
+
+/**
+ * Banner placement groups: several placements configured as fallbacks for one slot.
+ * - loading a group loads its members concurrently, in priority order, within maxConcurrentLoads;
+ *   a member that fails or times out frees its slot for the next one
+ * - FIRST_READY picks the first member to report ready; PRIORITY picks the highest-priority
+ *   member that is ready once every member above it has failed
+ * - once a winner is picked, members not started yet are skipped and loaded losers are released
+ *   through the loader (destroyBanner), including loads that only finish later (timed out ones too)
+ *   within the member's load timeout - unless someone else requested a load of the placement since
+ *   (see {@link #onLoadRequested}), in which case the banner is theirs
+ * - a banner view created with the group id takes the winner; a view created while the group is
+ *   still loading waits for it
+ *
+ * Entry points may be called from any thread (SDK callbacks included); state lives on the main thread,
+ * which publishes an immutable copy of it for {@link #snapshot()}.
+ */
+final class GeemeePlacementGroups {
+    private static final String TAG = "GeemeePlacementGroups";
+
+    static final int DEFAULT_MAX_CONCURRENT_LOADS = 2;
+    static final long DEFAULT_LOAD_TIMEOUT_MS = 30_000L;
+
+    enum Strategy {
+        FIRST_READY,
+        PRIORITY
+    }
+
+    interface Loader {
+        boolean isReady(String placementId);
+
+        /** Starts a load; returns false if it was refused (e.g. the placement's circuit is open). */
+        boolean load(String placementId, AdSize adSize);
+
+        void release(String placementId);
+    }
+
+    interface Listener {
+        /** winner is null if every member failed. */
+        void onGroupResolved(String groupId, String winner, Map<String, Object> data);
+    }
+
+    /** Called on the main thread with the winning placement, or null. */
+    interface WinnerCallback {
+        void onWinner(String placementId);
+    }
+
+    private enum MemberState {
+        QUEUED,
+        LOADING,
+        READY,
+        FAILED
+    }
+
+    private final class Member implements Runnable {
+        final Group group;
+        final String placementId;
+        MemberState state = MemberState.QUEUED;
+        long startedAtNanos;
+        // FAILED because its load timed out; the load may still finish later
+        boolean timedOut;
+
+        Member(Group group, String placementId) {
+            this.group = group;
+            this.placementId = placementId;
+        }
+
+        /** Load timeout. */
+        @Override
+        public void run() {
+            if (state != MemberState.LOADING) return;
+            Log.w(TAG, "Group " + group.id + " load timed out for placement " + placementId);
+            state = MemberState.FAILED;
+            timedOut = true;
+            update(group);
+            publish();
+        }
+    }
+
+    private static final class Group {
+        final String id;
+        final AdSize adSize;
+        final Strategy strategy;
+        final int maxConcurrentLoads;
+        final long loadTimeoutMs;
+        final List<Member> members = new ArrayList<>();
+        boolean loading = false;
+        long loadStartedAtNanos;
+        // picked and not yet taken by a banner view
+        String winner;
+        final List<WinnerCallback> loadCallbacks = new ArrayList<>();
+        final List<WinnerCallback> waitingViews = new ArrayList<>();
+
+        Group(String id, AdSize adSize, Strategy strategy, int maxConcurrentLoads, long loadTimeoutMs) {
+            this.id = id;
+            this.adSize = adSize;
+            this.strategy = strategy;
+            this.maxConcurrentLoads = Math.max(1, maxConcurrentLoads);
+            this.loadTimeoutMs = Math.max(1L, loadTimeoutMs);
+        }
+    }
+
+    private final Loader loader;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // main thread only
+    private final Map<String, Group> groups = new HashMap<>();
+    // losers still loading (or timed out) when their group was decided, with the elapsedRealtime
+    // deadline of their load; released if they report ready before it
+    private final Map<String, Long> releaseOnReady = new HashMap<>();
+    // immutable, replaced by the main thread after every change; read by snapshot() from any thread
+    private volatile Map<String, Object> published = Collections.emptyMap();
+
+    GeemeePlacementGroups(Loader loader, Listener listener) {
+        this.loader = loader;
+        this.listener = listener;
+    }
+
+    /** Defines or replaces a group; members are in priority order. Empty members remove it. */
+    void configure(String groupId, List<String> placementIds, AdSize adSize, Strategy strategy,
+                   int maxConcurrentLoads, long loadTimeoutMs) {
+        List<String> members = new ArrayList<>(placementIds);
+        runOnMain(() -> {
+            Group previous = groups.remove(groupId);
+            if (previous != null) abandon(previous);
+            if (!members.isEmpty()) {
+                Group group = new Group(groupId, adSize, strategy, maxConcurrentLoads, loadTimeoutMs);
+                for (String placementId : members) {
+                    group.members.add(new Member(group, placementId));
+                }
+                groups.put(groupId, group);
+            }
+            publish();
+        });
+    }
+
+    /**
+     * Loads the group's members; callback gets the winner, or null if none became ready.
+     * A group that is loading already, or whose winner was not taken yet, just reports that.
+     */
+    void load(String groupId, WinnerCallback callback) {
+        runOnMain(() -> {
+            Group group = groups.get(groupId);
+            if (group == null) {
+                Log.w(TAG, "load: unknown placement group " + groupId);
+                callback.onWinner(null);
+                return;
+            }
+            if (group.winner != null) {
+                callback.onWinner(group.winner);
+                return;
+            }
+            group.loadCallbacks.add(callback);
+            if (group.loading) return;
+
+            group.loading = true;
+            group.loadStartedAtNanos = SystemClock.elapsedRealtimeNanos();
+            for (Member member : group.members) {
+                releaseOnReady.remove(member.placementId);
+                member.startedAtNanos = 0;
+                member.timedOut = false;
+                member.state = loader.isReady(member.placementId) ? MemberState.READY : MemberState.QUEUED;
+            }
+            update(group);
+            publish();
+        });
+    }
+
+    /**
+     * Hands the group's winner to a banner view, which takes it: the next view needs a new load.
+     * While the group is loading, the callback waits for the outcome.
+     */
+    void takeWinner(String groupId, WinnerCallback callback) {
+        runOnMain(() -> {
+            Group group = groups.get(groupId);
+            if (group == null) {
+                Log.w(TAG, "takeWinner: unknown placement group " + groupId);
+                callback.onWinner(null);
+            } else if (group.winner != null) {
+                String winner = group.winner;
+                group.winner = null;
+                publish();
+                callback.onWinner(winner);
+            } else if (group.loading) {
+                group.waitingViews.add(callback);
+            } else {
+                callback.onWinner(null);
+            }
+        });
+    }
+
+    /** A winner taken by a view that went away before using it. Main thread. */
+    void putBack(String groupId, String placementId) {
+        Group group = groups.get(groupId);
+        if (group != null && group.winner == null && !group.loading) {
+            group.winner = placementId;
+            publish();
+        }
+    }
+
+    void onBannerReady(String placementId) {
+        runOnMain(() -> {
+            Long releaseDeadline = releaseOnReady.remove(placementId);
+            if (releaseDeadline != null && SystemClock.elapsedRealtime() <= releaseDeadline) {
+                loader.release(placementId);
+                return;
+            }
+            for (Group group : groups.values()) {
+                Member member = member(group, placementId);
+                // a member that timed out may still come in while its group is loading
+                if (member == null || !group.loading || member.state == MemberState.READY) continue;
+                mainHandler.removeCallbacks(member);
+                member.state = MemberState.READY;
+                member.timedOut = false;
+                update(group);
+            }
+            publish();
+        });
+    }
+
+    /**
+     * Any banner load of the placement is about to start (the group's own included). The next ready
+     * callback belongs to that load, so a loser waiting to be released is forgotten.
+     */
+    void onLoadRequested(String placementId) {
+        runOnMain(() -> releaseOnReady.remove(placementId));
+    }
+
+    void onBannerLoadFailed(String placementId) {
+        runOnMain(() -> {
+            releaseOnReady.remove(placementId);
+            for (Group group : groups.values()) {
+                Member member = member(group, placementId);
+                if (member == null || member.state != MemberState.LOADING) continue;
+                mainHandler.removeCallbacks(member);
+                member.state = MemberState.FAILED;
+                update(group);
+            }
+            publish();
+        });
+    }
+
+    /** Groups and their state, for getMetrics; safe to call from any thread. */
+    Map<String, Object> snapshot() {
+        return published;
+    }
+
+    /** Replaces the published snapshot with the current state. Main thread. */
+    private void publish() {
+        Map<String, Object> snapshot = new HashMap<>();
+        for (Group group : groups.values()) {
+            Map<String, Object> g = new HashMap<>();
+            g.put("loading", group.loading);
+            g.put("winner", group.winner);
+            List<String> states = new ArrayList<>();
+            for (Member member : group.members) {
+                states.add(member.placementId + ":" + member.state.name());
+            }
+            g.put("members", Collections.unmodifiableList(states));
+            snapshot.put(group.id, Collections.unmodifiableMap(g));
+        }
+        published = Collections.unmodifiableMap(snapshot);
+    }
+
+    /** Drops every group; their callers and views get no winner and loaded members are released. */
+    void clear() {
+        runOnMain(() -> {
+            for (Group group : groups.values()) {
+                abandon(group);
+            }
+            groups.clear();
+            releaseOnReady.clear();
+            publish();
+        });
+    }
+
+    private static Member member(Group group, String placementId) {
+        for (Member member : group.members) {
+            if (member.placementId.equals(placementId)) return member;
+        }
+        return null;
+    }
+
+    /** Picks a winner if there is one, otherwise starts queued members within the cap. Main thread. */
+    private void update(Group group) {
+        if (!group.loading) return;
+        Member winner = null;
+        for (Member member : group.members) {
+            if (member.state == MemberState.READY) {
+                winner = member;
+                break;
+            }
+            // PRIORITY: a higher-priority member may still come in
+            if (member.state != MemberState.FAILED && group.strategy == Strategy.PRIORITY) break;
+        }
+        if (winner != null) {
+            resolve(group, winner);
+            return;
+        }
+
+        int loading = 0;
+        for (Member member : group.members) {
+            if (member.state == MemberState.LOADING) loading++;
+        }
+        for (Member member : group.members) {
+            if (loading >= group.maxConcurrentLoads) break;
+            if (member.state != MemberState.QUEUED) continue;
+            if (startLoad(group, member)) {
+                loading++;
+            }
+        }
+        // every member failed
+        if (loading == 0 && !hasQueued(group)) resolve(group, null);
+    }
+
+    private static boolean hasQueued(Group group) {
+        for (Member member : group.members) {
+            if (member.state == MemberState.QUEUED) return true;
+        }
+        return false;
+    }
+
+    private boolean startLoad(Group group, Member member) {
+        boolean started = false;
+        try {
+            started = loader.load(member.placementId, group.adSize);
+        } catch (Exception e) {
+            Log.e(TAG, "Group " + group.id + " load threw for placement " + member.placementId, e);
+        }
+        if (!started) {
+            member.state = MemberState.FAILED;
+            return false;
+        }
+        member.state = MemberState.LOADING;
+        member.startedAtNanos = SystemClock.elapsedRealtimeNanos();
+        mainHandler.postDelayed(member, group.loadTimeoutMs);
+        return true;
+    }
+
+    private void resolve(Group group, Member winner) {
+        group.loading = false;
+        long now = SystemClock.elapsedRealtime();
+        int loaded = 0;
+        int failed = 0;
+        for (Member member : group.members) {
+            mainHandler.removeCallbacks(member);
+            if (member == winner) continue;
+            switch (member.state) {
+                case READY:
+                    loaded++;
+                    loader.release(member.placementId);
+                    break;
+                case LOADING:
+                    releaseOnReady.put(member.placementId, now + group.loadTimeoutMs);
+                    break;
+                case FAILED:
+                    failed++;
+                    // its load may still land: release it then, like a loser still loading
+                    if (member.timedOut) releaseOnReady.put(member.placementId, now + group.loadTimeoutMs);
+                    break;
+                default:
+                    break;
+            }
+            member.state = MemberState.QUEUED;
+            member.timedOut = false;
+        }
+
+        String winnerId = winner != null ? winner.placementId : null;
+        Map<String, Object> data = new HashMap<>();
+        data.put("groupId", group.id);
+        data.put("placementId", winnerId);
+        data.put("latencyMs", (SystemClock.elapsedRealtimeNanos() - group.loadStartedAtNanos) / 1_000_000.0);
+        if (winner != null && winner.startedAtNanos != 0) {
+            data.put("winnerLoadMs", (SystemClock.elapsedRealtimeNanos() - winner.startedAtNanos) / 1_000_000.0);
+        }
+        data.put("released", loaded);
+        data.put("failed", failed);
+
+        // a view already waiting takes the winner; otherwise it is kept for the next view
+        List<WinnerCallback> views = new ArrayList<>(group.waitingViews);
+        group.waitingViews.clear();
+        group.winner = views.isEmpty() ? winnerId : null;
+        List<WinnerCallback> callbacks = new ArrayList<>(group.loadCallbacks);
+        group.loadCallbacks.clear();
+
+        listener.onGroupResolved(group.id, winnerId, data);
+        for (WinnerCallback callback : callbacks) {
+            callback.onWinner(winnerId);
+        }
+        for (int i = 0; i < views.size(); i++) {
+            views.get(i).onWinner(i == 0 ? winnerId : null);
+        }
+    }
+
+    /**
+     * A group replaced or cleared: its callers and views get no winner, and its loaded members
+     * (the untaken winner included) are released like losers.
+     */
+    private void abandon(Group group) {
+        long now = SystemClock.elapsedRealtime();
+        for (Member member : group.members) {
+            mainHandler.removeCallbacks(member);
+            if (group.loading && member.state == MemberState.READY) {
+                loader.release(member.placementId);
+            } else if (group.loading && (member.state == MemberState.LOADING || member.timedOut)) {
+                releaseOnReady.put(member.placementId, now + group.loadTimeoutMs);
+            }
+        }
+        if (group.winner != null) {
+            loader.release(group.winner);
+            group.winner = null;
+        }
+        group.loading = false;
+        for (WinnerCallback callback : group.loadCallbacks) {
+            callback.onWinner(null);
+        }
+        for (WinnerCallback callback : group.waitingViews) {
+            callback.onWinner(null);
+        }
+        group.loadCallbacks.clear();
+        group.waitingViews.clear();
+    }
+
+    private void runOnMain(Runnable runnable) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            runnable.run();
+        } else {
+            mainHandler.post(runnable);
+        }
+    }
+}
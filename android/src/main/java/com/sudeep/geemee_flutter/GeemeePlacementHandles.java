@@ -0,0 +1,92 @@
+package com.sudeep.geemee_flutter;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Small integer handles for (format, placementId) pairs, assigned by Dart and registered once
+ * through registerPlacements:
+ * - later calls send the bare handle as their arguments instead of a {"placementId": ...} map,
+ *   which saves the map decode and the string on every call
+ * - handles are indices into an array: resolving one does no hashing and allocates nothing
+ * - binary event frames carry the handle instead of the placement id (see {@link GeemeeEventCodec})
+ * Handles live as long as the engine.
+ *
+ * Lookups may run on any thread; registration is synchronized and publishes a new table.
+ */
+final class GeemeePlacementHandles {
+    /** Handles go on the binary wire as u16; the two highest values are markers there. */
+    static final int MAX_HANDLES = 0xFFFE;
+
+    static final class Entry {
+        final int handle;
+        final String format;
+        final String placementId;
+        /** banner size sent with the handle's loadBanner calls, or null */
+        final String adSize;
+
+        Entry(int handle, String format, String placementId, String adSize) {
+            this.handle = handle;
+            this.format = format;
+            this.placementId = placementId;
+            this.adSize = adSize;
+        }
+    }
+
+    private volatile Entry[] table = new Entry[0];
+    // for events, which only know the placement id; any handle of the placement will do
+    private final ConcurrentHashMap<String, Integer> byPlacement = new ConcurrentHashMap<>();
+
+    static boolean isValidHandle(int handle) {
+        return handle >= 0 && handle < MAX_HANDLES;
+    }
+
+    /**
+     * Binds a handle chosen by Dart. Dart picks the handles so that its event decoder knows them
+     * before any frame can carry one. Re-binding a handle replaces its entry.
+     */
+    synchronized void register(int handle, String format, String placementId, String adSize) {
+        if (!isValidHandle(handle)) {
+            throw new IllegalArgumentException("Placement handle out of range: " + handle);
+        }
+        if (format == null || placementId == null) {
+            throw new IllegalArgumentException("Placement handle " + handle + " needs a format and a placementId");
+        }
+        Entry[] current = table;
+        Entry[] next = new Entry[Math.max(current.length, handle + 1)];
+        System.arraycopy(current, 0, next, 0, current.length);
+        Entry previous = next[handle];
+        next[handle] = new Entry(handle, format, placementId, adSize);
+        // the placement may have another handle (e.g. another format) that events can use instead
+        if (previous != null && byPlacement.remove(previous.placementId, handle)) {
+            int other = find(next, previous.placementId);
+            if (other >= 0) byPlacement.put(previous.placementId, other);
+        }
+        byPlacement.putIfAbsent(placementId, handle);
+        table = next;
+    }
+
+    private static int find(Entry[] table, String placementId) {
+        for (Entry entry : table) {
+            if (entry != null && entry.placementId.equals(placementId)) return entry.handle;
+        }
+        return -1;
+    }
+
+    /** The entry of a handle, or null if it was never registered. */
+    Entry get(int handle) {
+        Entry[] t = table;
+        return handle >= 0 && handle < t.length ? t[handle] : null;
+    }
+
+    /** A handle registered for the placement id, or -1. */
+    int handleOf(String placementId) {
+        if (placementId == null) return -1;
+        Integer handle = byPlacement.get(placementId);
+        return handle != null ? handle : -1;
+    }
+
+    synchronized void clear() {
+        table = new Entry[0];
+        byPlacement.clear();
+    }
+}
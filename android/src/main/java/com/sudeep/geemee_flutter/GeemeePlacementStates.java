@@ -0,0 +1,305 @@
+package com.sudeep.geemee_flutter;
+
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-placement state table driven by the plugin's GeeMeeCallback and method calls.
+ * - banners have ready / failed callbacks, so their readiness is answered from the table alone
+ * - interstitials, offer walls and user centers have no ready callback: the table only knows
+ *   they're not ready while showing, and otherwise reuses a recent "ready" SDK answer for a short
+ *   time; "not ready" is never reused, since the SDK refills them on its own without telling us
+ *
+ * Transitions also drive the opt-in async trace slices "load", "show" (request to open) and
+ * "showing" (open to close) per placement, see {@link GeemeeTrace}.
+ *
+ * Safe to use from any thread: SDK callback threads, the main thread and the background task queue.
+ */
+class GeemeePlacementStates {
+    static final String BANNER = GeemeeAdFormats.BANNER;
+    static final String INTERSTITIAL = GeemeeAdFormats.INTERSTITIAL;
+    static final String OFFER_WALL = GeemeeAdFormats.OFFER_WALL;
+    static final String USER_CENTER = GeemeeAdFormats.USER_CENTER;
+
+    // how long a positive SDK readiness answer is reused for formats without a ready callback
+    private static final long OBSERVED_READY_TTL_MS = 5_000L;
+
+    enum State {
+        IDLE,
+        LOADING,
+        READY,
+        SHOWING,
+        FAILED
+    }
+
+    /** Mutable row of the table; guarded by its own monitor. Timestamps are elapsedRealtime, 0 when unset. */
+    static final class Entry {
+        final String format;
+        final String placementId;
+        State state = State.IDLE;
+        long updatedAtMs;
+        long loadRequestedAtMs;
+        long readyAtMs;
+        long showRequestedAtMs;
+        long openedAtMs;
+        long closedAtMs;
+        long failedAtMs;
+        String lastError;
+        // last SDK readiness answer, for formats without a ready callback
+        boolean observedReady;
+        long observedAtMs;
+        // callback-to-callback latency metrics
+        final GeemeeMetrics.Histogram loadToReady = new GeemeeMetrics.Histogram();
+        final GeemeeMetrics.Histogram showToOpen = new GeemeeMetrics.Histogram();
+        boolean showPending;
+        long failureCount;
+        // async trace slices currently open for this placement
+        boolean loadTraced;
+        boolean showTraced;
+        boolean showingTraced;
+
+        Entry(String format, String placementId) {
+            this.format = format;
+            this.placementId = placementId;
+        }
+
+        private String traceLabel() {
+            return format + ':' + placementId;
+        }
+
+        private int traceCookie() {
+            return System.identityHashCode(this);
+        }
+
+        void endLoadSlice() {
+            if (!loadTraced) return;
+            loadTraced = false;
+            GeemeeTrace.endAsync("load", traceLabel(), traceCookie());
+        }
+
+        void endShowSlice() {
+            if (!showTraced) return;
+            showTraced = false;
+            GeemeeTrace.endAsync("show", traceLabel(), traceCookie());
+        }
+
+        void endShowingSlice() {
+            if (!showingTraced) return;
+            showingTraced = false;
+            GeemeeTrace.endAsync("showing", traceLabel(), traceCookie());
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private static String key(String format, String placementId) {
+        return format + ':' + placementId;
+    }
+
+    Entry entry(String format, String placementId) {
+        String key = key(format, placementId);
+        Entry e = entries.get(key);
+        if (e != null) return e;
+        // putIfAbsent rather than computeIfAbsent: the latter needs API 24 without desugaring
+        Entry created = new Entry(format, placementId);
+        e = entries.putIfAbsent(key, created);
+        return e != null ? e : created;
+    }
+
+    /* ---------- transitions ---------- */
+
+    void onLoadRequested(String format, String placementId) {
+        Entry e = entry(format, placementId);
+        synchronized (e) {
+            long now = SystemClock.elapsedRealtime();
+            e.state = State.LOADING;
+            e.loadRequestedAtMs = now;
+            e.updatedAtMs = now;
+            e.endLoadSlice();
+            e.loadTraced = GeemeeTrace.beginAsync("load", e.traceLabel(), e.traceCookie());
+        }
+    }
+
+    void onReady(String format, String placementId) {
+        Entry e = entry(format, placementId);
+        synchronized (e) {
+            long now = SystemClock.elapsedRealtime();
+            if (e.state == State.LOADING && e.loadRequestedAtMs != 0) {
+                e.loadToReady.recordMillis(now - e.loadRequestedAtMs);
+            }
+            e.endLoadSlice();
+            e.state = State.READY;
+            e.readyAtMs = now;
+            e.updatedAtMs = now;
+            e.lastError = null;
+        }
+    }
+
+    void onShowRequested(String format, String placementId) {
+        Entry e = entry(format, placementId);
+        synchronized (e) {
+            e.showRequestedAtMs = SystemClock.elapsedRealtime();
+            e.showPending = true;
+            e.endShowSlice();
+            e.showTraced = GeemeeTrace.beginAsync("show", e.traceLabel(), e.traceCookie());
+        }
+    }
+
+    void onOpened(String format, String placementId) {
+        Entry e = entry(format, placementId);
+        synchronized (e) {
+            long now = SystemClock.elapsedRealtime();
+            if (e.showPending) {
+                e.showToOpen.recordMillis(now - e.showRequestedAtMs);
+                e.showPending = false;
+            }
+            e.endShowSlice();
+            e.endShowingSlice();
+            e.showingTraced = GeemeeTrace.beginAsync("showing", e.traceLabel(), e.traceCookie());
+            e.state = State.SHOWING;
+            e.openedAtMs = now;
+            e.updatedAtMs = now;
+            e.observedReady = false;
+        }
+    }
+
+    void onClosed(String format, String placementId) {
+        Entry e = entry(format, placementId);
+        synchronized (e) {
+            long now = SystemClock.elapsedRealtime();
+            // the ad was consumed - readiness is unknown until the SDK says otherwise
+            e.endShowingSlice();
+            e.state = State.IDLE;
+            e.closedAtMs = now;
+            e.updatedAtMs = now;
+            e.observedReady = false;
+            e.observedAtMs = 0;
+        }
+    }
+
+    void onFailed(String format, String placementId, String error) {
+        Entry e = entry(format, placementId);
+        synchronized (e) {
+            long now = SystemClock.elapsedRealtime();
+            e.endLoadSlice();
+            e.endShowSlice();
+            e.state = State.FAILED;
+            e.showPending = false;
+            e.failureCount++;
+            e.failedAtMs = now;
+            e.updatedAtMs = now;
+            e.lastError = error;
+            e.observedReady = false;
+            e.observedAtMs = 0;
+        }
+    }
+
+    void onDestroyed(String format, String placementId) {
+        Entry e = entry(format, placementId);
+        synchronized (e) {
+            e.endLoadSlice();
+            e.endShowingSlice();
+            e.state = State.IDLE;
+            e.updatedAtMs = SystemClock.elapsedRealtime();
+        }
+    }
+
+    /** Records an SDK readiness answer so the next query within the TTL doesn't cross into the SDK. */
+    void onReadinessObserved(String format, String placementId, boolean ready) {
+        if (BANNER.equals(format)) return;
+        Entry e = entry(format, placementId);
+        synchronized (e) {
+            e.observedReady = ready;
+            e.observedAtMs = SystemClock.elapsedRealtime();
+        }
+    }
+
+    /* ---------- queries ---------- */
+
+    /** Readiness known from the table, or null when only the SDK can answer. */
+    Boolean cachedReadiness(String format, String placementId) {
+        Entry e = entries.get(key(format, placementId));
+        if (e == null) return null;
+        synchronized (e) {
+            if (BANNER.equals(format)) {
+                switch (e.state) {
+                    case READY:
+                        return true;
+                    case LOADING:
+                    case FAILED:
+                        return false;
+                    default:
+                        return null;
+                }
+            }
+            if (e.state == State.SHOWING) return false;
+            // a "not ready" answer may be stale as soon as the SDK refills: ask it again
+            if (e.observedReady && SystemClock.elapsedRealtime() - e.observedAtMs < OBSERVED_READY_TTL_MS) {
+                return true;
+            }
+            return null;
+        }
+    }
+
+    /** Snapshot for Dart; timestamps are converted to wall-clock epoch milliseconds. */
+    List<Map<String, Object>> snapshot() {
+        long nowElapsed = SystemClock.elapsedRealtime();
+        long nowWall = System.currentTimeMillis();
+        List<Map<String, Object>> rows = new ArrayList<>(entries.size());
+        for (Entry e : entries.values()) {
+            Map<String, Object> row = new HashMap<>();
+            synchronized (e) {
+                row.put("format", e.format);
+                row.put("placementId", e.placementId);
+                row.put("state", e.state.name());
+                putTime(row, "updatedAt", e.updatedAtMs, nowElapsed, nowWall);
+                putTime(row, "loadRequestedAt", e.loadRequestedAtMs, nowElapsed, nowWall);
+                putTime(row, "readyAt", e.readyAtMs, nowElapsed, nowWall);
+                putTime(row, "showRequestedAt", e.showRequestedAtMs, nowElapsed, nowWall);
+                putTime(row, "openedAt", e.openedAtMs, nowElapsed, nowWall);
+                putTime(row, "closedAt", e.closedAtMs, nowElapsed, nowWall);
+                putTime(row, "failedAt", e.failedAtMs, nowElapsed, nowWall);
+                if (e.lastError != null) row.put("lastError", e.lastError);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /** Per-placement latency histograms and failure counts, keyed "FORMAT:placementId". */
+    Map<String, Object> latencySnapshot() {
+        Map<String, Object> placements = new HashMap<>();
+        for (Map.Entry<String, Entry> row : entries.entrySet()) {
+            Entry e = row.getValue();
+            Map<String, Object> m = new HashMap<>();
+            if (e.loadToReady.count() > 0) m.put("loadToReady", e.loadToReady.snapshot());
+            if (e.showToOpen.count() > 0) m.put("showToOpen", e.showToOpen.snapshot());
+            synchronized (e) {
+                if (e.failureCount > 0) m.put("failures", e.failureCount);
+            }
+            if (!m.isEmpty()) placements.put(row.getKey(), m);
+        }
+        return placements;
+    }
+
+    void resetLatencies() {
+        for (Entry e : entries.values()) {
+            e.loadToReady.reset();
+            e.showToOpen.reset();
+            synchronized (e) {
+                e.failureCount = 0;
+            }
+        }
+    }
+
+    private static void putTime(Map<String, Object> row, String key, long elapsedMs, long nowElapsed, long nowWall) {
+        if (elapsedMs != 0) {
+            row.put(key, nowWall - (nowElapsed - elapsedMs));
+        }
+    }
+}
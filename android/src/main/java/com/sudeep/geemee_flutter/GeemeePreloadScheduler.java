@@ -0,0 +1,300 @@
+package com.sudeep.geemee_flutter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import ai.geemee.AdSize;
+
+/**
+ * Native preload scheduler for banner placements:
+ * - keeps configured placements loaded, refilling them after a banner is shown or fails to show
+ * - retries failed loads with exponential backoff and jitter instead of stampeding the SDK
+ * - caps how many scheduler loads are in flight at once; loads that never complete time out
+ * - a load refused by the placement's open circuit breaker counts as a failed attempt and is
+ *   retried once the breaker allows it again
+ *
+ * Only banners can be refilled: the SDK exposes no load call for interstitials, offer walls
+ * or user centers, which it loads on its own.
+ *
+ * Nothing is loaded until the SDK reports a successful init (see {@link #setSdkReady}), and
+ * only background-exempt placements are loaded while the host activity is stopped (see {@link #pause}).
+ *
+ * Entry points may be called from any thread (SDK callbacks included); state lives on the main thread.
+ */
+class GeemeePreloadScheduler {
+    private static final String TAG = "GeemeePreloadScheduler";
+
+    static final int DEFAULT_MAX_CONCURRENT_LOADS = 2;
+    static final long DEFAULT_BASE_BACKOFF_MS = 2_000L;
+    static final long DEFAULT_MAX_BACKOFF_MS = 120_000L;
+    static final long DEFAULT_LOAD_TIMEOUT_MS = 30_000L;
+
+    private static final class Slot {
+        final String placementId;
+        final AdSize adSize;
+        boolean wanted = true;
+        boolean inFlight = false;
+        long loadStartedAtMs;
+        int failures = 0;
+        long nextAttemptAtMs = 0;
+
+        Slot(String placementId, AdSize adSize) {
+            this.placementId = placementId;
+            this.adSize = adSize;
+        }
+    }
+
+    interface Loader {
+        /**
+         * Starts a banner load; returns 0 if it was started, otherwise how many milliseconds until
+         * the placement may be tried again (its circuit breaker is open).
+         */
+        long load(String placementId, AdSize adSize);
+    }
+
+    private final GeemeePlacementStates placementStates;
+    private final Loader loader;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable pumpRunnable = this::pump;
+    private final Random random = new Random();
+
+    // main thread only
+    private final Map<String, Slot> slots = new LinkedHashMap<>();
+    private boolean enabled = false;
+    private int maxConcurrentLoads = DEFAULT_MAX_CONCURRENT_LOADS;
+    private long baseBackoffMs = DEFAULT_BASE_BACKOFF_MS;
+    private long maxBackoffMs = DEFAULT_MAX_BACKOFF_MS;
+    private long loadTimeoutMs = DEFAULT_LOAD_TIMEOUT_MS;
+    private int inFlight = 0;
+    private boolean sdkReady = false;
+    // null while running; while paused, the only placements that may start loads
+    private Set<String> pausedExempt = null;
+
+    GeemeePreloadScheduler(GeemeePlacementStates placementStates, Loader loader) {
+        this.placementStates = placementStates;
+        this.loader = loader;
+    }
+
+    /** Replaces the configuration; placements map placementId to banner size. */
+    void configure(boolean enabled, Map<String, AdSize> placements, int maxConcurrentLoads,
+                   long baseBackoffMs, long maxBackoffMs, long loadTimeoutMs) {
+        runOnMain(() -> {
+            this.enabled = enabled;
+            this.maxConcurrentLoads = Math.max(1, maxConcurrentLoads);
+            this.baseBackoffMs = Math.max(1L, baseBackoffMs);
+            this.maxBackoffMs = Math.max(this.baseBackoffMs, maxBackoffMs);
+            this.loadTimeoutMs = Math.max(1L, loadTimeoutMs);
+
+            Map<String, Slot> previous = new LinkedHashMap<>(slots);
+            slots.clear();
+            inFlight = 0;
+            for (Map.Entry<String, AdSize> e : placements.entrySet()) {
+                Slot old = previous.get(e.getKey());
+                Slot slot = new Slot(e.getKey(), e.getValue());
+                if (old != null && old.inFlight) {
+                    // keep tracking a load that's already running
+                    slot.inFlight = true;
+                    slot.loadStartedAtMs = old.loadStartedAtMs;
+                    inFlight++;
+                }
+                slots.put(e.getKey(), slot);
+            }
+            pump();
+        });
+    }
+
+    /** Loads only start while the SDK is initialized; becoming ready starts any due loads. */
+    void setSdkReady(boolean ready) {
+        runOnMain(() -> {
+            sdkReady = ready;
+            pump();
+        });
+    }
+
+    /** Starts no new loads except for the exempt placements; loads in flight complete normally. */
+    void pause(Collection<String> exempt) {
+        Set<String> copy = new HashSet<>(exempt);
+        runOnMain(() -> {
+            pausedExempt = copy;
+            pump();
+        });
+    }
+
+    /** Resumes loading; the placements in priorityOrder get the free load slots first. */
+    void resume(List<String> priorityOrder) {
+        runOnMain(() -> {
+            pausedExempt = null;
+            // pump starts loads in iteration order; re-putting a key keeps its position
+            Map<String, Slot> reordered = new LinkedHashMap<>();
+            for (String placementId : priorityOrder) {
+                Slot slot = slots.get(placementId);
+                if (slot != null) reordered.put(placementId, slot);
+            }
+            reordered.putAll(slots);
+            slots.clear();
+            slots.putAll(reordered);
+            pump();
+        });
+    }
+
+    void onBannerReady(String placementId) {
+        runOnMain(() -> {
+            Slot slot = slots.get(placementId);
+            if (slot == null) return;
+            finishLoad(slot);
+            slot.wanted = false;
+            slot.failures = 0;
+            slot.nextAttemptAtMs = 0;
+            pump();
+        });
+    }
+
+    void onBannerLoadFailed(String placementId) {
+        runOnMain(() -> {
+            Slot slot = slots.get(placementId);
+            if (slot == null) return;
+            finishLoad(slot);
+            scheduleRetry(slot);
+            pump();
+        });
+    }
+
+    /** A loaded banner was consumed (shown) or failed to show - load the next one. */
+    void onBannerConsumed(String placementId) {
+        runOnMain(() -> {
+            Slot slot = slots.get(placementId);
+            if (slot == null) return;
+            slot.wanted = true;
+            pump();
+        });
+    }
+
+    /**
+     * Memory pressure: forgets failed placements waiting for their backoff retry (they are
+     * loaded again after the next show). Main thread. Returns how many were cancelled.
+     */
+    int cancelRetries() {
+        int cancelled = 0;
+        for (Slot slot : slots.values()) {
+            if (!slot.inFlight && slot.wanted && slot.failures > 0) {
+                slot.wanted = false;
+                slot.failures = 0;
+                slot.nextAttemptAtMs = 0;
+                cancelled++;
+            }
+        }
+        if (cancelled > 0) pump();
+        return cancelled;
+    }
+
+    void stop() {
+        runOnMain(() -> {
+            mainHandler.removeCallbacks(pumpRunnable);
+            slots.clear();
+            inFlight = 0;
+            enabled = false;
+            pausedExempt = null;
+        });
+    }
+
+    private void finishLoad(Slot slot) {
+        if (slot.inFlight) {
+            slot.inFlight = false;
+            inFlight--;
+        }
+    }
+
+    private void scheduleRetry(Slot slot) {
+        slot.failures++;
+        slot.wanted = true;
+        slot.nextAttemptAtMs = SystemClock.elapsedRealtime() + backoffMs(slot.failures);
+    }
+
+    /** Exponential backoff capped at maxBackoffMs, with "equal jitter": half fixed, half random. */
+    private long backoffMs(int failures) {
+        int shift = Math.min(failures - 1, 20);
+        long backoff = Math.min(maxBackoffMs, baseBackoffMs << shift);
+        long half = backoff / 2;
+        return half + (long) (random.nextDouble() * (backoff - half));
+    }
+
+    /** Starts due loads within the concurrency cap and schedules the next wake-up. Main thread only. */
+    private void pump() {
+        mainHandler.removeCallbacks(pumpRunnable);
+        if (!enabled || !sdkReady) return;
+
+        long now = SystemClock.elapsedRealtime();
+        long nextWakeUp = Long.MAX_VALUE;
+        for (Slot slot : slots.values()) {
+            if (slot.inFlight) {
+                long deadline = slot.loadStartedAtMs + loadTimeoutMs;
+                if (now >= deadline) {
+                    Log.w(TAG, "Preload timed out for placement " + slot.placementId);
+                    finishLoad(slot);
+                    scheduleRetry(slot);
+                } else {
+                    nextWakeUp = Math.min(nextWakeUp, deadline);
+                    continue;
+                }
+            }
+            if (!slot.wanted) continue;
+            if (pausedExempt != null && !pausedExempt.contains(slot.placementId)) continue;
+            if (now < slot.nextAttemptAtMs) {
+                nextWakeUp = Math.min(nextWakeUp, slot.nextAttemptAtMs);
+                continue;
+            }
+            if (Boolean.TRUE.equals(placementStates.cachedReadiness(GeemeePlacementStates.BANNER, slot.placementId))) {
+                slot.wanted = false;
+                continue;
+            }
+            if (inFlight >= maxConcurrentLoads) continue;
+            startLoad(slot, now);
+            if (slot.inFlight) {
+                nextWakeUp = Math.min(nextWakeUp, slot.loadStartedAtMs + loadTimeoutMs);
+            } else {
+                nextWakeUp = Math.min(nextWakeUp, slot.nextAttemptAtMs);
+            }
+        }
+        if (nextWakeUp != Long.MAX_VALUE) {
+            mainHandler.postDelayed(pumpRunnable, Math.max(0L, nextWakeUp - now));
+        }
+    }
+
+    private void startLoad(Slot slot, long now) {
+        try {
+            slot.inFlight = true;
+            slot.loadStartedAtMs = now;
+            inFlight++;
+            long retryAfterMs = loader.load(slot.placementId, slot.adSize);
+            if (retryAfterMs > 0) {
+                // circuit open: a failed attempt that nothing will report; wait out the breaker
+                finishLoad(slot);
+                slot.failures++;
+                slot.wanted = true;
+                slot.nextAttemptAtMs = now + retryAfterMs;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Preload loadBanner threw for placement " + slot.placementId, e);
+            finishLoad(slot);
+            scheduleRetry(slot);
+        }
+    }
+
+    private void runOnMain(Runnable runnable) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            runnable.run();
+        } else {
+            mainHandler.post(runnable);
+        }
+    }
+}
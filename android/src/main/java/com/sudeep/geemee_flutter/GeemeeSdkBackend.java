@@ -0,0 +1,31 @@
+package com.sudeep.geemee_flutter;
+
+import android.view.View;
+
+import ai.geemee.AdSize;
+import ai.geemee.GeeMee;
+import ai.geemee.GeeMeeCallback;
+
+/** The real backend: forwards to the static GeeMee SDK API. */
+final class GeemeeSdkBackend implements GeemeeBackend {
+    static final GeemeeSdkBackend INSTANCE = new GeemeeSdkBackend();
+
+    private GeemeeSdkBackend() {}
+
+    @Override public void setCallback(GeeMeeCallback callback) { GeeMee.setCallback(callback); }
+    @Override public void initSDK(String appKey) { GeeMee.initSDK(appKey); }
+    @Override public void setUserId(String userId) { GeeMee.setUserId(userId); }
+    @Override public String getUserId() { return GeeMee.getUserId(); }
+    @Override public void debug(boolean debug) { GeeMee.debug(debug); }
+    @Override public String getVersion() { return GeeMee.getVersion(); }
+    @Override public boolean isOfferWallReady(String placementId) { return GeeMee.isOfferWallReady(placementId); }
+    @Override public void openOfferWall(String placementId) { GeeMee.openOfferWall(placementId); }
+    @Override public void loadBanner(String placementId, AdSize adSize) { GeeMee.loadBanner(placementId, adSize); }
+    @Override public boolean isBannerReady(String placementId) { return GeeMee.isBannerReady(placementId); }
+    @Override public View showBanner(String placementId) { return GeeMee.showBanner(placementId); }
+    @Override public void destroyBanner(String placementId) { GeeMee.destroyBanner(placementId); }
+    @Override public boolean isInterstitialReady(String placementId) { return GeeMee.isInterstitialReady(placementId); }
+    @Override public void showInterstitial(String placementId) { GeeMee.showInterstitial(placementId); }
+    @Override public boolean isUserCenterReady(String placementId) { return GeeMee.isUserCenterReady(placementId); }
+    @Override public void openUserCenter(String placementId) { GeeMee.openUserCenter(placementId); }
+}
@@ -0,0 +1,279 @@
+package com.sudeep.geemee_flutter;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.View;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ai.geemee.AdSize;
+import ai.geemee.GeeMeeCallback;
+
+/**
+ * Local stand-in for the GeeMee SDK, for testing the plugin's concurrency and throughput
+ * without the real SDK and network.
+ * - every asynchronous step completes after a random latency in [minLatencyMs, maxLatencyMs]
+ * - loads fill with probability fillRate; opens and init fail with probability failureRate
+ * - callbacks arrive on the main thread, one SDK-like background thread, or a pool of threads
+ * - failure callbacks carry a null GError (its constructor is not part of the public SDK API)
+ */
+class GeemeeSimulatedBackend implements GeemeeBackend {
+    private static final String TAG = "GeemeeSimulatedBackend";
+
+    enum CallbackThread {
+        MAIN,
+        SINGLE,
+        POOL
+    }
+
+    /** Observer of every simulated callback, used by the load generator. */
+    interface Listener {
+        void onCallback(String event, String placementId);
+    }
+
+    static final class Config {
+        long minLatencyMs = 20;
+        long maxLatencyMs = 200;
+        double fillRate = 0.9;
+        double failureRate = 0.05;
+        CallbackThread callbackThread = CallbackThread.POOL;
+    }
+
+    private final Context context;
+    private final Config config;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ScheduledExecutorService timer;
+    private final ExecutorService callbackExecutor;
+    private final ConcurrentHashMap<String, Boolean> bannerReady = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Boolean> interstitialShown = new ConcurrentHashMap<>();
+
+    // the simulated SDK is private to one engine, and so is its init state
+    final GeemeeInitGate initGate = new GeemeeInitGate();
+
+    private volatile GeeMeeCallback callback;
+    private volatile Listener listener;
+    private volatile boolean initialized = false;
+    private volatile String userId;
+
+    GeemeeSimulatedBackend(Context context, Config config) {
+        this.context = context;
+        this.config = config;
+        this.timer = Executors.newSingleThreadScheduledExecutor(namedThreads("geemee-sim-timer"));
+        switch (config.callbackThread) {
+            case SINGLE:
+                callbackExecutor = Executors.newSingleThreadExecutor(namedThreads("geemee-sim-callback"));
+                break;
+            case POOL:
+                callbackExecutor = Executors.newFixedThreadPool(4, namedThreads("geemee-sim-callback"));
+                break;
+            default:
+                callbackExecutor = null;
+                break;
+        }
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    void shutdown() {
+        timer.shutdownNow();
+        if (callbackExecutor != null) callbackExecutor.shutdownNow();
+    }
+
+    /* ---------- GeemeeBackend ---------- */
+
+    @Override
+    public void setCallback(GeeMeeCallback callback) {
+        this.callback = callback;
+    }
+
+    @Override
+    public void initSDK(String appKey) {
+        later("onInit", null, () -> {
+            if (roll(config.failureRate)) {
+                deliver("onInitFailed", null, cb -> cb.onInitFailed(null));
+            } else {
+                initialized = true;
+                deliver("onInitSuccess", null, GeeMeeCallback::onInitSuccess);
+            }
+        });
+    }
+
+    @Override
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    @Override
+    public String getUserId() {
+        return userId;
+    }
+
+    @Override
+    public void debug(boolean debug) {
+        Log.d(TAG, "debug(" + debug + ") ignored by the simulated backend");
+    }
+
+    @Override
+    public String getVersion() {
+        return "simulated";
+    }
+
+    @Override
+    public boolean isOfferWallReady(String placementId) {
+        return initialized;
+    }
+
+    @Override
+    public void openOfferWall(String placementId) {
+        simulateFullScreen(placementId,
+                "onOfferWallOpen", cb -> cb.onOfferWallOpen(placementId),
+                "onOfferWallOpenFailed", cb -> cb.onOfferWallOpenFailed(placementId, null),
+                "onOfferWallClose", cb -> cb.onOfferWallClose(placementId));
+    }
+
+    @Override
+    public void loadBanner(String placementId, AdSize adSize) {
+        later("loadBanner", placementId, () -> {
+            if (roll(config.fillRate)) {
+                bannerReady.put(placementId, Boolean.TRUE);
+                deliver("onBannerReady", placementId, cb -> cb.onBannerReady(placementId));
+            } else {
+                bannerReady.remove(placementId);
+                deliver("onBannerLoadFailed", placementId, cb -> cb.onBannerLoadFailed(placementId, null));
+            }
+        });
+    }
+
+    @Override
+    public boolean isBannerReady(String placementId) {
+        return bannerReady.containsKey(placementId);
+    }
+
+    @Override
+    public View showBanner(String placementId) {
+        if (bannerReady.remove(placementId) == null) return null;
+        return new View(context);
+    }
+
+    @Override
+    public void destroyBanner(String placementId) {
+        bannerReady.remove(placementId);
+    }
+
+    @Override
+    public boolean isInterstitialReady(String placementId) {
+        return initialized && !interstitialShown.containsKey(placementId);
+    }
+
+    @Override
+    public void showInterstitial(String placementId) {
+        interstitialShown.put(placementId, Boolean.TRUE);
+        simulateFullScreen(placementId,
+                "onInterstitialOpen", cb -> cb.onInterstitialOpen(placementId),
+                "onInterstitialOpenFailed", cb -> {
+                    interstitialShown.remove(placementId);
+                    cb.onInterstitialOpenFailed(placementId, null);
+                },
+                "onInterstitialClose", cb -> {
+                    // the SDK refills interstitials itself
+                    later("refill", placementId, () -> {
+                        if (roll(config.fillRate)) interstitialShown.remove(placementId);
+                    });
+                    cb.onInterstitialClose(placementId);
+                });
+    }
+
+    @Override
+    public boolean isUserCenterReady(String placementId) {
+        return initialized;
+    }
+
+    @Override
+    public void openUserCenter(String placementId) {
+        simulateFullScreen(placementId,
+                "onUserCenterOpen", cb -> cb.onUserCenterOpen(placementId),
+                "onUserCenterOpenFailed", cb -> cb.onUserCenterOpenFailed(placementId, null),
+                "onUserCenterClose", cb -> cb.onUserCenterClose(placementId));
+    }
+
+    /* ---------- simulation ---------- */
+
+    private interface Invocation {
+        void invoke(GeeMeeCallback callback);
+    }
+
+    /** open (or open failed) after one latency, close after another. */
+    private void simulateFullScreen(String placementId,
+                                    String openEvent, Invocation open,
+                                    String failedEvent, Invocation failed,
+                                    String closeEvent, Invocation close) {
+        later(openEvent, placementId, () -> {
+            if (roll(config.failureRate)) {
+                deliver(failedEvent, placementId, failed);
+                return;
+            }
+            deliver(openEvent, placementId, open);
+            later(closeEvent, placementId, () -> deliver(closeEvent, placementId, close));
+        });
+    }
+
+    private void later(String step, String placementId, Runnable runnable) {
+        long min = Math.max(0L, config.minLatencyMs);
+        long max = Math.max(min, config.maxLatencyMs);
+        long delay = min == max ? min : ThreadLocalRandom.current().nextLong(min, max + 1);
+        try {
+            timer.schedule(runnable, delay, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            Log.w(TAG, "Simulated " + step + " dropped for placement " + placementId, e);
+        }
+    }
+
+    /** Invokes the plugin's callback on the configured callback thread, then notifies the listener. */
+    private void deliver(String event, String placementId, Invocation invocation) {
+        Runnable task = () -> {
+            // the real SDK's callbacks are logged by GeemeeCallbackHub, which this backend bypasses
+            GeemeeEventLog.get().recordCallback(event, placementId);
+            GeeMeeCallback cb = callback;
+            try {
+                if (cb != null) invocation.invoke(cb);
+            } catch (Exception e) {
+                Log.e(TAG, "Callback threw for simulated " + event, e);
+            }
+            Listener l = listener;
+            if (l != null) l.onCallback(event, placementId);
+        };
+        if (callbackExecutor == null) {
+            mainHandler.post(task);
+        } else {
+            try {
+                callbackExecutor.execute(task);
+            } catch (Exception e) {
+                Log.w(TAG, "Simulated callback dropped: " + event, e);
+            }
+        }
+    }
+
+    private static boolean roll(double probability) {
+        return ThreadLocalRandom.current().nextDouble() < probability;
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread t = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
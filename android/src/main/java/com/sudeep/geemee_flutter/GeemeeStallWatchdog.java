@@ -0,0 +1,172 @@
+package com.sudeep.geemee_flutter;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opt-in watchdog for SDK calls made on the main thread (see {@link GeemeeBackend.Switch}):
+ * - times every call; a call that runs over the budget is a stall
+ * - a watcher thread wakes up when the budget runs out and, if the call is still running,
+ *   captures the main thread's stack trace - the SDK frames that are actually blocking
+ * - each stall is reported to the listener with method, placement, duration and stack
+ * - running totals are kept per method
+ *
+ * Calls on other threads can't drop frames and are not timed. begin / end are main thread only.
+ */
+final class GeemeeStallWatchdog {
+    static final long DEFAULT_BUDGET_MS = 100L;
+    private static final int MAX_STACK_FRAMES = 64;
+
+    interface Listener {
+        void onStall(Map<String, Object> stall);
+    }
+
+    private static final class Totals {
+        long stalls;
+        long totalMs;
+        long maxMs;
+    }
+
+    private final Runnable capture = this::capture;
+    private volatile boolean enabled = false;
+    private volatile long budgetMs = DEFAULT_BUDGET_MS;
+    private volatile Listener listener;
+    private HandlerThread watcherThread;
+    private volatile Handler watcher;
+
+    // the call being timed: written on the main thread, read by the watcher
+    private int lastCallId = 0;
+    private volatile int currentCallId = 0;
+    private volatile long startedAtNanos;
+    // written by the watcher for the call it captured
+    private volatile int capturedCallId = 0;
+    private volatile StackTraceElement[] capturedStack;
+
+    private final Map<String, Totals> totals = new LinkedHashMap<>();
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    synchronized void configure(boolean enabled, long budgetMs) {
+        this.budgetMs = Math.max(1L, budgetMs);
+        this.enabled = enabled;
+        if (enabled && watcherThread == null) {
+            watcherThread = new HandlerThread("geemee-stall-watchdog");
+            watcherThread.start();
+            watcher = new Handler(watcherThread.getLooper());
+        } else if (!enabled && watcherThread != null) {
+            watcherThread.quit();
+            watcherThread = null;
+            watcher = null;
+        }
+    }
+
+    /** Starts timing a call; returns a token for {@link #end}, 0 if the call isn't timed. */
+    int begin() {
+        Handler handler = watcher;
+        if (!enabled || handler == null || currentCallId != 0
+                || Looper.myLooper() != Looper.getMainLooper()) {
+            return 0;
+        }
+        int id = ++lastCallId;
+        if (id == 0) id = ++lastCallId;
+        startedAtNanos = SystemClock.elapsedRealtimeNanos();
+        currentCallId = id;
+        handler.postDelayed(capture, budgetMs);
+        return id;
+    }
+
+    /** Stops timing; reports a stall if the call ran over the budget. */
+    void end(int token, String method, String placementId) {
+        if (token == 0) return;
+        long durationNanos = SystemClock.elapsedRealtimeNanos() - startedAtNanos;
+        currentCallId = 0;
+        Handler handler = watcher;
+        if (handler != null) handler.removeCallbacks(capture);
+        long budget = budgetMs;
+        if (durationNanos < budget * 1_000_000L) return;
+
+        StackTraceElement[] stack = capturedCallId == token ? capturedStack : null;
+        capturedStack = null;
+        report(method, placementId, durationNanos / 1_000_000.0, budget, stack);
+    }
+
+    /** Watcher thread: the budget ran out; grab the main thread's stack if the call is still running. */
+    private void capture() {
+        int id = currentCallId;
+        if (id == 0) return;
+        StackTraceElement[] stack = Looper.getMainLooper().getThread().getStackTrace();
+        if (currentCallId != id) return; // finished while capturing: the stack may show later work
+        capturedStack = stack;
+        capturedCallId = id;
+    }
+
+    private void report(String method, String placementId, double durationMs, long budget,
+                        StackTraceElement[] stack) {
+        Map<String, Object> methodTotals;
+        synchronized (totals) {
+            Totals t = totals.get(method);
+            if (t == null) {
+                t = new Totals();
+                totals.put(method, t);
+            }
+            t.stalls++;
+            t.totalMs += (long) durationMs;
+            t.maxMs = Math.max(t.maxMs, (long) durationMs);
+            methodTotals = toMap(t);
+        }
+
+        Map<String, Object> stall = new HashMap<>();
+        stall.put("method", method);
+        stall.put("placementId", placementId);
+        stall.put("durationMs", durationMs);
+        stall.put("budgetMs", budget);
+        stall.put("stackTrace", stack != null ? frames(stack) : null);
+        stall.put("totals", methodTotals);
+        Listener l = listener;
+        if (l != null) l.onStall(stall);
+    }
+
+    /** Stall totals per SDK method: stalls, totalMs, maxMs. */
+    Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new HashMap<>();
+        synchronized (totals) {
+            for (Map.Entry<String, Totals> e : totals.entrySet()) {
+                snapshot.put(e.getKey(), toMap(e.getValue()));
+            }
+        }
+        return snapshot;
+    }
+
+    void reset() {
+        synchronized (totals) {
+            totals.clear();
+        }
+    }
+
+    private static Map<String, Object> toMap(Totals t) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("stalls", t.stalls);
+        map.put("totalMs", t.totalMs);
+        map.put("maxMs", t.maxMs);
+        return map;
+    }
+
+    private static List<String> frames(StackTraceElement[] stack) {
+        int count = Math.min(stack.length, MAX_STACK_FRAMES);
+        List<String> frames = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            frames.add(stack[i].toString());
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,209 @@
+package com.sudeep.geemee_flutter;
+
+import android.app.Activity;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.MotionEvent;
+import android.view.Surface;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+import android.widget.FrameLayout;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.flutter.view.TextureRegistry;
+
+/**
+ * Texture-backed banners: the SDK banner view is drawn into a SurfaceTexture registered with
+ * Flutter's TextureRegistry and shown by a Dart Texture widget, instead of being composited as
+ * a platform view.
+ * - the SDK view lives in an exact-size host layout added behind the Flutter view, so it is
+ *   attached to a window, laid out and keeps running, but is never seen directly
+ * - whenever the view invalidates, the next pre-draw pass re-renders it into the texture;
+ *   this suits static banners, animated ones re-render every frame
+ * - taps are forwarded back to the view as MotionEvents, so the SDK's click handling still works
+ * - views come from / go back to the shared {@link GeemeeBannerPool}
+ *
+ * All methods must be called on the main thread.
+ */
+class GeemeeTextureBanners {
+    private static final String TAG = "GeemeeTextureBanners";
+
+    /** Listener for banners released by the plugin rather than by Dart (e.g. activity detached). */
+    interface ReleaseListener {
+        void onTextureBannerReleased(long textureId, String placementId);
+    }
+
+    private final TextureRegistry textureRegistry;
+    private final GeemeeBackend backend;
+    private final GeemeeBannerPool bannerPool;
+    private final GeemeeBannerViewFactory.BannerShownListener bannerShownListener;
+    private final ReleaseListener releaseListener;
+    private final Map<Long, TextureBanner> banners = new HashMap<>();
+    private Activity activity;
+
+    GeemeeTextureBanners(TextureRegistry textureRegistry, GeemeeBackend backend, GeemeeBannerPool bannerPool,
+                         GeemeeBannerViewFactory.BannerShownListener bannerShownListener,
+                         ReleaseListener releaseListener) {
+        this.textureRegistry = textureRegistry;
+        this.backend = backend;
+        this.bannerPool = bannerPool;
+        this.bannerShownListener = bannerShownListener;
+        this.releaseListener = releaseListener;
+    }
+
+    /** The SDK views are bound to the activity: losing it releases every texture banner. */
+    void setActivity(Activity activity) {
+        if (this.activity != null && this.activity != activity) {
+            releaseAll(true);
+        }
+        this.activity = activity;
+    }
+
+    /**
+     * Creates a texture showing the banner of a placement, sized in physical pixels.
+     * Returns the texture id, or null when there is no activity or no banner for the placement.
+     */
+    Long create(String placementId, int widthPx, int heightPx) {
+        if (activity == null) {
+            Log.w(TAG, "create: no activity - cannot host banner " + placementId);
+            return null;
+        }
+        ViewGroup content = activity.findViewById(android.R.id.content);
+        if (content == null) {
+            Log.w(TAG, "create: activity has no content view");
+            return null;
+        }
+
+        View view = bannerPool.acquire(placementId);
+        if (view == null) {
+            view = backend.showBanner(placementId);
+            if (view == null) {
+                bannerPool.release(placementId, null);
+                return null;
+            }
+            bannerShownListener.onBannerShown(placementId);
+        }
+
+        TextureRegistry.SurfaceTextureEntry entry = textureRegistry.createSurfaceTexture();
+        entry.surfaceTexture().setDefaultBufferSize(widthPx, heightPx);
+        TextureBanner banner = new TextureBanner(entry, placementId, view);
+        FrameLayout host = banner.host = new FrameLayout(activity);
+        host.addView(view, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        // index 0: behind the Flutter view, which covers it
+        content.addView(host, 0, new FrameLayout.LayoutParams(widthPx, heightPx));
+        host.getViewTreeObserver().addOnPreDrawListener(banner.preDrawListener);
+        banners.put(entry.id(), banner);
+        return entry.id();
+    }
+
+    /** Replays a pointer event (physical pixels, relative to the texture) on the banner view. */
+    boolean dispatchTouch(long textureId, int action, float x, float y) {
+        TextureBanner banner = banners.get(textureId);
+        if (banner == null) return false;
+        long now = SystemClock.uptimeMillis();
+        if (action == MotionEvent.ACTION_DOWN) {
+            banner.downTimeMs = now;
+        }
+        MotionEvent event = MotionEvent.obtain(banner.downTimeMs, now, action, x, y, 0);
+        try {
+            return banner.view.dispatchTouchEvent(event);
+        } finally {
+            event.recycle();
+        }
+    }
+
+    /** Releases a texture banner; its view goes back to the pool. */
+    void dispose(long textureId) {
+        TextureBanner banner = banners.remove(textureId);
+        if (banner != null) banner.release();
+    }
+
+    /** Releases every texture banner, e.g. when the engine detaches. */
+    void clear() {
+        releaseAll(false);
+    }
+
+    private void releaseAll(boolean notify) {
+        List<TextureBanner> released = new ArrayList<>(banners.values());
+        banners.clear();
+        for (TextureBanner banner : released) {
+            banner.release();
+            if (notify) releaseListener.onTextureBannerReleased(banner.entry.id(), banner.placementId);
+        }
+    }
+
+    private final class TextureBanner {
+        final TextureRegistry.SurfaceTextureEntry entry;
+        final String placementId;
+        final View view;
+        final Surface surface;
+        FrameLayout host;
+        long downTimeMs;
+        final ViewTreeObserver.OnPreDrawListener preDrawListener = () -> {
+            render(false);
+            return true;
+        };
+        private boolean rendered = false;
+
+        TextureBanner(TextureRegistry.SurfaceTextureEntry entry, String placementId, View view) {
+            this.entry = entry;
+            this.placementId = placementId;
+            this.view = view;
+            this.surface = new Surface(entry.surfaceTexture());
+        }
+
+        /** Draws the view into the texture if it changed since the last frame (or never drew). */
+        void render(boolean force) {
+            if (!force && rendered && !view.isDirty()) return;
+            if (view.getWidth() == 0 || view.getHeight() == 0 || !surface.isValid()) return;
+            boolean traced = GeemeeTrace.begin("render texture banner", placementId);
+            Canvas canvas = null;
+            try {
+                canvas = Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
+                        ? surface.lockHardwareCanvas()
+                        : surface.lockCanvas(null);
+                canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+                view.draw(canvas);
+                rendered = true;
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to render banner " + placementId + " into its texture", e);
+            } finally {
+                if (canvas != null) {
+                    try {
+                        surface.unlockCanvasAndPost(canvas);
+                    } catch (Exception e) {
+                        Log.w(TAG, "unlockCanvasAndPost failed for banner " + placementId, e);
+                    }
+                }
+                if (traced) GeemeeTrace.end();
+            }
+        }
+
+        void release() {
+            try {
+                ViewTreeObserver observer = host.getViewTreeObserver();
+                if (observer.isAlive()) observer.removeOnPreDrawListener(preDrawListener);
+                host.removeAllViews();
+                if (host.getParent() instanceof ViewGroup) {
+                    ((ViewGroup) host.getParent()).removeView(host);
+                }
+                // the pool detaches, keeps or destroys the view
+                bannerPool.release(placementId, view);
+            } catch (Exception e) {
+                Log.e(TAG, "Releasing texture banner threw for placement " + placementId, e);
+            }
+            surface.release();
+            entry.release();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.sudeep.geemee_flutter;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * Opt-in android.os.Trace instrumentation, visible in Perfetto / systrace next to Flutter's own
+ * timeline. Off by default (see setTracing); when off every call is a volatile read.
+ * - sections (begin / end on the same thread) wrap synchronous work: method calls, SDK calls,
+ *   banner attach / release, event drains
+ * - async slices span callbacks: load -> ready, show -> open, open -> close, banner view creation.
+ *   They need API 29; on older devices only sections are emitted
+ *
+ * Labels are "GeeMee <what> <placement>", cut to the 127 character limit of Trace.
+ */
+final class GeemeeTrace {
+    private static final int MAX_SECTION_NAME_LENGTH = 127;
+
+    private static volatile boolean enabled = false;
+
+    private GeemeeTrace() {}
+
+    static void setEnabled(boolean enabled) {
+        GeemeeTrace.enabled = enabled;
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Opens a section; returns whether it did, so callers only close what they opened even if
+     * tracing is toggled in between: {@code boolean traced = begin(...); try { ... } finally { if (traced) end(); }}
+     */
+    static boolean begin(String what, String placementId) {
+        if (!enabled) return false;
+        Trace.beginSection(label(what, placementId));
+        return true;
+    }
+
+    static void end() {
+        Trace.endSection();
+    }
+
+    /** Opens an async slice; returns whether it did. Close it with the same what / placementId / cookie. */
+    static boolean beginAsync(String what, String placementId, int cookie) {
+        if (!enabled || Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) return false;
+        Trace.beginAsyncSection(label(what, placementId), cookie);
+        return true;
+    }
+
+    static void endAsync(String what, String placementId, int cookie) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) return;
+        Trace.endAsyncSection(label(what, placementId), cookie);
+    }
+
+    private static String label(String what, String placementId) {
+        String label = placementId != null ? "GeeMee " + what + " " + placementId : "GeeMee " + what;
+        return label.length() <= MAX_SECTION_NAME_LENGTH ? label : label.substring(0, MAX_SECTION_NAME_LENGTH);
+    }
+}
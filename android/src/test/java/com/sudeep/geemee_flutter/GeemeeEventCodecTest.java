@@ -0,0 +1,224 @@
+package com.sudeep.geemee_flutter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import io.flutter.plugin.common.StandardMessageCodec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class GeemeeEventCodecTest {
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getShort() & 0xFFFF;
+    if (length == 0xFFFF) return null;
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /** Decodes a frame the way the Dart decoder does; custom payloads are kept as raw bytes. */
+  private static List<Object[]> decode(ByteBuffer frame, GeemeePlacementHandles handles) {
+    List<Object[]> events = new ArrayList<>();
+    int count = frame.getShort() & 0xFFFF;
+    for (int i = 0; i < count; i++) {
+      int tag = frame.get() & 0xFF;
+      String placementId;
+      if ((frame.getShort(frame.position()) & 0xFFFF) == 0xFFFE) {
+        frame.getShort();
+        placementId = handles.get(frame.getShort() & 0xFFFF).placementId;
+      } else {
+        placementId = readString(frame);
+      }
+      if (tag == GeemeeEventCodec.TAG_CUSTOM) {
+        String name = readString(frame);
+        byte[] payload = new byte[frame.getInt()];
+        frame.get(payload);
+        events.add(new Object[] {name, placementId, payload});
+      } else {
+        events.add(new Object[] {GeemeeEventCodec.EVENT_NAMES[tag], placementId, readString(frame)});
+      }
+    }
+    return events;
+  }
+
+  private static byte[] bytes(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.limit()];
+    buffer.rewind();
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  @Test
+  public void tagOf_matchesTheEventTable() {
+    for (int tag = 1; tag < GeemeeEventCodec.EVENT_NAMES.length; tag++) {
+      assertEquals(tag, GeemeeEventCodec.tagOf(GeemeeEventCodec.EVENT_NAMES[tag]));
+    }
+    assertEquals(GeemeeEventCodec.TAG_CUSTOM, GeemeeEventCodec.tagOf("onBannerViewCreated"));
+  }
+
+  @Test
+  public void encode_emptyBatch_isJustTheCount() {
+    ByteBuffer frame = GeemeeEventCodec.encode(Collections.<GeemeeEvent>emptyList());
+
+    assertEquals(2, frame.remaining());
+    assertEquals(0, frame.getShort());
+  }
+
+  @Test
+  public void encode_capsTheCountAtTheFrameLimit() {
+    GeemeeEvent event = GeemeeEvent.sdk("onBannerClick", "p", null, 0L);
+    ByteBuffer frame = GeemeeEventCodec.encode(
+        Collections.nCopies(GeemeeEventCodec.MAX_BATCH_EVENTS + 1, event));
+
+    assertEquals(GeemeeEventCodec.MAX_BATCH_EVENTS, frame.getShort() & 0xFFFF);
+    // tag, "p", null detail per event
+    assertEquals(GeemeeEventCodec.MAX_BATCH_EVENTS * (1 + 3 + 2), frame.remaining());
+  }
+
+  @Test
+  public void encode_sdkEvent_layout() {
+    ByteBuffer frame = GeemeeEventCodec.encode(Collections.singletonList(
+        GeemeeEvent.sdk("onInterstitialOpenFailed", "inter-1", "no fill", 0L)));
+
+    byte[] expected = {
+        0, 1,                                   // count
+        8,                                      // tag of onInterstitialOpenFailed
+        0, 7, 'i', 'n', 't', 'e', 'r', '-', '1', // placementId
+        0, 7, 'n', 'o', ' ', 'f', 'i', 'l', 'l', // detail
+    };
+    assertEquals(Arrays.toString(expected), Arrays.toString(bytes(frame)));
+  }
+
+  @Test
+  public void encode_nullStrings_useTheNullMarker() {
+    ByteBuffer frame = GeemeeEventCodec.encode(Collections.singletonList(
+        GeemeeEvent.sdk("onInitSuccess", null, null, 0L)));
+
+    assertEquals(1, frame.getShort());
+    assertEquals(GeemeeEventCodec.tagOf("onInitSuccess"), frame.get());
+    assertEquals(0xFFFF, frame.getShort() & 0xFFFF);
+    assertEquals(0xFFFF, frame.getShort() & 0xFFFF);
+    assertEquals(0, frame.remaining());
+  }
+
+  @Test
+  public void encode_customEvent_writesNameAndLengthPrefixedPayload() {
+    Map<String, Object> data = new HashMap<>();
+    data.put("latencyMs", 12.5);
+    ByteBuffer frame = GeemeeEventCodec.encode(Collections.singletonList(
+        GeemeeEvent.plugin("onBannerViewCreated", "banner-1", data, 0L)));
+    byte[] payload = bytes(StandardMessageCodec.INSTANCE.encodeMessage(data));
+
+    assertEquals(1, frame.getShort());
+    assertEquals(GeemeeEventCodec.TAG_CUSTOM, frame.get());
+    assertEquals("banner-1", readString(frame));
+    assertEquals("onBannerViewCreated", readString(frame));
+    assertEquals(payload.length, frame.getInt());
+    byte[] written = new byte[payload.length];
+    frame.get(written);
+    assertEquals(Arrays.toString(payload), Arrays.toString(written));
+    assertEquals(0, frame.remaining());
+    assertEquals(data, StandardMessageCodec.INSTANCE.decodeMessage(ByteBuffer.wrap(written)));
+  }
+
+  @Test
+  public void encode_multiByteStrings_areUtf8() {
+    String placementId = "b\u00e4nner-\u20ac-\ud83d\ude00";
+    ByteBuffer frame = GeemeeEventCodec.encode(Collections.singletonList(
+        GeemeeEvent.sdk("onBannerReady", placementId, null, 0L)));
+
+    frame.getShort();
+    frame.get();
+    assertEquals(placementId.getBytes(StandardCharsets.UTF_8).length, frame.getShort(frame.position()));
+    assertEquals(placementId, readString(frame));
+  }
+
+  @Test
+  public void encode_longStrings_areTruncatedOnACodePoint() {
+    StringBuilder detail = new StringBuilder();
+    while (detail.length() < 0xFFFD) {
+      detail.append('\u20ac'); // 3 UTF-8 bytes
+    }
+    ByteBuffer frame = GeemeeEventCodec.encode(Collections.singletonList(
+        GeemeeEvent.sdk("onBannerLoadFailed", "p", detail.toString(), 0L)));
+
+    frame.getShort();
+    frame.get();
+    readString(frame);
+    String written = readString(frame);
+    // 0xFFFD bytes hold 21844 whole euro signs; the next one would be cut in half
+    assertEquals(0xFFFD / 3, written.length());
+    assertEquals(0xFFFD - 1, written.getBytes(StandardCharsets.UTF_8).length);
+    assertEquals(0, frame.remaining());
+  }
+
+  @Test
+  public void encode_decode_roundTripsAMixedBatch() {
+    GeemeePlacementHandles handles = new GeemeePlacementHandles();
+    handles.register(0, "BANNER", "banner-1", null);
+    Map<String, Object> data = Collections.<String, Object>singletonMap("visibleMs", 30000.0);
+    List<GeemeeEvent> batch = Arrays.asList(
+        GeemeeEvent.sdk("onInitSuccess", null, null, 0L),
+        GeemeeEvent.sdk("onBannerReady", "banner-1", null, 0L),
+        GeemeeEvent.plugin("onBannerRefreshed", "banner-1", data, 0L),
+        GeemeeEvent.sdk("onOfferWallOpenFailed", "wall", "timeout", 0L));
+
+    List<Object[]> decoded = decode(GeemeeEventCodec.encode(batch, handles), handles);
+
+    assertEquals(batch.size(), decoded.size());
+    for (int i = 0; i < batch.size(); i++) {
+      GeemeeEvent event = batch.get(i);
+      assertEquals(event.name, decoded.get(i)[0]);
+      assertEquals(event.placementId, decoded.get(i)[1]);
+      if (event.data == null) {
+        assertEquals(event.detail, decoded.get(i)[2]);
+      } else {
+        assertEquals(event.data, StandardMessageCodec.INSTANCE.decodeMessage(
+            ByteBuffer.wrap((byte[]) decoded.get(i)[2])));
+      }
+    }
+  }
+
+  @Test
+  public void encode_writesRegisteredPlacementsAsHandles() {
+    GeemeePlacementHandles handles = new GeemeePlacementHandles();
+    handles.register(7, "BANNER", "banner-1", null);
+
+    ByteBuffer frame = GeemeeEventCodec.encode(Arrays.asList(
+        GeemeeEvent.sdk("onBannerReady", "banner-1", null, 0L),
+        GeemeeEvent.sdk("onBannerReady", "banner-2", null, 0L)), handles);
+
+    assertEquals(2, frame.getShort() & 0xFFFF);
+    assertEquals(GeemeeEventCodec.tagOf("onBannerReady"), frame.get() & 0xFF);
+    assertEquals(0xFFFE, frame.getShort() & 0xFFFF);
+    assertEquals(7, frame.getShort() & 0xFFFF);
+    assertNull(readString(frame));
+    // unregistered placements keep their id
+    assertEquals(GeemeeEventCodec.tagOf("onBannerReady"), frame.get() & 0xFF);
+    assertEquals("banner-2", readString(frame));
+    assertNull(readString(frame));
+    assertEquals(0, frame.remaining());
+  }
+
+  @Test
+  public void encode_withoutHandles_writesPlacementIds() {
+    GeemeePlacementHandles handles = new GeemeePlacementHandles();
+    handles.register(0, "BANNER", "banner-1", null);
+    GeemeeEvent event = GeemeeEvent.sdk("onBannerLoadFailed", "banner-1", "no fill", 0L);
+
+    ByteBuffer frame = GeemeeEventCodec.encode(Arrays.asList(event));
+
+    assertEquals(1, frame.getShort() & 0xFFFF);
+    assertEquals(GeemeeEventCodec.tagOf("onBannerLoadFailed"), frame.get() & 0xFF);
+    assertEquals("banner-1", readString(frame));
+    assertEquals("no fill", readString(frame));
+    assertEquals(0, frame.remaining());
+  }
+}
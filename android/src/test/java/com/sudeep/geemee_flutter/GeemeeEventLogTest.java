@@ -0,0 +1,189 @@
+package com.sudeep.geemee_flutter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GeemeeEventLogTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final GeemeeEventLog log = GeemeeEventLog.get();
+
+  @After
+  public void disableLog() {
+    log.disable();
+  }
+
+  /** One exported record, decoded as documented on GeemeeEventLog (and by the Dart decoder). */
+  private static final class Record {
+    final int sequence;
+    final int kind;
+    final int code;
+    final int format;
+    final int flags;
+    final long timeMs;
+    final int value;
+    final String placementId;
+
+    Record(ByteBuffer records, int index) {
+      int o = index * GeemeeEventLog.RECORD_SIZE;
+      sequence = records.getInt(o);
+      kind = records.get(o + 4);
+      code = records.get(o + 5) & 0xFF;
+      format = records.get(o + 6);
+      flags = records.get(o + 7);
+      timeMs = records.getLong(o + 8);
+      value = records.getInt(o + 16);
+      int length = records.get(o + 20);
+      byte[] id = new byte[length];
+      for (int i = 0; i < length; i++) {
+        id[i] = records.get(o + 21 + i);
+      }
+      placementId = new String(id, StandardCharsets.US_ASCII);
+    }
+  }
+
+  private static Record[] decode(byte[] exported) {
+    assertEquals(0, exported.length % GeemeeEventLog.RECORD_SIZE);
+    ByteBuffer buffer = ByteBuffer.wrap(exported);
+    Record[] records = new Record[exported.length / GeemeeEventLog.RECORD_SIZE];
+    for (int i = 0; i < records.length; i++) {
+      records[i] = new Record(buffer, i);
+    }
+    return records;
+  }
+
+  private static int methodCode(String method) {
+    return Arrays.asList(GeemeeEventLog.METHOD_NAMES).indexOf(method);
+  }
+
+  @Test
+  public void export_decodesCallbacksAndMethodCalls() throws Exception {
+    long before = System.currentTimeMillis();
+    log.enable(folder.newFolder("log"), GeemeeEventLog.DEFAULT_MAX_BYTES);
+    log.recordCallback("onBannerLoadFailed", "banner-1");
+    log.recordMethod("showInterstitial", "inter-1", 1_500_000L, false);
+    log.recordMethod("openOfferWall", null, 2_000L, true);
+    log.recordMethod("notAPluginMethod", "x", 0L, false);
+    // disable drains the staged records into the files
+    log.disable();
+
+    Record[] records = decode(log.export(0, 100));
+    assertEquals(4, records.length);
+
+    Record callback = records[0];
+    assertEquals(1, callback.sequence);
+    assertEquals(GeemeeEventLog.KIND_CALLBACK, callback.kind);
+    assertEquals(GeemeeEventCodec.tagOf("onBannerLoadFailed"), callback.code);
+    assertEquals(1, callback.format);
+    assertEquals(1, callback.flags);
+    assertEquals(0, callback.value);
+    assertEquals("banner-1", callback.placementId);
+    assertTrue(callback.timeMs >= before && callback.timeMs <= System.currentTimeMillis());
+
+    Record method = records[1];
+    assertEquals(2, method.sequence);
+    assertEquals(GeemeeEventLog.KIND_METHOD, method.kind);
+    assertEquals(methodCode("showInterstitial"), method.code);
+    assertEquals(2, method.format);
+    assertEquals(0, method.flags);
+    assertEquals(1_500, method.value);
+    assertEquals("inter-1", method.placementId);
+
+    Record error = records[2];
+    assertEquals(GeemeeEventLog.KIND_METHOD_ERROR, error.kind);
+    assertEquals(methodCode("openOfferWall"), error.code);
+    assertEquals(3, error.format);
+    assertEquals(2, error.value);
+    assertEquals("", error.placementId);
+
+    // methods missing from the table are recorded with code 0
+    assertEquals(0, records[3].code);
+    assertEquals(0, records[3].format);
+  }
+
+  @Test
+  public void recordCallback_storesPlacementIdsAsTruncatedAscii() throws Exception {
+    log.enable(folder.newFolder("log"), GeemeeEventLog.DEFAULT_MAX_BYTES);
+    StringBuilder longId = new StringBuilder();
+    for (int i = 0; i < 50; i++) {
+      longId.append((char) ('a' + i % 26));
+    }
+    log.recordCallback("onBannerReady", "b\u00e4nner");
+    log.recordCallback("onBannerReady", longId.toString());
+    log.disable();
+
+    Record[] records = decode(log.export(0, 100));
+    assertEquals("b?nner", records[0].placementId);
+    assertEquals(longId.substring(0, GeemeeEventLog.RECORD_SIZE - 21), records[1].placementId);
+  }
+
+  @Test
+  public void export_resumesAfterASequenceAndCapsTheCount() throws Exception {
+    log.enable(folder.newFolder("log"), GeemeeEventLog.DEFAULT_MAX_BYTES);
+    for (int i = 0; i < 5; i++) {
+      log.recordCallback("onBannerReady", "banner-" + i);
+    }
+    log.disable();
+
+    Record[] page = decode(log.export(2, 2));
+    assertEquals(2, page.length);
+    assertEquals(3, page[0].sequence);
+    assertEquals(4, page[1].sequence);
+    assertEquals(0, log.export(5, 10).length);
+  }
+
+  @Test
+  public void enable_continuesTheSequenceOfAnExistingLog() throws Exception {
+    File directory = folder.newFolder("log");
+    log.enable(directory, GeemeeEventLog.DEFAULT_MAX_BYTES);
+    log.recordCallback("onInitSuccess", null);
+    log.recordCallback("onBannerReady", "banner-1");
+    log.disable();
+
+    log.enable(directory, GeemeeEventLog.DEFAULT_MAX_BYTES);
+    log.recordCallback("onBannerClick", "banner-1");
+    log.disable();
+
+    Record[] records = decode(log.export(0, 100));
+    assertEquals(3, records.length);
+    assertEquals(3, records[2].sequence);
+    assertEquals(GeemeeEventCodec.tagOf("onBannerClick"), records[2].code);
+  }
+
+  @Test
+  public void export_afterRotation_returnsTheNewestRecordsInOrder() throws Exception {
+    // two segments of four records each
+    long maxBytes = 2L * (GeemeeEventLog.HEADER_SIZE + 4 * GeemeeEventLog.RECORD_SIZE);
+    log.enable(folder.newFolder("log"), maxBytes);
+    for (int i = 0; i < 10; i++) {
+      log.recordCallback("onBannerReady", "banner-" + i);
+    }
+    log.disable();
+
+    Record[] records = decode(log.export(0, 100));
+    assertEquals(6, records.length);
+    for (int i = 0; i < records.length; i++) {
+      assertEquals(5 + i, records[i].sequence);
+      assertEquals("banner-" + (4 + i), records[i].placementId);
+    }
+  }
+
+  @Test
+  public void methodNames_coverEveryPluginMethod() {
+    List<String> names = Arrays.asList(GeemeeEventLog.METHOD_NAMES);
+    for (String method : GeemeeMethodPolicy.methods()) {
+      assertTrue(method + " has no event log code", names.contains(method));
+    }
+  }
+}
@@ -1,10 +1,21 @@
 package com.sudeep.geemee_flutter;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.After;
 import org.junit.Test;
 
 /**
@@ -13,17 +24,73 @@ import org.junit.Test;
  * Once you have built the plugin's example app, you can run these tests from the command
  * line by running `./gradlew testDebugUnitTest` in the `example/android/` directory, or
  * you can run them directly from IDEs that support JUnit such as Android Studio.
+ *
+ * Benchmarks for the plugin's hot paths live in the JMH module under `android/benchmark`.
  */
 
 public class GeemeeFlutterPluginTest {
+  @After
+  public void resetSharedInitGate() {
+    // the real SDK's init gate is process-wide; don't let one test's init leak into the next
+    GeemeeCallbackHub.get().initGate().reset();
+  }
+
   @Test
-  public void onMethodCall_getPlatformVersion_returnsExpectedValue() {
+  public void onMethodCall_unknownMethod_isNotImplemented() {
     GeemeeFlutterPlugin plugin = new GeemeeFlutterPlugin();
 
     final MethodCall call = new MethodCall("getPlatformVersion", null);
     MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
     plugin.onMethodCall(call, mockResult);
 
-    verify(mockResult).success("Android " + android.os.Build.VERSION.RELEASE);
+    verify(mockResult).notImplemented();
+  }
+
+  @Test
+  public void onMethodCall_getReadiness_rejectsMismatchedLists() {
+    // getReadiness waits for the SDK init; pretend it completed
+    GeemeeCallbackHub.get().initGate().onSuccess();
+    GeemeeFlutterPlugin plugin = new GeemeeFlutterPlugin();
+
+    Map<String, Object> args = new HashMap<>();
+    args.put("formats", Arrays.asList("BANNER", "INTERSTITIAL"));
+    args.put("placementIds", Collections.singletonList("placement"));
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+    plugin.onMethodCall(new MethodCall("getReadiness", args), mockResult);
+
+    verify(mockResult).error(eq("INVALID_ARGUMENT"), anyString(), isNull());
+  }
+
+  @Test
+  public void onMethodCall_registerPlacements_rejectsNullElementsBeforeRegistering() {
+    GeemeeFlutterPlugin plugin = new GeemeeFlutterPlugin();
+
+    Map<String, Object> args = new HashMap<>();
+    args.put("handles", Arrays.asList(0, 1));
+    args.put("formats", Arrays.asList("BANNER", "BANNER"));
+    args.put("placementIds", Arrays.asList("placement", null));
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+    plugin.onMethodCall(new MethodCall("registerPlacements", args), mockResult);
+
+    verify(mockResult).error(eq("INVALID_ARGUMENT"), anyString(), isNull());
+  }
+
+  @Test
+  public void initGate_foldsDuplicateInitsAndAllowsRetryAfterFailure() {
+    GeemeeInitGate gate = new GeemeeInitGate();
+
+    assertTrue(gate.begin());
+    assertFalse(gate.begin());
+    assertEquals(GeemeeInitGate.State.INITIALIZING, gate.state());
+
+    gate.onFailure("timeout");
+    assertEquals(GeemeeInitGate.State.FAILED, gate.state());
+    assertEquals("timeout", gate.lastError());
+
+    assertTrue(gate.begin());
+    gate.onSuccess();
+    gate.onFailure("late");
+    assertEquals(GeemeeInitGate.State.READY, gate.state());
+    assertFalse(gate.begin());
   }
 }
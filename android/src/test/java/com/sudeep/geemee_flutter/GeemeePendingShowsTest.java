@@ -0,0 +1,140 @@
+package com.sudeep.geemee_flutter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import android.os.SystemClock;
+import io.flutter.plugin.common.MethodChannel;
+import java.util.Map;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+
+/** Callbacks run inline here: in unit tests Looper.myLooper() and getMainLooper() are both null. */
+public class GeemeePendingShowsTest {
+  private static final long OPEN_TIMEOUT_MS = GeemeePendingShows.DEFAULT_OPEN_TIMEOUT_MS;
+  private static final long CLOSE_TIMEOUT_MS = GeemeePendingShows.DEFAULT_CLOSE_TIMEOUT_MS;
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> successValue(MethodChannel.Result result) {
+    ArgumentCaptor<Object> value = ArgumentCaptor.forClass(Object.class);
+    verify(result).success(value.capture());
+    return (Map<String, Object>) value.getValue();
+  }
+
+  @Test
+  public void onClosed_completesWithTheOpenAndCloseTimes() {
+    GeemeePendingShows shows = new GeemeePendingShows();
+    MethodChannel.Result result = mock(MethodChannel.Result.class);
+
+    try (MockedStatic<SystemClock> clock = mockStatic(SystemClock.class)) {
+      clock.when(SystemClock::elapsedRealtimeNanos).thenReturn(1_000_000_000L);
+      assertTrue(shows.begin("INTERSTITIAL", "inter-1", result, OPEN_TIMEOUT_MS, CLOSE_TIMEOUT_MS));
+      clock.when(SystemClock::elapsedRealtimeNanos).thenReturn(1_250_000_000L);
+      shows.onOpened("INTERSTITIAL", "inter-1");
+      verifyNoInteractions(result);
+      clock.when(SystemClock::elapsedRealtimeNanos).thenReturn(4_250_000_000L);
+      shows.onClosed("INTERSTITIAL", "inter-1");
+    }
+
+    Map<String, Object> value = successValue(result);
+    assertEquals(GeemeePendingShows.CLOSED, value.get("outcome"));
+    assertEquals("INTERSTITIAL", value.get("format"));
+    assertEquals("inter-1", value.get("placementId"));
+    assertTrue(value.containsKey("requestedAt"));
+    assertTrue(value.containsKey("openedAt"));
+    assertTrue(value.containsKey("closedAt"));
+    assertEquals(250.0, value.get("openLatencyMs"));
+    assertEquals(3000.0, value.get("shownMs"));
+    assertEquals(3250.0, value.get("totalMs"));
+    assertFalse(value.containsKey("error"));
+    assertEquals(0, shows.size());
+  }
+
+  @Test
+  public void onOpenFailed_completesWithTheError() {
+    GeemeePendingShows shows = new GeemeePendingShows();
+    MethodChannel.Result result = mock(MethodChannel.Result.class);
+
+    shows.begin("OFFER_WALL", "wall", result, OPEN_TIMEOUT_MS, CLOSE_TIMEOUT_MS);
+    shows.onOpenFailed("OFFER_WALL", "wall", "no fill");
+
+    Map<String, Object> value = successValue(result);
+    assertEquals(GeemeePendingShows.OPEN_FAILED, value.get("outcome"));
+    assertEquals("no fill", value.get("error"));
+    assertTrue(value.containsKey("endedAt"));
+    assertFalse(value.containsKey("openedAt"));
+  }
+
+  @Test
+  public void begin_rejectsASecondShowOfThePlacement() {
+    GeemeePendingShows shows = new GeemeePendingShows();
+    MethodChannel.Result first = mock(MethodChannel.Result.class);
+    MethodChannel.Result second = mock(MethodChannel.Result.class);
+    MethodChannel.Result otherFormat = mock(MethodChannel.Result.class);
+
+    assertTrue(shows.begin("INTERSTITIAL", "p", first, OPEN_TIMEOUT_MS, CLOSE_TIMEOUT_MS));
+    assertFalse(shows.begin("INTERSTITIAL", "p", second, OPEN_TIMEOUT_MS, CLOSE_TIMEOUT_MS));
+    // the same id in another format is another placement
+    assertTrue(shows.begin("USER_CENTER", "p", otherFormat, OPEN_TIMEOUT_MS, CLOSE_TIMEOUT_MS));
+
+    verify(second).error(eq("SHOW_IN_PROGRESS"), anyString(), isNull());
+    verifyNoInteractions(first);
+    assertEquals(2, shows.size());
+  }
+
+  @Test
+  public void callbacksOfOtherPlacements_leaveTheShowWaiting() {
+    GeemeePendingShows shows = new GeemeePendingShows();
+    MethodChannel.Result result = mock(MethodChannel.Result.class);
+
+    shows.begin("INTERSTITIAL", "inter-1", result, OPEN_TIMEOUT_MS, CLOSE_TIMEOUT_MS);
+    shows.onClosed("INTERSTITIAL", "inter-2");
+    shows.onClosed("OFFER_WALL", "inter-1");
+    shows.onOpenFailed("USER_CENTER", "inter-1", "error");
+
+    verifyNoInteractions(result);
+    assertEquals(1, shows.size());
+  }
+
+  @Test
+  public void abort_failsTheResultAndFreesThePlacement() {
+    GeemeePendingShows shows = new GeemeePendingShows();
+    MethodChannel.Result result = mock(MethodChannel.Result.class);
+
+    shows.begin("INTERSTITIAL", "inter-1", result, OPEN_TIMEOUT_MS, CLOSE_TIMEOUT_MS);
+    shows.abort("INTERSTITIAL", "inter-1", "PRESENT_ERROR", "boom");
+    // a late close callback has nothing left to complete
+    shows.onClosed("INTERSTITIAL", "inter-1");
+
+    verify(result).error("PRESENT_ERROR", "boom", null);
+    verify(result, never()).success(any());
+    assertTrue(shows.begin("INTERSTITIAL", "inter-1", mock(MethodChannel.Result.class),
+        OPEN_TIMEOUT_MS, CLOSE_TIMEOUT_MS));
+  }
+
+  @Test
+  public void clear_failsEveryWaitingShow() {
+    GeemeePendingShows shows = new GeemeePendingShows();
+    MethodChannel.Result first = mock(MethodChannel.Result.class);
+    MethodChannel.Result second = mock(MethodChannel.Result.class);
+
+    shows.begin("INTERSTITIAL", "inter-1", first, OPEN_TIMEOUT_MS, CLOSE_TIMEOUT_MS);
+    shows.begin("OFFER_WALL", "wall", second, OPEN_TIMEOUT_MS, CLOSE_TIMEOUT_MS);
+    shows.clear("DETACHED", "engine detached");
+
+    verify(first).error("DETACHED", "engine detached", null);
+    verify(second).error("DETACHED", "engine detached", null);
+    assertEquals(0, shows.size());
+  }
+}
@@ -0,0 +1,84 @@
+package com.sudeep.geemee_flutter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class GeemeePlacementHandlesTest {
+  @Test
+  public void register_resolvesHandlesBothWays() {
+    GeemeePlacementHandles handles = new GeemeePlacementHandles();
+    handles.register(0, "BANNER", "banner-1", "BANNER_320_50");
+    handles.register(3, "INTERSTITIAL", "inter-1", null);
+
+    GeemeePlacementHandles.Entry entry = handles.get(0);
+    assertEquals("BANNER", entry.format);
+    assertEquals("banner-1", entry.placementId);
+    assertEquals("BANNER_320_50", entry.adSize);
+    assertEquals("inter-1", handles.get(3).placementId);
+    assertNull(handles.get(1));
+    assertNull(handles.get(4));
+    assertNull(handles.get(-1));
+
+    assertEquals(0, handles.handleOf("banner-1"));
+    assertEquals(3, handles.handleOf("inter-1"));
+    assertEquals(-1, handles.handleOf("unknown"));
+    assertEquals(-1, handles.handleOf(null));
+  }
+
+  @Test
+  public void register_rejectsOutOfRangeHandlesAndMissingIds() {
+    GeemeePlacementHandles handles = new GeemeePlacementHandles();
+    for (int handle : new int[] {-1, GeemeePlacementHandles.MAX_HANDLES}) {
+      try {
+        handles.register(handle, "BANNER", "banner-1", null);
+        fail("handle " + handle + " was accepted");
+      } catch (IllegalArgumentException expected) {
+        // expected
+      }
+    }
+    try {
+      handles.register(0, "BANNER", null, null);
+      fail("null placementId was accepted");
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+    assertNull(handles.get(0));
+  }
+
+  @Test
+  public void rebind_keepsAnotherHandleOfThePlacementForEvents() {
+    GeemeePlacementHandles handles = new GeemeePlacementHandles();
+    // the same placement id registered for two formats
+    handles.register(0, "BANNER", "shared", null);
+    handles.register(1, "INTERSTITIAL", "shared", null);
+    assertEquals(0, handles.handleOf("shared"));
+
+    handles.register(0, "BANNER", "other", null);
+    assertEquals(1, handles.handleOf("shared"));
+    assertEquals(0, handles.handleOf("other"));
+    assertEquals("shared", handles.get(1).placementId);
+  }
+
+  @Test
+  public void rebind_dropsThePlacementWithoutOtherHandles() {
+    GeemeePlacementHandles handles = new GeemeePlacementHandles();
+    handles.register(0, "BANNER", "old", null);
+    handles.register(0, "BANNER", "new", null);
+
+    assertEquals(-1, handles.handleOf("old"));
+    assertEquals(0, handles.handleOf("new"));
+  }
+
+  @Test
+  public void clear_forgetsEverything() {
+    GeemeePlacementHandles handles = new GeemeePlacementHandles();
+    handles.register(2, "BANNER", "banner-1", null);
+    handles.clear();
+
+    assertNull(handles.get(2));
+    assertEquals(-1, handles.handleOf("banner-1"));
+  }
+}
@@ -0,0 +1,36 @@
+package com.sudeep.geemee_flutter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class GeemeePlacementStatesTest {
+  @Test
+  public void cachedReadiness_reusesOnlyPositiveAnswersForFormatsWithoutReadyCallback() {
+    GeemeePlacementStates states = new GeemeePlacementStates();
+
+    states.onReadinessObserved(GeemeePlacementStates.INTERSTITIAL, "inter-1", false);
+    // the SDK may refill at any moment: a negative answer is not reused
+    assertNull(states.cachedReadiness(GeemeePlacementStates.INTERSTITIAL, "inter-1"));
+
+    states.onReadinessObserved(GeemeePlacementStates.INTERSTITIAL, "inter-1", true);
+    assertEquals(Boolean.TRUE, states.cachedReadiness(GeemeePlacementStates.INTERSTITIAL, "inter-1"));
+
+    states.onOpened(GeemeePlacementStates.INTERSTITIAL, "inter-1");
+    assertEquals(Boolean.FALSE, states.cachedReadiness(GeemeePlacementStates.INTERSTITIAL, "inter-1"));
+  }
+
+  @Test
+  public void cachedReadiness_bannersFollowTheirCallbacks() {
+    GeemeePlacementStates states = new GeemeePlacementStates();
+
+    assertNull(states.cachedReadiness(GeemeePlacementStates.BANNER, "banner-1"));
+    states.onLoadRequested(GeemeePlacementStates.BANNER, "banner-1");
+    assertEquals(Boolean.FALSE, states.cachedReadiness(GeemeePlacementStates.BANNER, "banner-1"));
+    states.onReady(GeemeePlacementStates.BANNER, "banner-1");
+    assertEquals(Boolean.TRUE, states.cachedReadiness(GeemeePlacementStates.BANNER, "banner-1"));
+    states.onDestroyed(GeemeePlacementStates.BANNER, "banner-1");
+    assertNull(states.cachedReadiness(GeemeePlacementStates.BANNER, "banner-1"));
+  }
+}
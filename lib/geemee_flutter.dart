@@ -1,3 +1,7 @@
+import 'dart:async';
+import 'dart:convert';
+import 'dart:typed_data';
+
 import 'package:flutter/material.dart';
 import 'package:flutter/services.dart';
 
@@ -21,14 +25,199 @@ extension GeemeeBannerSizeExt on GeemeeBannerSize {
   }
 }
 
+/// ================= AD FORMAT ENUM =================
+enum GeemeeAdFormat { banner, interstitial, offerWall, userCenter }
+
+extension GeemeeAdFormatExt on GeemeeAdFormat {
+  String get value {
+    switch (this) {
+      case GeemeeAdFormat.banner:
+        return 'BANNER';
+      case GeemeeAdFormat.interstitial:
+        return 'INTERSTITIAL';
+      case GeemeeAdFormat.offerWall:
+        return 'OFFER_WALL';
+      case GeemeeAdFormat.userCenter:
+        return 'USER_CENTER';
+    }
+  }
+}
+
+/// Native SDK init state, see [GeemeeFlutter.getInitState].
+enum GeemeeInitState { uninitialized, initializing, ready, failed }
+
+/// What a placement may do while the app's activity is stopped,
+/// see [GeemeeFlutter.setBackgroundPolicy].
+enum GeemeeBackgroundPolicy {
+  /// Loads, banner events and banner views wait for the activity to start.
+  pause,
+
+  /// Keeps loading and delivering events in the background.
+  run,
+}
+
+/// How a placement group picks its winner, see [GeemeeFlutter.configurePlacementGroup].
+enum GeemeePlacementGroupStrategy {
+  /// The first member to report ready wins.
+  firstReady,
+
+  /// The highest-priority member that is ready wins, once every member listed
+  /// before it has failed.
+  priority,
+}
+
+/// Thread on which the simulated backend delivers SDK callbacks.
+enum GeemeeCallbackThread {
+  main, // the UI thread
+  single, // one background thread, like most SDKs
+  pool, // several background threads, callbacks may race
+}
+
+extension GeemeeCallbackThreadExt on GeemeeCallbackThread {
+  String get value {
+    switch (this) {
+      case GeemeeCallbackThread.main:
+        return 'MAIN';
+      case GeemeeCallbackThread.single:
+        return 'SINGLE';
+      case GeemeeCallbackThread.pool:
+        return 'POOL';
+    }
+  }
+}
+
+/// A (format, placementId) pair used by the batched APIs.
+class GeemeePlacement {
+  final GeemeeAdFormat format;
+  final String placementId;
+
+  const GeemeePlacement(this.format, this.placementId);
+
+  @override
+  bool operator ==(Object other) =>
+      other is GeemeePlacement &&
+      other.format == format &&
+      other.placementId == placementId;
+
+  @override
+  int get hashCode => Object.hash(format, placementId);
+
+  @override
+  String toString() => 'GeemeePlacement(${format.value}, $placementId)';
+}
+
+/// How a show started with one of the `...AndWait` methods ended.
+enum GeemeeShowOutcome {
+  /// The ad opened and was closed.
+  closed,
+
+  /// The SDK reported that the ad failed to open.
+  openFailed,
+
+  /// Neither an open nor an open-failed callback arrived in time.
+  openTimeout,
+
+  /// The ad opened but no close callback arrived in time.
+  closeTimeout,
+
+  /// The show was not made, e.g. the placement's circuit is open or another
+  /// show is already waiting for it; see [GeemeeShowResult.error].
+  error,
+}
+
+/// Result of [GeemeeFlutter.showInterstitialAndWait],
+/// [GeemeeFlutter.openOfferWallAndWait] and [GeemeeFlutter.openUserCenterAndWait].
+class GeemeeShowResult {
+  final GeemeeShowOutcome outcome;
+  final String placementId;
+  final String? error;
+
+  /// When the show was requested, and when the ad opened (null if it didn't).
+  final DateTime? requestedAt;
+  final DateTime? openedAt;
+
+  /// Time from the request to the open callback.
+  final Duration? openLatency;
+
+  /// Time the ad was on screen, from the open callback to the end.
+  final Duration? shownDuration;
+
+  /// Time from the request to the end.
+  final Duration? total;
+
+  const GeemeeShowResult({
+    required this.outcome,
+    required this.placementId,
+    this.error,
+    this.requestedAt,
+    this.openedAt,
+    this.openLatency,
+    this.shownDuration,
+    this.total,
+  });
+
+  static const Map<String, GeemeeShowOutcome> _outcomes = {
+    'CLOSED': GeemeeShowOutcome.closed,
+    'OPEN_FAILED': GeemeeShowOutcome.openFailed,
+    'OPEN_TIMEOUT': GeemeeShowOutcome.openTimeout,
+    'CLOSE_TIMEOUT': GeemeeShowOutcome.closeTimeout,
+  };
+
+  static DateTime? _time(Object? ms) =>
+      ms is int ? DateTime.fromMillisecondsSinceEpoch(ms) : null;
+
+  static Duration? _duration(Object? ms) => ms is num
+      ? Duration(microseconds: (ms * 1000).round())
+      : null;
+
+  factory GeemeeShowResult._fromMap(String placementId, Map<dynamic, dynamic> map) {
+    return GeemeeShowResult(
+      outcome: _outcomes[map['outcome']] ?? GeemeeShowOutcome.error,
+      placementId: placementId,
+      error: map['error'] as String?,
+      requestedAt: _time(map['requestedAt']),
+      openedAt: _time(map['openedAt']),
+      openLatency: _duration(map['openLatencyMs']),
+      shownDuration: _duration(map['shownMs']),
+      total: _duration(map['totalMs']),
+    );
+  }
+
+  @override
+  String toString() => 'GeemeeShowResult(${outcome.name}, $placementId'
+      '${error != null ? ', $error' : ''}, total: $total)';
+}
+
 /// ================= MAIN PLUGIN CLASS =================
 class GeemeeFlutter {
   static const MethodChannel _channel = MethodChannel('geemee_flutter');
+
+  /// Pure queries go through this channel; the native side serves them on a
+  /// background task queue so they don't compete with rendering and input.
+  static const MethodChannel _backgroundChannel = MethodChannel(
+    'geemee_flutter/background',
+  );
   static const EventChannel _events = EventChannel('geemee_flutter_events');
+  static const BasicMessageChannel<ByteData?> _binaryEvents =
+      BasicMessageChannel<ByteData?>(
+        'geemee_flutter_events_binary',
+        BinaryCodec(),
+      );
+  static final StreamController<Map<dynamic, dynamic>> _binaryEventController =
+      StreamController<Map<dynamic, dynamic>>.broadcast();
+  static bool _binaryHandlerInstalled = false;
+
+  // registered placement handles, see [registerPlacements]
+  static final Map<GeemeePlacement, int> _handles = {};
+  static final Map<int, String> _handleAdSizes = {};
 
   /// ================= SDK =================
   /// Initializes the GeeMee SDK with the provided app key.
   /// This method must be called before using any other features of the SDK.
+  /// Calling it again while init is running or after it succeeded has no
+  /// effect (after success, `onInitSuccess` is sent again). Ad calls made
+  /// before init completes wait for it and run in order once it succeeds, or
+  /// fail with `INIT_FAILED` if it fails, so no retry loop is needed.
   static Future<void> initSDK({required String appKey}) async {
     try {
       await _channel.invokeMethod('initSDK', {'appKey': appKey});
@@ -37,6 +226,27 @@ class GeemeeFlutter {
     }
   }
 
+  /// Returns the native SDK init state.
+  static Future<GeemeeInitState> getInitState() async {
+    try {
+      final Map<dynamic, dynamic>? state = await _backgroundChannel
+          .invokeMethod('getInitState');
+      switch (state?['state']) {
+        case 'INITIALIZING':
+          return GeemeeInitState.initializing;
+        case 'READY':
+          return GeemeeInitState.ready;
+        case 'FAILED':
+          return GeemeeInitState.failed;
+        default:
+          return GeemeeInitState.uninitialized;
+      }
+    } catch (e) {
+      debugPrint('Error getting init state: $e');
+      return GeemeeInitState.uninitialized;
+    }
+  }
+
   /// Sets the user ID for the SDK.
   /// This is optional but recommended for tracking user-specific data.
   /// The user ID can be used to identify the user across sessions.
@@ -52,7 +262,7 @@ class GeemeeFlutter {
   /// Retrieves the current user ID set in the SDK.
   static Future<String?> getUserId() async {
     try {
-      return await _channel.invokeMethod('getUserId');
+      return await _backgroundChannel.invokeMethod('getUserId');
     } catch (e) {
       debugPrint('Error getting user ID: $e');
       return null;
@@ -71,7 +281,7 @@ class GeemeeFlutter {
   /// Retrieves the current version of the SDK.
   static Future<String?> getVersion() async {
     try {
-      return await _channel.invokeMethod('getVersion');
+      return await _backgroundChannel.invokeMethod('getVersion');
     } catch (e) {
       debugPrint('Error getting SDK version: $e');
       return null;
@@ -83,9 +293,10 @@ class GeemeeFlutter {
   /// Returns true if the Offer Wall is ready, false otherwise.
   static Future<bool> isOfferWallReady({required String placementId}) async {
     try {
-      final bool ready = await _channel.invokeMethod('isOfferWallReady', {
-        'placementId': placementId,
-      });
+      final bool ready = await _backgroundChannel.invokeMethod(
+        'isOfferWallReady',
+        _placementArgs(GeemeeAdFormat.offerWall, placementId),
+      );
       return ready;
     } catch (e) {
       debugPrint('Error checking if Offer Wall is ready: $e');
@@ -99,9 +310,10 @@ class GeemeeFlutter {
   /// The `placementId` is used to identify the specific Offer Wall configuration.
   static Future<void> openOfferWall({required String placementId}) async {
     try {
-      await _channel.invokeMethod('openOfferWall', {
-        'placementId': placementId,
-      });
+      await _channel.invokeMethod(
+        'openOfferWall',
+        _placementArgs(GeemeeAdFormat.offerWall, placementId),
+      );
     } catch (e) {
       debugPrint('Error opening Offer Wall: $e');
     }
@@ -117,10 +329,13 @@ class GeemeeFlutter {
     required GeemeeBannerSize adSize,
   }) async {
     try {
-      await _channel.invokeMethod('loadBanner', {
-        'placementId': placementId,
-        'adSize': adSize.value,
-      });
+      final int? handle = _handles[GeemeePlacement(GeemeeAdFormat.banner, placementId)];
+      await _channel.invokeMethod(
+        'loadBanner',
+        handle != null && _handleAdSizes[handle] == adSize.value
+            ? handle
+            : {'placementId': placementId, 'adSize': adSize.value},
+      );
     } catch (e) {
       debugPrint('Error loading banner: $e');
     }
@@ -131,9 +346,10 @@ class GeemeeFlutter {
   /// It does not destroy the banner; it can be shown again later.
   static Future<bool> isBannerReady({required String placementId}) async {
     try {
-      final bool ready = await _channel.invokeMethod('isBannerReady', {
-        'placementId': placementId,
-      });
+      final bool ready = await _backgroundChannel.invokeMethod(
+        'isBannerReady',
+        _placementArgs(GeemeeAdFormat.banner, placementId),
+      );
       return ready;
     } catch (e) {
       debugPrint('Error checking if banner is ready: $e');
@@ -144,11 +360,157 @@ class GeemeeFlutter {
   /// Destroys the banner ad for the specified placement ID.
   static Future<void> destroyBanner({required String placementId}) async {
     try {
-      await _channel.invokeMethod('destroyBanner', {
+      await _channel.invokeMethod(
+        'destroyBanner',
+        _placementArgs(GeemeeAdFormat.banner, placementId),
+      );
+    } catch (e) {
+      debugPrint('Error destroying banner: $e');
+    }
+  }
+
+  /// Prepares banner views ahead of time for already loaded placements, so a
+  /// `GeemeeBanner` created later can show them without a new SDK view.
+  /// Returns, per placement, whether a view was prewarmed.
+  static Future<Map<String, bool>> prewarmBanners(List<String> placementIds) async {
+    try {
+      final Map<dynamic, dynamic>? prewarmed = await _channel.invokeMethod(
+        'prewarmBanners',
+        {'placementIds': placementIds},
+      );
+      return Map<String, bool>.from(prewarmed ?? const {});
+    } catch (e) {
+      debugPrint('Error prewarming banners: $e');
+      return {};
+    }
+  }
+
+  /// Configures the native pool that keeps disposed banner views for reuse.
+  /// Views are evicted least recently used first when `maxEntries` or
+  /// `maxBytes` is exceeded, and destroyed once they're older than `ttl`.
+  /// A `maxEntries` of 0 disables pooling.
+  static Future<void> configureBannerPool({
+    int maxEntries = 4,
+    int maxBytes = 8 * 1024 * 1024,
+    Duration ttl = const Duration(minutes: 1),
+  }) async {
+    try {
+      await _channel.invokeMethod('configureBannerPool', {
+        'maxEntries': maxEntries,
+        'maxBytes': maxBytes,
+        'ttlMs': ttl.inMilliseconds,
+      });
+    } catch (e) {
+      debugPrint('Error configuring banner pool: $e');
+    }
+  }
+
+  /// Returns banner pool counters (`hits`, `misses`, `evictions`, `prewarmed`,
+  /// `size`, `inUse`, `estimatedBytes`) and its current limits.
+  static Future<Map<String, dynamic>> getBannerPoolStats() async {
+    try {
+      final Map<dynamic, dynamic>? stats = await _channel.invokeMethod(
+        'getBannerPoolStats',
+      );
+      return Map<String, dynamic>.from(stats ?? const {});
+    } catch (e) {
+      debugPrint('Error getting banner pool stats: $e');
+      return {};
+    }
+  }
+
+  /// Configures the native preload scheduler, which keeps the given banner
+  /// placements loaded: it reloads a placement after its banner is shown or
+  /// fails to show, retries failed loads with exponential backoff and jitter,
+  /// and never has more than `maxConcurrentLoads` of its loads in flight.
+  /// Calling it again replaces the previous configuration.
+  static Future<void> configurePreload({
+    bool enabled = true,
+    required Map<String, GeemeeBannerSize> bannerPlacements,
+    int maxConcurrentLoads = 2,
+    Duration baseBackoff = const Duration(seconds: 2),
+    Duration maxBackoff = const Duration(minutes: 2),
+    Duration loadTimeout = const Duration(seconds: 30),
+  }) async {
+    try {
+      await _backgroundChannel.invokeMethod('configurePreload', {
+        'enabled': enabled,
+        'placements': bannerPlacements.map((id, size) => MapEntry(id, size.value)),
+        'maxConcurrentLoads': maxConcurrentLoads,
+        'baseBackoffMs': baseBackoff.inMilliseconds,
+        'maxBackoffMs': maxBackoff.inMilliseconds,
+        'loadTimeoutMs': loadTimeout.inMilliseconds,
+      });
+    } catch (e) {
+      debugPrint('Error configuring preload: $e');
+    }
+  }
+
+  /// Turns on auto-refresh for the banner views of a placement: once a view
+  /// has been on screen for `refreshAfter` in total (counting only time with
+  /// at least `minVisibleFraction` of it visible), a new banner is loaded and
+  /// swapped into the same view, and an `onBannerRefreshed` event is sent.
+  /// Banners that are not seen are never reloaded. `Duration.zero` turns
+  /// refresh off.
+  static Future<void> configureBannerRefresh({
+    required String placementId,
+    required GeemeeBannerSize adSize,
+    required Duration refreshAfter,
+    double minVisibleFraction = 0.5,
+  }) async {
+    try {
+      await _backgroundChannel.invokeMethod('configureBannerRefresh', {
         'placementId': placementId,
+        'adSize': adSize.value,
+        'refreshAfterMs': refreshAfter.inMilliseconds,
+        'minVisibleFraction': minVisibleFraction,
       });
     } catch (e) {
-      debugPrint('Error destroying banner: $e');
+      debugPrint('Error configuring banner refresh: $e');
+    }
+  }
+
+  /// Defines a placement group: banner placements used as fallbacks for one
+  /// slot, listed in priority order. Loading the group loads its members side
+  /// by side, at most `maxConcurrentLoads` at a time, instead of one after
+  /// another from Dart. Members that lose are released with `destroyBanner`.
+  /// Show the winner with [GeemeeGroupBanner]. An empty `placementIds` removes
+  /// the group.
+  static Future<void> configurePlacementGroup({
+    required String groupId,
+    required List<String> placementIds,
+    required GeemeeBannerSize adSize,
+    GeemeePlacementGroupStrategy strategy =
+        GeemeePlacementGroupStrategy.firstReady,
+    int maxConcurrentLoads = 2,
+    Duration loadTimeout = const Duration(seconds: 30),
+  }) async {
+    try {
+      await _backgroundChannel.invokeMethod('configurePlacementGroup', {
+        'groupId': groupId,
+        'placementIds': placementIds,
+        'adSize': adSize.value,
+        'strategy': strategy == GeemeePlacementGroupStrategy.priority
+            ? 'PRIORITY'
+            : 'FIRST_READY',
+        'maxConcurrentLoads': maxConcurrentLoads,
+        'loadTimeoutMs': loadTimeout.inMilliseconds,
+      });
+    } catch (e) {
+      debugPrint('Error configuring placement group: $e');
+    }
+  }
+
+  /// Loads a placement group and returns the winning placement id, or null if
+  /// no member became ready. An `onPlacementGroupResolved` event is sent too.
+  static Future<String?> loadPlacementGroup({required String groupId}) async {
+    try {
+      return await _channel.invokeMethod('loadPlacementGroup', {
+        'groupId': groupId,
+      });
+    } catch (e) {
+      debugPrint('Error loading placement group: $e');
+      return null;
     }
   }
 
@@ -157,9 +519,10 @@ class GeemeeFlutter {
   /// Returns true if the interstitial ad is ready, false otherwise.
   static Future<bool> isInterstitialReady({required String placementId}) async {
     try {
-      final bool ready = await _channel.invokeMethod('isInterstitialReady', {
-        'placementId': placementId,
-      });
+      final bool ready = await _backgroundChannel.invokeMethod(
+        'isInterstitialReady',
+        _placementArgs(GeemeeAdFormat.interstitial, placementId),
+      );
       return ready;
     } catch (e) {
       debugPrint('Error checking if interstitial is ready: $e');
@@ -172,9 +535,10 @@ class GeemeeFlutter {
   /// The interstitial ad is a full-screen ad that covers the entire screen.
   static Future<void> showInterstitial({required String placementId}) async {
     try {
-      await _channel.invokeMethod('showInterstitial', {
-        'placementId': placementId,
-      });
+      await _channel.invokeMethod(
+        'showInterstitial',
+        _placementArgs(GeemeeAdFormat.interstitial, placementId),
+      );
     } catch (e) {
       debugPrint('Error showing interstitial: $e');
     }
@@ -185,9 +549,10 @@ class GeemeeFlutter {
   /// Returns true if the User Center is ready, false otherwise.
   static Future<bool> isUserCenterReady({required String placementId}) async {
     try {
-      final bool ready = await _channel.invokeMethod('isUserCenterReady', {
-        'placementId': placementId,
-      });
+      final bool ready = await _backgroundChannel.invokeMethod(
+        'isUserCenterReady',
+        _placementArgs(GeemeeAdFormat.userCenter, placementId),
+      );
       return ready;
     } catch (e) {
       debugPrint('Error checking if User Center is ready: $e');
@@ -200,20 +565,398 @@ class GeemeeFlutter {
   /// This method should be called only if `isUserCenterReady` returns true.
   static Future<void> openUserCenter({required String placementId}) async {
     try {
-      await _channel.invokeMethod('openUserCenter', {
+      await _channel.invokeMethod(
+        'openUserCenter',
+        _placementArgs(GeemeeAdFormat.userCenter, placementId),
+      );
+    } catch (e) {
+      debugPrint('Error opening User Center: $e');
+    }
+  }
+
+  /// ================= AWAITABLE SHOWS =================
+  /// Shows an interstitial and completes when it closes or fails to open,
+  /// instead of right after the SDK call like [showInterstitial].
+  /// `openTimeout` covers an SDK that never reports the open; `closeTimeout`
+  /// caps the whole show. The `events` stream still gets every callback.
+  static Future<GeemeeShowResult> showInterstitialAndWait({
+    required String placementId,
+    Duration openTimeout = const Duration(seconds: 15),
+    Duration closeTimeout = const Duration(minutes: 30),
+  }) => _presentAndWait(
+    GeemeeAdFormat.interstitial,
+    placementId,
+    openTimeout,
+    closeTimeout,
+  );
+
+  /// Opens the Offer Wall and completes when it closes or fails to open,
+  /// see [showInterstitialAndWait].
+  static Future<GeemeeShowResult> openOfferWallAndWait({
+    required String placementId,
+    Duration openTimeout = const Duration(seconds: 15),
+    Duration closeTimeout = const Duration(minutes: 30),
+  }) => _presentAndWait(
+    GeemeeAdFormat.offerWall,
+    placementId,
+    openTimeout,
+    closeTimeout,
+  );
+
+  /// Opens the PlayMee User Center and completes when it closes or fails to
+  /// open, see [showInterstitialAndWait].
+  static Future<GeemeeShowResult> openUserCenterAndWait({
+    required String placementId,
+    Duration openTimeout = const Duration(seconds: 15),
+    Duration closeTimeout = const Duration(minutes: 30),
+  }) => _presentAndWait(
+    GeemeeAdFormat.userCenter,
+    placementId,
+    openTimeout,
+    closeTimeout,
+  );
+
+  static Future<GeemeeShowResult> _presentAndWait(
+    GeemeeAdFormat format,
+    String placementId,
+    Duration openTimeout,
+    Duration closeTimeout,
+  ) async {
+    try {
+      final int? handle = _handles[GeemeePlacement(format, placementId)];
+      final Map<dynamic, dynamic>? result = await _channel.invokeMethod(
+        'presentAndWait',
+        {
+          if (handle != null)
+            'handle': handle
+          else ...{
+            'format': format.value,
+            'placementId': placementId,
+          },
+          'openTimeoutMs': openTimeout.inMilliseconds,
+          'closeTimeoutMs': closeTimeout.inMilliseconds,
+        },
+      );
+      if (result == null) {
+        return GeemeeShowResult(
+          outcome: GeemeeShowOutcome.error,
+          placementId: placementId,
+        );
+      }
+      return GeemeeShowResult._fromMap(placementId, result);
+    } on PlatformException catch (e) {
+      return GeemeeShowResult(
+        outcome: GeemeeShowOutcome.error,
+        placementId: placementId,
+        error: '${e.code}: ${e.message}',
+      );
+    } catch (e) {
+      debugPrint('Error presenting ${format.value}: $e');
+      return GeemeeShowResult(
+        outcome: GeemeeShowOutcome.error,
+        placementId: placementId,
+        error: '$e',
+      );
+    }
+  }
+
+  /// ================= PLACEMENT HANDLES =================
+  /// Registers placements once so later calls for them send a small integer
+  /// handle instead of a `{'placementId': ...}` map, and binary event frames
+  /// (see [setBinaryEventTransport]) carry the handle instead of the id.
+  /// Calls for unregistered placements keep working as before.
+  /// `bannerSizes` gives the size sent with `loadBanner` for a banner
+  /// placement; loading it with another size falls back to the map.
+  /// Registering a placement again keeps its handle.
+  static Future<void> registerPlacements(
+    List<GeemeePlacement> placements, {
+    Map<String, GeemeeBannerSize> bannerSizes = const {},
+  }) async {
+    final List<GeemeePlacement> added = placements
+        .where((p) => !_handles.containsKey(p))
+        .toSet()
+        .toList();
+    if (added.isEmpty) return;
+    final bool reset = _GeemeeEventDecoder._handlePlacements.isEmpty;
+    final int first = _GeemeeEventDecoder._handlePlacements.length;
+    final List<String?> adSizes = added
+        .map((p) => p.format == GeemeeAdFormat.banner
+            ? bannerSizes[p.placementId]?.value
+            : null)
+        .toList();
+    // the event decoder must know a handle before any frame can carry it
+    _GeemeeEventDecoder._handlePlacements.addAll(added.map((p) => p.placementId));
+    try {
+      await _backgroundChannel.invokeMethod('registerPlacements', {
+        'reset': reset,
+        'handles': List<int>.generate(added.length, (i) => first + i),
+        'formats': added.map((p) => p.format.value).toList(),
+        'placementIds': added.map((p) => p.placementId).toList(),
+        'adSizes': adSizes,
+      });
+      for (int i = 0; i < added.length; i++) {
+        _handles[added[i]] = first + i;
+        if (adSizes[i] != null) _handleAdSizes[first + i] = adSizes[i]!;
+      }
+    } catch (e) {
+      debugPrint('Error registering placements: $e');
+    }
+  }
+
+  /// Arguments of a placement-only call: the registered handle, or the
+  /// `{'placementId': ...}` map.
+  static Object _placementArgs(GeemeeAdFormat format, String placementId) =>
+      _handles[GeemeePlacement(format, placementId)] ??
+      {'placementId': placementId};
+
+  /// ================= BATCHED QUERIES =================
+  /// Checks the readiness of several placements in a single platform call.
+  /// Returns one entry per placement, in the same order as `placements`.
+  /// A placement whose check failed on the native side is reported as not ready.
+  static Future<List<bool>> getReadiness(List<GeemeePlacement> placements) async {
+    if (placements.isEmpty) return const [];
+    try {
+      final Uint8List? readiness = await _backgroundChannel.invokeMethod('getReadiness', {
+        'formats': placements.map((p) => p.format.value).toList(),
+        'placementIds': placements.map((p) => p.placementId).toList(),
+      });
+      if (readiness == null || readiness.length != placements.length) {
+        return List<bool>.filled(placements.length, false);
+      }
+      return List<bool>.generate(readiness.length, (i) => readiness[i] == 1);
+    } catch (e) {
+      debugPrint('Error checking readiness: $e');
+      return List<bool>.filled(placements.length, false);
+    }
+  }
+
+  /// Returns the native per-placement state table, maintained from SDK callbacks.
+  /// Each entry has `format`, `placementId`, `state` (IDLE, LOADING, READY,
+  /// SHOWING or FAILED) and, when known, epoch-millisecond timestamps
+  /// (`updatedAt`, `loadRequestedAt`, `readyAt`, `showRequestedAt`, `openedAt`,
+  /// `closedAt`, `failedAt`) plus `lastError`.
+  static Future<List<Map<String, dynamic>>> getPlacementStates() async {
+    try {
+      final List<dynamic>? states = await _backgroundChannel.invokeMethod(
+        'getPlacementStates',
+      );
+      return (states ?? const [])
+          .map((state) => Map<String, dynamic>.from(state))
+          .toList();
+    } catch (e) {
+      debugPrint('Error getting placement states: $e');
+      return [];
+    }
+  }
+
+  /// ================= METRICS =================
+  /// Returns a snapshot of native plugin metrics:
+  /// - `methods`: per method call duration histogram and `failures`
+  /// - `placements`: per `FORMAT:placementId` `loadToReady` / `showToOpen`
+  ///   callback latency histograms and `failures`
+  /// - `initToReady`, `bannerCreate`: SDK init and banner view creation latency
+  /// - `counters`: e.g. `eventsDelivered`, `eventsDropped`, `eventsFiltered`,
+  ///   `bannerPlaceholders`
+  /// - `attachedEngines`: Flutter engines in this process receiving SDK callbacks
+  /// - `openCircuits`: placements whose circuit breaker is open or half-open
+  /// - `activityStopped`: whether work is paused because the activity is stopped
+  /// - `mainThreadStalls`: per SDK method `stalls`, `totalMs` and `maxMs`, see
+  ///   [configureStallWatchdog]
+  /// Histograms contain `count`, `meanUs`, `maxUs`, `p50Us`, `p90Us`, `p99Us`.
+  /// Pass `reset: true` to clear all metrics after taking the snapshot.
+  static Future<Map<String, dynamic>> getMetrics({bool reset = false}) async {
+    try {
+      final Map<dynamic, dynamic>? metrics = await _backgroundChannel
+          .invokeMethod('getMetrics', {'reset': reset});
+      return Map<String, dynamic>.from(metrics ?? const {});
+    } catch (e) {
+      debugPrint('Error getting metrics: $e');
+      return {};
+    }
+  }
+
+  /// Configures the native per-placement circuit breakers (on by default).
+  /// After [failureThreshold] consecutive load / open failures of a placement,
+  /// `loadBanner`, `showInterstitial`, `openOfferWall` and `openUserCenter`
+  /// for it fail with `CIRCUIT_OPEN` without reaching the SDK. After
+  /// [cooldown] one trial call is let through: its success closes the
+  /// breaker, its failure opens it again. Each change is reported as an
+  /// `onCircuitStateChanged` event with `format`, `placementId`, `state`
+  /// (`CLOSED`, `OPEN`, `HALF_OPEN`), `consecutiveFailures` and `retryAfterMs`.
+  static Future<void> configureCircuitBreaker({
+    bool enabled = true,
+    int failureThreshold = 5,
+    Duration cooldown = const Duration(seconds: 30),
+  }) async {
+    try {
+      await _backgroundChannel.invokeMethod('configureCircuitBreaker', {
+        'enabled': enabled,
+        'failureThreshold': failureThreshold,
+        'cooldownMs': cooldown.inMilliseconds,
+      });
+    } catch (e) {
+      debugPrint('Error configuring circuit breaker: $e');
+    }
+  }
+
+  /// Turns the main-thread stall watchdog on or off (off by default).
+  /// When on, every SDK call made on the main thread is timed. A call that
+  /// takes longer than [budget] is reported as an `onMainThreadStall` event
+  /// with `method`, `placementId`, `durationMs`, `budgetMs`, `stackTrace`
+  /// (the main thread's stack when the budget ran out, or null if the call
+  /// finished first) and `totals` for that method.
+  static Future<void> configureStallWatchdog({
+    bool enabled = true,
+    Duration budget = const Duration(milliseconds: 100),
+  }) async {
+    try {
+      await _backgroundChannel.invokeMethod('configureStallWatchdog', {
+        'enabled': enabled,
+        'budgetMs': budget.inMilliseconds,
+      });
+    } catch (e) {
+      debugPrint('Error configuring stall watchdog: $e');
+    }
+  }
+
+  /// Sets what [placementId] may do while the app's activity is stopped
+  /// (in the background, or covered by a full-screen ad).
+  /// With [GeemeeBackgroundPolicy.pause], the default, banner loads are
+  /// deferred, banner and plugin events are held and banner views are
+  /// detached until the activity starts again. Init and full-screen ad events
+  /// are always delivered. On start, placements with a higher [priority]
+  /// resume first.
+  static Future<void> setBackgroundPolicy(
+    String placementId,
+    GeemeeBackgroundPolicy policy, {
+    int priority = 0,
+  }) async {
+    try {
+      await _backgroundChannel.invokeMethod('setBackgroundPolicy', {
         'placementId': placementId,
+        'policy': policy.name.toUpperCase(),
+        'priority': priority,
       });
     } catch (e) {
-      debugPrint('Error opening User Center: $e');
+      debugPrint('Error setting background policy: $e');
+    }
+  }
+
+  /// Turns native trace instrumentation on or off (off by default).
+  /// When on, method calls, SDK calls, banner view attach / release and event
+  /// delivery emit `android.os.Trace` sections, and loads, shows and banner
+  /// view creation emit async slices (Android 10+), labeled
+  /// `GeeMee <what> <placement>`. Record them with Perfetto or systrace next
+  /// to Flutter's own timeline.
+  static Future<void> setTracing(bool enabled) async {
+    try {
+      await _backgroundChannel.invokeMethod('setTracing', {'enabled': enabled});
+    } catch (e) {
+      debugPrint('Error setting tracing: $e');
+    }
+  }
+
+  /// Turns the on-device event log on or off (off by default).
+  /// When on, every SDK callback and method call is appended as a fixed 64-byte
+  /// record to memory-mapped files in the app's files directory, which survive
+  /// process death and rotate so the log stays under [maxBytes]. Recording
+  /// resumes the existing log; use [exportEventLog] to read it back.
+  static Future<void> configureEventLog({
+    bool enabled = true,
+    int maxBytes = 1024 * 1024,
+  }) async {
+    try {
+      await _backgroundChannel.invokeMethod('configureEventLog', {
+        'enabled': enabled,
+        'maxBytes': maxBytes,
+      });
+    } catch (e) {
+      debugPrint('Error configuring event log: $e');
     }
   }
 
+  /// Streams the on-device event log, oldest record first, in chunks of at
+  /// most [chunkRecords] raw records. Records written while exporting are
+  /// included. Decode the chunks with [decodeEventLog].
+  static Stream<Uint8List> exportEventLog({int chunkRecords = 1024}) async* {
+    int afterSequence = 0;
+    while (true) {
+      Uint8List? records;
+      try {
+        final Map<dynamic, dynamic>? chunk = await _backgroundChannel
+            .invokeMethod('exportEventLog', {
+          'afterSequence': afterSequence,
+          'maxRecords': chunkRecords,
+        });
+        records = chunk?['records'] as Uint8List?;
+      } catch (e) {
+        debugPrint('Error exporting event log: $e');
+        return;
+      }
+      if (records == null || records.isEmpty) return;
+      yield records;
+      final ByteData data = ByteData.sublistView(records);
+      afterSequence = data.getUint32(records.length - _GeemeeEventLogDecoder.recordSize);
+    }
+  }
+
+  /// Decodes records from [exportEventLog] into maps with `sequence`, `kind`
+  /// (`callback`, `method` or `methodError`), `name`, `format`, `failure`,
+  /// `time` (DateTime), `durationUs` and `placementId`.
+  static List<Map<String, dynamic>> decodeEventLog(Uint8List records) =>
+      _GeemeeEventLogDecoder.decode(records);
+
   /// ================= EVENTS =================
+  /// Configures the native buffer that holds events emitted while nobody
+  /// listens to [events], e.g. `onInitSuccess` fired before the first listener.
+  /// Buffered events are replayed in order when a listener subscribes.
+  /// A `capacity` of 0 disables buffering.
+  static Future<void> configureEventBuffer({
+    int capacity = 64,
+    Duration maxAge = const Duration(minutes: 1),
+  }) async {
+    try {
+      await _backgroundChannel.invokeMethod('configureEventBuffer', {
+        'capacity': capacity,
+        'maxAgeMs': maxAge.inMilliseconds,
+      });
+    } catch (e) {
+      debugPrint('Error configuring event buffer: $e');
+    }
+  }
+
+  /// Restricts the [events] this Flutter engine receives to the given ad
+  /// [formats] and [placementIds]; `null` means no restriction.
+  /// Every engine in the process receives SDK callbacks, so e.g. a background
+  /// isolate can subscribe to its own placements only. Init events always pass.
+  static Future<void> setEventFilter({
+    List<GeemeeAdFormat>? formats,
+    List<String>? placementIds,
+  }) async {
+    try {
+      await _backgroundChannel.invokeMethod('setEventFilter', {
+        'formats': formats?.map((f) => f.value).toList(),
+        'placementIds': placementIds,
+      });
+    } catch (e) {
+      debugPrint('Error setting event filter: $e');
+    }
+  }
+
   /// Listens to events from the GeeMee SDK.
   /// The events are sent as a stream of maps containing event data.
   /// Each event map contains the event type and any additional data related to the event.
+  /// The native side delivers events in per-frame batches; they are flattened here in order.
+  /// Besides SDK callbacks, the plugin reports its own events, e.g.
+  /// `onTrimMemory` when Android asks the app to free memory: `level`, `stage`,
+  /// `pooledBannersReleased`, `liveBannersReleased` (placement ids of off-screen
+  /// banners whose views were destroyed), `eventsDropped` and
+  /// `preloadRetriesCancelled`.
   static Stream<Map<dynamic, dynamic>> get events {
-    return _events.receiveBroadcastStream().map((event) {
+    final Stream<Map<dynamic, dynamic>> mapEvents = _events
+        .receiveBroadcastStream()
+        .expand((batch) => batch is List ? batch : [batch])
+        .map((event) {
       try {
         return Map<dynamic, dynamic>.from(event);
       } catch (e) {
@@ -221,11 +964,280 @@ class GeemeeFlutter {
         return {};
       }
     });
+
+    // the event channel subscription is kept in both transport modes: it is what
+    // tells the native side a listener is attached (and triggers buffered replay)
+    StreamSubscription<Map<dynamic, dynamic>>? mapSubscription;
+    StreamSubscription<Map<dynamic, dynamic>>? binarySubscription;
+    late final StreamController<Map<dynamic, dynamic>> controller;
+    controller = StreamController<Map<dynamic, dynamic>>.broadcast(
+      onListen: () {
+        mapSubscription = mapEvents.listen(
+          controller.add,
+          onError: controller.addError,
+        );
+        binarySubscription = _binaryEventController.stream.listen(
+          controller.add,
+        );
+      },
+      onCancel: () async {
+        await mapSubscription?.cancel();
+        await binarySubscription?.cancel();
+      },
+    );
+    return controller.stream;
+  }
+
+  /// Switches the event transport between the default map encoding and a
+  /// compact binary framing with integer event tags.
+  /// Events keep the same shape on the [events] stream in both modes; binary
+  /// events additionally carry `placementId` (and `detail` where present).
+  static Future<void> setBinaryEventTransport(bool enabled) async {
+    if (enabled && !_binaryHandlerInstalled) {
+      _binaryHandlerInstalled = true;
+      _binaryEvents.setMessageHandler((ByteData? message) async {
+        if (message == null) return null;
+        try {
+          _GeemeeEventDecoder.decode(message).forEach(_binaryEventController.add);
+        } catch (e) {
+          debugPrint('Error decoding binary GeeMee events: $e');
+        }
+        return null;
+      });
+    }
+    try {
+      await _backgroundChannel.invokeMethod('setEventTransport', {'binary': enabled});
+    } catch (e) {
+      debugPrint('Error setting event transport: $e');
+    }
+  }
+
+  /// ================= TESTING =================
+  /// Replaces the GeeMee SDK with a local simulation, for load and
+  /// concurrency testing without the network. Call it before [initSDK];
+  /// `enabled: false` switches back to the real SDK.
+  /// Every asynchronous step takes a random latency between [minLatency] and
+  /// [maxLatency]; loads fill with probability [fillRate], and init and opens
+  /// fail with probability [failureRate].
+  /// Only available in debug builds of the Android plugin; release builds
+  /// reject it with a `DEBUG_ONLY` error.
+  static Future<void> configureSimulatedBackend({
+    bool enabled = true,
+    Duration minLatency = const Duration(milliseconds: 20),
+    Duration maxLatency = const Duration(milliseconds: 200),
+    double fillRate = 0.9,
+    double failureRate = 0.05,
+    GeemeeCallbackThread callbackThread = GeemeeCallbackThread.pool,
+  }) async {
+    try {
+      await _channel.invokeMethod('configureSimulatedBackend', {
+        'enabled': enabled,
+        'minLatencyMs': minLatency.inMilliseconds,
+        'maxLatencyMs': maxLatency.inMilliseconds,
+        'fillRate': fillRate,
+        'failureRate': failureRate,
+        'callbackThread': callbackThread.value,
+      });
+    } catch (e) {
+      debugPrint('Error configuring simulated backend: $e');
+    }
+  }
+
+  /// Runs [cycles] load -> ready -> query -> show -> close cycles spread over
+  /// [concurrency] native workers against the simulated backend, and returns
+  /// counts (`completed`, `loadFailures`, `showFailures`, `timeouts`, ...),
+  /// `durationMs`, `cyclesPerSecond` and latency histograms (`methodCall`,
+  /// `loadToReady`, `showToClose`, `cycle`) shaped like those of [getMetrics].
+  /// Requires [configureSimulatedBackend] and [initSDK] first; debug builds only.
+  static Future<Map<String, dynamic>> runLoadTest({
+    int cycles = 100,
+    int concurrency = 4,
+  }) async {
+    try {
+      final Map<dynamic, dynamic>? report = await _backgroundChannel
+          .invokeMethod('runLoadTest', {
+        'cycles': cycles,
+        'concurrency': concurrency,
+      });
+      return Map<String, dynamic>.from(report ?? const {});
+    } catch (e) {
+      debugPrint('Error running load test: $e');
+      return {};
+    }
+  }
+}
+
+/// Decoder for the binary event frames written by `GeemeeEventCodec` on Android.
+/// The tag table must stay in sync with `GeemeeEventCodec.EVENT_NAMES`.
+class _GeemeeEventDecoder {
+  static const int _tagCustom = 0;
+  static const int _nullString = 0xFFFF;
+  static const int _handleMarker = 0xFFFE;
+
+  /// Placement ids by handle, filled by [GeemeeFlutter.registerPlacements].
+  static final List<String> _handlePlacements = [];
+
+  static const List<String?> _eventNames = [
+    null,
+    'onInitSuccess',
+    'onInitFailed',
+    'onBannerReady',
+    'onBannerLoadFailed',
+    'onBannerShowFailed',
+    'onBannerClick',
+    'onInterstitialOpen',
+    'onInterstitialOpenFailed',
+    'onInterstitialClose',
+    'onOfferWallOpen',
+    'onOfferWallOpenFailed',
+    'onOfferWallClose',
+    'onUserCenterOpen',
+    'onUserCenterOpenFailed',
+    'onUserCenterClose',
+    'onUserInteraction',
+  ];
+
+  static const StandardMessageCodec _payloadCodec = StandardMessageCodec();
+
+  static List<Map<dynamic, dynamic>> decode(ByteData data) {
+    int offset = 0;
+
+    String? readString() {
+      final int length = data.getUint16(offset);
+      offset += 2;
+      if (length == _nullString) return null;
+      final String value = utf8.decode(
+        Uint8List.sublistView(data, offset, offset + length),
+      );
+      offset += length;
+      return value;
+    }
+
+    String? readPlacement() {
+      if (data.getUint16(offset) != _handleMarker) return readString();
+      final int handle = data.getUint16(offset + 2);
+      offset += 4;
+      return handle < _handlePlacements.length ? _handlePlacements[handle] : null;
+    }
+
+    final int count = data.getUint16(offset);
+    offset += 2;
+    final List<Map<dynamic, dynamic>> events = [];
+    for (int i = 0; i < count; i++) {
+      final int tag = data.getUint8(offset);
+      offset += 1;
+      final String? placementId = readPlacement();
+      if (tag == _tagCustom) {
+        final String? name = readString();
+        final int length = data.getUint32(offset);
+        offset += 4;
+        final Object? payload = length == 0
+            ? null
+            : _payloadCodec.decodeMessage(
+                ByteData.sublistView(data, offset, offset + length),
+              );
+        offset += length;
+        events.add({
+          'event': name,
+          if (payload != null) 'data': payload,
+          'placementId': placementId,
+        });
+        continue;
+      }
+
+      final String? name = tag < _eventNames.length ? _eventNames[tag] : null;
+      final String? detail = readString();
+      if (name == null) continue;
+      final Object? payload = _legacyPayload(name, placementId, detail);
+      events.add({
+        'event': name,
+        if (payload != null) 'data': payload,
+        'placementId': placementId,
+        if (detail != null) 'detail': detail,
+      });
+    }
+    return events;
+  }
+
+  /// Same `data` payload the map transport produces for SDK callbacks.
+  static Object? _legacyPayload(String name, String? placementId, String? detail) {
+    if (name == 'onInitSuccess') return null;
+    if (name == 'onUserInteraction') return '$placementId:$detail';
+    if (name.endsWith('Failed')) {
+      return {if (detail != null) 'error': detail};
+    }
+    return placementId;
+  }
+}
+
+/// Decoder for the records written by `GeemeeEventLog` on Android.
+/// The method table must stay in sync with `GeemeeEventLog.METHOD_NAMES`.
+class _GeemeeEventLogDecoder {
+  static const int recordSize = 64;
+
+  static const List<String?> _kinds = [null, 'callback', 'method', 'methodError'];
+  static const List<String?> _formats = [
+    null,
+    'BANNER',
+    'INTERSTITIAL',
+    'OFFER_WALL',
+    'USER_CENTER',
+  ];
+
+  static const List<String?> _methodNames = [
+    null,
+    'initSDK', 'setUserId', 'getUserId', 'setDebugMode', 'getVersion',
+    'isOfferWallReady', 'openOfferWall',
+    'loadBanner', 'isBannerReady', 'destroyBanner', 'prewarmBanners',
+    'configureBannerPool', 'getBannerPoolStats', 'configurePreload',
+    'isInterstitialReady', 'showInterstitial',
+    'isUserCenterReady', 'openUserCenter',
+    'getReadiness', 'configureEventBuffer', 'getPlacementStates', 'getMetrics',
+    'setEventTransport',
+    'configureSimulatedBackend', 'runLoadTest', 'setEventFilter',
+    'getInitState', 'setTracing',
+    'createTextureBanner', 'dispatchTextureBannerTouch', 'disposeTextureBanner',
+    'configureCircuitBreaker', 'configureEventLog', 'exportEventLog',
+    'setBackgroundPolicy', 'configureStallWatchdog', 'registerPlacements', 'presentAndWait',
+    'configurePlacementGroup', 'loadPlacementGroup', 'configureBannerRefresh',
+  ];
+
+  static String? _lookup(List<String?> table, int index) =>
+      index < table.length ? table[index] : null;
+
+  static List<Map<String, dynamic>> decode(Uint8List records) {
+    final ByteData data = ByteData.sublistView(records);
+    final List<Map<String, dynamic>> decoded = [];
+    for (int o = 0; o + recordSize <= records.length; o += recordSize) {
+      final int kind = data.getUint8(o + 4);
+      final int code = data.getUint8(o + 5);
+      final int placementLength = data.getUint8(o + 20);
+      decoded.add({
+        'sequence': data.getUint32(o),
+        'kind': _lookup(_kinds, kind),
+        'name': kind == 1
+            ? _lookup(_GeemeeEventDecoder._eventNames, code)
+            : _lookup(_methodNames, code),
+        'format': _lookup(_formats, data.getUint8(o + 6)),
+        'failure': data.getUint8(o + 7) & 1 != 0,
+        'time': DateTime.fromMillisecondsSinceEpoch(data.getInt64(o + 8)),
+        'durationUs': data.getInt32(o + 16),
+        'placementId': placementLength == 0
+            ? null
+            : ascii.decode(
+                Uint8List.sublistView(records, o + 21, o + 21 + placementLength),
+              ),
+      });
+    }
+    return decoded;
   }
 }
 
 /// ================= BANNER WIDGET =================
 /// Use this in your Flutter widget tree to display a native GeeMee banner.
+/// The platform view is created right away and the SDK banner is attached once
+/// it is ready; an `onBannerViewCreated` event reports `latencyMs`, `success`
+/// and whether the view came from the banner pool (`pooled`).
 class GeemeeBanner extends StatelessWidget {
   final String placementId;
 
@@ -240,3 +1252,141 @@ class GeemeeBanner extends StatelessWidget {
     );
   }
 }
+
+/// Banner that shows the winner of a placement group, see
+/// [GeemeeFlutter.configurePlacementGroup]. Created while the group is still
+/// loading, it waits for the winner; each widget takes one winner, so load
+/// the group again before showing it in another widget.
+class GeemeeGroupBanner extends StatelessWidget {
+  final String groupId;
+
+  const GeemeeGroupBanner({super.key, required this.groupId});
+
+  @override
+  Widget build(BuildContext context) {
+    return AndroidView(
+      viewType: 'geemee_banner_view',
+      creationParams: {'groupId': groupId},
+      creationParamsCodec: const StandardMessageCodec(),
+    );
+  }
+}
+
+/// ================= TEXTURE BANNER WIDGET =================
+/// Alternative to [GeemeeBanner] that draws the native banner into a Flutter
+/// [Texture] instead of embedding a platform view, avoiding platform view
+/// composition cost, e.g. for several banners in a long list.
+/// Best for static banners: the banner is re-rendered into the texture each
+/// time it changes. Taps are forwarded to the native banner, so clicks are
+/// still tracked. The placement must be loaded (see [GeemeeFlutter.loadBanner]).
+/// If the Android activity goes away, the native side releases the texture and
+/// sends an `onTextureBannerReleased` event with its `textureId`; rebuild the
+/// widget with a new key to show the banner again.
+class GeemeeTextureBanner extends StatefulWidget {
+  final String placementId;
+  final GeemeeBannerSize adSize;
+
+  const GeemeeTextureBanner({
+    super.key,
+    required this.placementId,
+    this.adSize = GeemeeBannerSize.banner,
+  });
+
+  @override
+  State<GeemeeTextureBanner> createState() => _GeemeeTextureBannerState();
+}
+
+class _GeemeeTextureBannerState extends State<GeemeeTextureBanner> {
+  static const MethodChannel _channel = MethodChannel('geemee_flutter');
+
+  int? _textureId;
+  double _devicePixelRatio = 1.0;
+  bool _requested = false;
+  bool _disposed = false;
+
+  Size get _size {
+    switch (widget.adSize) {
+      case GeemeeBannerSize.banner:
+        return const Size(320, 50);
+      case GeemeeBannerSize.mediumRectangle:
+        return const Size(300, 250);
+      case GeemeeBannerSize.leaderboard:
+        return const Size(728, 90);
+    }
+  }
+
+  @override
+  void didChangeDependencies() {
+    super.didChangeDependencies();
+    if (_requested) return;
+    _requested = true;
+    _devicePixelRatio = MediaQuery.devicePixelRatioOf(context);
+    _create();
+  }
+
+  Future<void> _create() async {
+    try {
+      final int? textureId = await _channel.invokeMethod('createTextureBanner', {
+        'placementId': widget.placementId,
+        'width': (_size.width * _devicePixelRatio).round(),
+        'height': (_size.height * _devicePixelRatio).round(),
+      });
+      if (_disposed) {
+        if (textureId != null) _release(textureId);
+        return;
+      }
+      setState(() => _textureId = textureId);
+    } catch (e) {
+      debugPrint('Error creating texture banner: $e');
+    }
+  }
+
+  void _release(int textureId) {
+    _channel
+        .invokeMethod('disposeTextureBanner', {'textureId': textureId})
+        .catchError((Object e) {
+          debugPrint('Error disposing texture banner: $e');
+        });
+  }
+
+  void _forward(int action, Offset position) {
+    final int? textureId = _textureId;
+    if (textureId == null) return;
+    _channel
+        .invokeMethod('dispatchTextureBannerTouch', {
+          'textureId': textureId,
+          'action': action,
+          'x': position.dx * _devicePixelRatio,
+          'y': position.dy * _devicePixelRatio,
+        })
+        .catchError((Object e) {
+          debugPrint('Error forwarding texture banner touch: $e');
+        });
+  }
+
+  @override
+  void dispose() {
+    _disposed = true;
+    final int? textureId = _textureId;
+    if (textureId != null) _release(textureId);
+    super.dispose();
+  }
+
+  @override
+  Widget build(BuildContext context) {
+    final int? textureId = _textureId;
+    return SizedBox.fromSize(
+      size: _size,
+      child: textureId == null
+          ? null
+          : Listener(
+              // MotionEvent actions: DOWN 0, UP 1, MOVE 2, CANCEL 3
+              onPointerDown: (e) => _forward(0, e.localPosition),
+              onPointerUp: (e) => _forward(1, e.localPosition),
+              onPointerMove: (e) => _forward(2, e.localPosition),
+              onPointerCancel: (e) => _forward(3, e.localPosition),
+              child: Texture(textureId: textureId),
+            ),
+    );
+  }
+}